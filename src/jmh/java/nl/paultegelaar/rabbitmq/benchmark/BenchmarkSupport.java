@@ -0,0 +1,101 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.apache.log4j.Level;
+import org.apache.log4j.LogManager;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+
+/**
+ * Shared setup of the benchmarks, generates synthetic configurations of any size.
+ *
+ */
+public final class BenchmarkSupport {
+
+	private static final int BINDINGS_PER_VIRTUAL_HOST = 1000;
+	private static final int BINDINGS_PER_EXCHANGE = 10;
+
+	private BenchmarkSupport() {
+	}
+
+	/**
+	 * Generate a configuration, bindings are spread over vhosts of at most 1000 bindings, every exchange is shared by
+	 * 10 bindings, every other queue has a dead letter queue and every third queue is a quorum queue.
+	 *
+	 * @param bindingCount
+	 * @return configuration as JSON
+	 * @throws IOException
+	 */
+	public static byte[] generateConfig(int bindingCount) throws IOException {
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bindingCount * 300);
+		try (JsonGenerator generator = new JsonFactory().createGenerator(outputStream)) {
+			generator.writeStartObject();
+			generator.writeStringField("configName", String.format("Synthetic config with %s bindings", bindingCount));
+			generator.writeArrayFieldStart("virtualHosts");
+			for (int index = 0; index < bindingCount; index++) {
+				if (index % BINDINGS_PER_VIRTUAL_HOST == 0) {
+					if (index > 0) {
+						generator.writeEndArray();
+						generator.writeEndObject();
+					}
+					generator.writeStartObject();
+					generator.writeStringField("name", "vhost-" + index / BINDINGS_PER_VIRTUAL_HOST);
+					generator.writeArrayFieldStart("bindings");
+				}
+				writeBinding(generator, index);
+			}
+			if (bindingCount > 0) {
+				generator.writeEndArray();
+				generator.writeEndObject();
+			}
+			generator.writeEndArray();
+			generator.writeEndObject();
+		}
+		return outputStream.toByteArray();
+	}
+
+	private static void writeBinding(JsonGenerator generator, int index) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField("name", "binding-" + index);
+		generator.writeObjectFieldStart("queue");
+		generator.writeStringField("name", "queue-" + index);
+		generator.writeBooleanField("durable", true);
+		generator.writeBooleanField("createDLQ", index % 2 == 0);
+		if (index % 3 == 0) {
+			generator.writeStringField("type", "quorum");
+		}
+		generator.writeEndObject();
+		generator.writeObjectFieldStart("exchange");
+		generator.writeStringField("name", "exchange-" + index / BINDINGS_PER_EXCHANGE);
+		generator.writeStringField("exchangeType", "direct");
+		generator.writeBooleanField("durable", true);
+		generator.writeEndObject();
+		generator.writeStringField("routingKey", "route-" + index);
+		generator.writeEndObject();
+	}
+
+	/**
+	 * @param apiBaseURL
+	 * @return ApplicationConfig for the given endpoint
+	 */
+	public static ApplicationConfig applicationConfig(String apiBaseURL) {
+		ApplicationConfig applicationConfig = new ApplicationConfig();
+		applicationConfig.setApiBaseURL(apiBaseURL);
+		applicationConfig.setApiUsername("guest");
+		applicationConfig.setApiPassword("guest".toCharArray());
+		return applicationConfig;
+	}
+
+	/**
+	 * Logging every request would be measured as well, only log warnings
+	 */
+	public static void quietLogging() {
+		LogManager.getRootLogger().setLevel(Level.WARN);
+	}
+
+}
@@ -0,0 +1,67 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.ingest.StreamingConfigReader;
+
+/**
+ * Reading a configuration, into a complete object tree and with the streaming reader. The streaming reader validates
+ * every binding while reading, compare it with the tree model plus {@link ValidationBenchmark}.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ConfigParsingBenchmark {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	@Param({ "100", "10000", "100000" })
+	public int bindings;
+
+	private byte[] configuration;
+	private Validator validator;
+
+	@Setup
+	public void setup() throws IOException {
+		BenchmarkSupport.quietLogging();
+		configuration = BenchmarkSupport.generateConfig(bindings);
+		validator = Validation.buildDefaultValidatorFactory().getValidator();
+	}
+
+	@Benchmark
+	public RabbitMQObjects treeModel() throws IOException {
+		return OBJECT_MAPPER.readValue(configuration, RabbitMQObjects.class);
+	}
+
+	@Benchmark
+	public int streaming(Blackhole blackhole) throws RabbitMQProvisioningException {
+		return new StreamingConfigReader(validator).read(new ByteArrayInputStream(configuration),
+				(virtualHostName, binding, bindingPath) -> blackhole.consume(binding));
+	}
+
+}
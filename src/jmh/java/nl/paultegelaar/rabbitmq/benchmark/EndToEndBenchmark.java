@@ -0,0 +1,77 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.util.RabbitMQAdminClient;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.config.HttpTransportType;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+
+/**
+ * Complete provisioning of a configuration against an in-process stub of the management API. A single operation
+ * sends roughly four requests per binding, select fewer sizes with -p bindings=100 for quick runs.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+public class EndToEndBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	public int bindings;
+
+	@Param({ "POOLED" })
+	public String transport;
+
+	@Param({ "8" })
+	public int maxRequestsInFlight;
+
+	private StubManagementServer stubManagementServer;
+	private RabbitMQAdminClient rabbitMQAdminClient;
+	private RabbitMQObjects rabbitMQObjects;
+
+	@Setup
+	public void setup() throws IOException, RabbitMQProvisioningException {
+		BenchmarkSupport.quietLogging();
+		stubManagementServer = new StubManagementServer(maxRequestsInFlight);
+		rabbitMQObjects = new ObjectMapper().readValue(BenchmarkSupport.generateConfig(bindings), RabbitMQObjects.class);
+
+		ApplicationConfig applicationConfig = BenchmarkSupport.applicationConfig(stubManagementServer.getBaseURL());
+		applicationConfig.setHttpTransportType(HttpTransportType.valueOf(transport));
+		applicationConfig.setMaxRequestsInFlight(maxRequestsInFlight);
+		applicationConfig.setWorkerThreads(maxRequestsInFlight);
+		rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		rabbitMQAdminClient.close();
+		stubManagementServer.close();
+	}
+
+	@Benchmark
+	public void processRabbitMQConfig() throws RabbitMQProvisioningException {
+		rabbitMQAdminClient.processRabbitMQConfig(rabbitMQObjects);
+	}
+
+}
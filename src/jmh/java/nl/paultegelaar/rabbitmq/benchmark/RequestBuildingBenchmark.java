@@ -0,0 +1,107 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.config.Queue;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanBuilder;
+import nl.paultegelaar.rabbitmq.util.preflight.PreflightAnalyzer;
+import nl.paultegelaar.rabbitmq.util.request.ManagementRequestFactory;
+
+/**
+ * Everything between a validated configuration and the bytes on the wire: the pre-flight check, planning the unique
+ * objects and building single requests.
+ *
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class RequestBuildingBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class PlanState {
+
+		@Param({ "100", "10000", "100000" })
+		public int bindings;
+
+		private ApplicationConfig applicationConfig;
+		private RabbitMQObjects rabbitMQObjects;
+
+		@Setup
+		public void setup() throws IOException {
+			BenchmarkSupport.quietLogging();
+			applicationConfig = BenchmarkSupport.applicationConfig("http://localhost:15672");
+			rabbitMQObjects = new ObjectMapper().readValue(BenchmarkSupport.generateConfig(bindings), RabbitMQObjects.class);
+		}
+
+	}
+
+	@State(Scope.Benchmark)
+	public static class RequestState {
+
+		private ManagementRequestFactory managementRequestFactory;
+		private Map<String, Object> queuePayload;
+		private Map<String, Object> bindingPayload;
+
+		@Setup
+		public void setup() {
+			managementRequestFactory = new ManagementRequestFactory(BenchmarkSupport.applicationConfig("http://localhost:15672"));
+			Queue queue = new Queue();
+			queue.setName("orders.created");
+			queue.setDurable(true);
+			queue.setCreateDLQ(true);
+			queue.setType(Queue.Type.QUORUM);
+			queuePayload = RabbitMQPayloads.queue("orders", queue, ".dead-letter");
+			bindingPayload = RabbitMQPayloads.binding("orders.created");
+		}
+
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public ProvisioningPlan plan(PlanState planState) throws RabbitMQProvisioningException {
+		return new ProvisioningPlanBuilder(planState.applicationConfig).add(planState.rabbitMQObjects).build();
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public PreflightAnalyzer preflight(PlanState planState) throws RabbitMQProvisioningException {
+		return new PreflightAnalyzer(planState.applicationConfig).add(planState.rabbitMQObjects);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public HttpUriRequest queueRequest(RequestState requestState) throws IOException, URISyntaxException {
+		return requestState.managementRequestFactory.createQueueRequest("/", "orders.created", requestState.queuePayload);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MICROSECONDS)
+	public HttpUriRequest bindingRequest(RequestState requestState) throws IOException, URISyntaxException {
+		return requestState.managementRequestFactory.createBindingRequest("/", "orders", "orders.created", requestState.bindingPayload);
+	}
+
+}
@@ -0,0 +1,96 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Wall clock time of a complete CLI run on a small configuration, each invocation starts a new JVM. With appcds the
+ * JVM uses a class data sharing archive recorded by a single run during setup, the same way the appcds build profile
+ * records one for the shaded jar. Needs JDK 13 or later for appcds.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+public class StartupBenchmark {
+
+	@Param({ "validateOnly", "provision" })
+	public String run;
+
+	@Param({ "default", "appcds" })
+	public String classDataSharing;
+
+	private StubManagementServer stubManagementServer;
+	private Path workDirectory;
+	private List<String> command;
+
+	@Setup
+	public void setup() throws IOException, InterruptedException {
+		stubManagementServer = new StubManagementServer(2);
+		workDirectory = Files.createTempDirectory("startup-benchmark");
+		Path configFile = workDirectory.resolve("config.json");
+		Files.write(configFile, BenchmarkSupport.generateConfig(10));
+
+		List<String> arguments = new ArrayList<>(Arrays.asList("-cp", System.getProperty("java.class.path"),
+				"nl.paultegelaar.rabbitmq.RabbitMQObjectCreator", "--configFile", configFile.toString()));
+		if ("validateOnly".equals(run)) {
+			arguments.add("--validateOnly");
+		} else {
+			arguments.addAll(Arrays.asList("--endpoint", stubManagementServer.getBaseURL(), "--username", "guest", "--password", "guest"));
+		}
+
+		command = new ArrayList<>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		if ("appcds".equals(classDataSharing)) {
+			Path archive = workDirectory.resolve("startup.jsa");
+			List<String> recordCommand = new ArrayList<>(command);
+			recordCommand.add("-Xlog:cds=error");
+			recordCommand.add("-XX:ArchiveClassesAtExit=" + archive);
+			recordCommand.addAll(arguments);
+			launch(recordCommand);
+			command.add("-XX:SharedArchiveFile=" + archive);
+		}
+		command.addAll(arguments);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		stubManagementServer.close();
+		try (Stream<Path> files = Files.walk(workDirectory)) {
+			files.sorted((first, second) -> second.compareTo(first)).forEach(path -> path.toFile().delete());
+		}
+	}
+
+	@Benchmark
+	public int startup() throws IOException, InterruptedException {
+		return launch(command);
+	}
+
+	private static int launch(List<String> command) throws IOException, InterruptedException {
+		return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(ProcessBuilder.Redirect.DISCARD).start().waitFor();
+	}
+
+}
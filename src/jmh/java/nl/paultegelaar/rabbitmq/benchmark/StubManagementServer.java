@@ -0,0 +1,76 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand in for the management API, every GET returns a small JSON object and every PUT or POST is
+ * answered with 201 Created without a body.
+ *
+ */
+public class StubManagementServer implements AutoCloseable {
+
+	private static final byte[] GET_RESPONSE = "{\"name\":\"stub\"}".getBytes(StandardCharsets.UTF_8);
+
+	private final HttpServer httpServer;
+	private final ExecutorService executorService;
+	private final AtomicLong requestCount = new AtomicLong();
+
+	/**
+	 * Start on a free port
+	 *
+	 * @param threads number of threads handling requests
+	 * @throws IOException
+	 */
+	public StubManagementServer(int threads) throws IOException {
+		httpServer = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+		executorService = Executors.newFixedThreadPool(threads);
+		httpServer.setExecutor(executorService);
+		httpServer.createContext("/", this::handle);
+		httpServer.start();
+	}
+
+	private void handle(HttpExchange exchange) throws IOException {
+		requestCount.incrementAndGet();
+		try (InputStream requestBody = exchange.getRequestBody(); OutputStream responseBody = exchange.getResponseBody()) {
+			requestBody.transferTo(OutputStream.nullOutputStream());
+			if ("GET".equals(exchange.getRequestMethod())) {
+				exchange.getResponseHeaders().add("Content-Type", "application/json");
+				exchange.sendResponseHeaders(200, GET_RESPONSE.length);
+				responseBody.write(GET_RESPONSE);
+			} else {
+				exchange.sendResponseHeaders(201, -1);
+			}
+		}
+	}
+
+	/**
+	 * @return base URL of the server
+	 */
+	public String getBaseURL() {
+		return String.format("http://localhost:%s", httpServer.getAddress().getPort());
+	}
+
+	/**
+	 * @return number of requests handled so far
+	 */
+	public long getRequestCount() {
+		return requestCount.get();
+	}
+
+	@Override
+	public void close() {
+		httpServer.stop(0);
+		executorService.shutdownNow();
+	}
+
+}
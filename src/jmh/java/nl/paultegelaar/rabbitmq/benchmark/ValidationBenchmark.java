@@ -0,0 +1,56 @@
+package nl.paultegelaar.rabbitmq.benchmark;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+
+/**
+ * Bean validation of a complete configuration, as done before provisioning.
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.Throughput, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ValidationBenchmark {
+
+	@Param({ "100", "10000", "100000" })
+	public int bindings;
+
+	private RabbitMQObjects rabbitMQObjects;
+	private Validator validator;
+
+	@Setup
+	public void setup() throws IOException {
+		BenchmarkSupport.quietLogging();
+		rabbitMQObjects = new ObjectMapper().readValue(BenchmarkSupport.generateConfig(bindings), RabbitMQObjects.class);
+		validator = Validation.buildDefaultValidatorFactory().getValidator();
+	}
+
+	@Benchmark
+	public Set<ConstraintViolation<RabbitMQObjects>> validate() {
+		return validator.validate(rabbitMQObjects);
+	}
+
+}
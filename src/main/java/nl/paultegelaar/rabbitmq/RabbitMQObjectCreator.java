@@ -1,8 +1,14 @@
 package nl.paultegelaar.rabbitmq;
 
 
+import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
 
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -14,12 +20,26 @@ import org.apache.commons.cli.ParseException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.util.MultiClusterAdminClient;
 import nl.paultegelaar.rabbitmq.util.RabbitMQAdminClient;
+import nl.paultegelaar.rabbitmq.util.cluster.MultiClusterResult;
 import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.config.ClusterEndpoint;
+import nl.paultegelaar.rabbitmq.util.config.HttpTransportType;
+import nl.paultegelaar.rabbitmq.util.config.ProvisionerType;
+import nl.paultegelaar.rabbitmq.util.config.ProvisioningMode;
 import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.ingest.ConfigFiles;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanner;
+import nl.paultegelaar.rabbitmq.util.requestlog.RequestLogCompiler;
+import nl.paultegelaar.rabbitmq.util.verify.VerificationReport;
+import nl.paultegelaar.rabbitmq.util.watch.ConfigWatcher;
+import nl.paultegelaar.rabbitmq.util.watch.StatusServer;
 
 public class RabbitMQObjectCreator {
 	
@@ -27,6 +47,45 @@ public class RabbitMQObjectCreator {
 	private static final String PASSWORD_PROPERTY = "password";
 	private static final String USERNAME_PROPERTY = "username";
 	private static final String ENDPOINT_PROPERTY = "endpoint";
+	private static final String MODE_PROPERTY = "mode";
+	private static final String MAX_REQUESTS_IN_FLIGHT_PROPERTY = "maxRequestsInFlight";
+	private static final String MIN_REQUESTS_IN_FLIGHT_PROPERTY = "minRequestsInFlight";
+	private static final String MAX_RETRIES_PROPERTY = "maxRetries";
+	private static final String WORKER_THREADS_PROPERTY = "workerThreads";
+	private static final String TRANSPORT_PROPERTY = "transport";
+	private static final String RECONCILE_PROPERTY = "reconcile";
+	private static final String STATE_FILE_PROPERTY = "stateFile";
+	private static final String FORCE_FULL_APPLY_PROPERTY = "forceFullApply";
+	private static final String STREAMING_PROPERTY = "streaming";
+	private static final String METRICS_JSON_PROPERTY = "metricsJson";
+	private static final String METRICS_PROMETHEUS_PROPERTY = "metricsPrometheus";
+	private static final String CLUSTERS_PROPERTY = "clusters";
+	private static final String WATCH_PROPERTY = "watch";
+	private static final String STATUS_PORT_PROPERTY = "statusPort";
+	private static final String VALIDATE_ONLY_PROPERTY = "validateOnly";
+	private static final String COMPILE_PROPERTY = "compile";
+	private static final String REPLAY_PROPERTY = "replay";
+	private static final String PROVISIONER_PROPERTY = "provisioner";
+	private static final String AMQP_URI_PROPERTY = "amqpUri";
+	private static final String AMQP_CHANNELS_PROPERTY = "amqpChannels";
+	private static final String PRUNE_PROPERTY = "prune";
+	private static final String DRY_RUN_PROPERTY = "dryRun";
+	private static final String IF_EMPTY_PROPERTY = "ifEmpty";
+	private static final String POLICY_QUEUE_SETTINGS_PROPERTY = "policyQueueSettings";
+	private static final String GENERATED_POLICY_PRIORITY_PROPERTY = "generatedPolicyPriority";
+	private static final String VERIFY_PROPERTY = "verify";
+	private static final String JOURNAL_PROPERTY = "journal";
+	private static final String RESUME_PROPERTY = "resume";
+	private static final String DEADLINE_PROPERTY = "deadline";
+	private static final String TRUST_STORE_PROPERTY = "trustStore";
+	private static final String TRUST_STORE_PASSWORD_PROPERTY = "trustStorePassword";
+	private static final String KEY_STORE_PROPERTY = "keyStore";
+	private static final String KEY_STORE_PASSWORD_PROPERTY = "keyStorePassword";
+	private static final String TLS_PROTOCOLS_PROPERTY = "tlsProtocols";
+	private static final String TLS_CIPHER_SUITES_PROPERTY = "tlsCipherSuites";
+	private static final String CONNECTION_TTL_PROPERTY = "connectionTtl";
+	private static final String KEEP_ALIVE_PROPERTY = "keepAlive";
+	private static final long SHUTDOWN_TIMEOUT_MILLIS = 30000L;
 	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
 	private static final Logger LOGGER = LoggerFactory.getLogger(RabbitMQObjectCreator.class);
 	
@@ -49,23 +108,181 @@ public class RabbitMQObjectCreator {
 	        String username = cmd.getOptionValue(USERNAME_PROPERTY);
 	        String password = cmd.getOptionValue(PASSWORD_PROPERTY);
 	        String configFile = cmd.getOptionValue(CONFIG_FILE_PROPERTY);
+	        boolean offline = cmd.hasOption(VALIDATE_ONLY_PROPERTY) || cmd.hasOption(COMPILE_PROPERTY);
+	        if (adminEndpoint == null && !cmd.hasOption(CLUSTERS_PROPERTY) && !offline) {
+	        	throw new ParseException("Either endpoint or clusters is required");
+	        }
+	        if (configFile == null && !cmd.hasOption(REPLAY_PROPERTY)) {
+	        	throw new ParseException("Missing required option: " + CONFIG_FILE_PROPERTY);
+	        }
+	        if (cmd.hasOption(RESUME_PROPERTY) && !cmd.hasOption(JOURNAL_PROPERTY)) {
+	        	throw new ParseException("Option " + RESUME_PROPERTY + " requires option " + JOURNAL_PROPERTY);
+	        }
+	        ProvisioningMode provisioningMode = ProvisioningMode.valueOf(
+	        		cmd.getOptionValue(MODE_PROPERTY, ProvisioningMode.PER_OBJECT.name()).toUpperCase().replace('-', '_'));
 	        	  
-	        //Read config file
-	        RabbitMQObjects rabbitMQObjects = OBJECT_MAPPER.readValue(new File(configFile), RabbitMQObjects.class);
-	        
 	        //Build application config
 	        ApplicationConfig applicationConfig = new ApplicationConfig();
 			applicationConfig.setApiBaseURL(adminEndpoint);
 			applicationConfig.setApiUsername(username);
-			applicationConfig.setApiPassword(password.toCharArray());
+			applicationConfig.setApiPassword(password == null ? null : password.toCharArray());
+			applicationConfig.setProvisioningMode(provisioningMode);
+			applicationConfig.setReconcile(cmd.hasOption(RECONCILE_PROPERTY));
+			applicationConfig.setStateFile(cmd.getOptionValue(STATE_FILE_PROPERTY));
+			applicationConfig.setForceFullApply(cmd.hasOption(FORCE_FULL_APPLY_PROPERTY));
+			applicationConfig.setJournalFile(cmd.getOptionValue(JOURNAL_PROPERTY));
+			applicationConfig.setResume(cmd.hasOption(RESUME_PROPERTY));
+			if (cmd.hasOption(DEADLINE_PROPERTY)) {
+				applicationConfig.setRunDeadlineMillis(Long.parseLong(cmd.getOptionValue(DEADLINE_PROPERTY)) * 1000L);
+			}
+			applicationConfig.setMetricsJsonFile(cmd.getOptionValue(METRICS_JSON_PROPERTY));
+			applicationConfig.setMetricsPrometheusFile(cmd.getOptionValue(METRICS_PROMETHEUS_PROPERTY));
+			if (cmd.hasOption(MAX_REQUESTS_IN_FLIGHT_PROPERTY)) {
+				applicationConfig.setMaxRequestsInFlight(Integer.parseInt(cmd.getOptionValue(MAX_REQUESTS_IN_FLIGHT_PROPERTY)));
+			}
+			if (cmd.hasOption(MIN_REQUESTS_IN_FLIGHT_PROPERTY)) {
+				applicationConfig.setMinRequestsInFlight(Integer.parseInt(cmd.getOptionValue(MIN_REQUESTS_IN_FLIGHT_PROPERTY)));
+			}
+			if (cmd.hasOption(MAX_RETRIES_PROPERTY)) {
+				applicationConfig.setMaxRetries(Integer.parseInt(cmd.getOptionValue(MAX_RETRIES_PROPERTY)));
+			}
+			if (cmd.hasOption(WORKER_THREADS_PROPERTY)) {
+				applicationConfig.setWorkerThreads(Integer.parseInt(cmd.getOptionValue(WORKER_THREADS_PROPERTY)));
+			}
+			if (cmd.hasOption(TRANSPORT_PROPERTY)) {
+				applicationConfig.setHttpTransportType(HttpTransportType.valueOf(cmd.getOptionValue(TRANSPORT_PROPERTY).toUpperCase().replace('-', '_')));
+			}
+			if (cmd.hasOption(PROVISIONER_PROPERTY)) {
+				applicationConfig.setProvisionerType(ProvisionerType.valueOf(cmd.getOptionValue(PROVISIONER_PROPERTY).toUpperCase()));
+			}
+			applicationConfig.setTlsTrustStore(cmd.getOptionValue(TRUST_STORE_PROPERTY));
+			if (cmd.hasOption(TRUST_STORE_PASSWORD_PROPERTY)) {
+				applicationConfig.setTlsTrustStorePassword(cmd.getOptionValue(TRUST_STORE_PASSWORD_PROPERTY).toCharArray());
+			}
+			applicationConfig.setTlsKeyStore(cmd.getOptionValue(KEY_STORE_PROPERTY));
+			if (cmd.hasOption(KEY_STORE_PASSWORD_PROPERTY)) {
+				applicationConfig.setTlsKeyStorePassword(cmd.getOptionValue(KEY_STORE_PASSWORD_PROPERTY).toCharArray());
+			}
+			if (cmd.hasOption(TLS_PROTOCOLS_PROPERTY)) {
+				applicationConfig.setTlsProtocols(cmd.getOptionValue(TLS_PROTOCOLS_PROPERTY));
+			}
+			applicationConfig.setTlsCipherSuites(cmd.getOptionValue(TLS_CIPHER_SUITES_PROPERTY));
+			if (cmd.hasOption(CONNECTION_TTL_PROPERTY)) {
+				applicationConfig.setConnectionTimeToLiveSeconds(Integer.parseInt(cmd.getOptionValue(CONNECTION_TTL_PROPERTY)));
+			}
+			if (cmd.hasOption(KEEP_ALIVE_PROPERTY)) {
+				applicationConfig.setKeepAliveSeconds(Integer.parseInt(cmd.getOptionValue(KEEP_ALIVE_PROPERTY)));
+			}
+			applicationConfig.setAmqpURI(cmd.getOptionValue(AMQP_URI_PROPERTY));
+			if (cmd.hasOption(AMQP_CHANNELS_PROPERTY)) {
+				applicationConfig.setAmqpChannels(Integer.parseInt(cmd.getOptionValue(AMQP_CHANNELS_PROPERTY)));
+			}
 	        
-			//Create client
-			RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig);
-			
-			//Run provisioning
-			rabbitMQAdminClient.processRabbitMQConfig(rabbitMQObjects);
+			applicationConfig.setPruneDryRun(cmd.hasOption(DRY_RUN_PROPERTY));
+			applicationConfig.setPruneIfEmpty(cmd.hasOption(IF_EMPTY_PROPERTY));
+			applicationConfig.setPolicyQueueSettings(cmd.hasOption(POLICY_QUEUE_SETTINGS_PROPERTY));
+			if (cmd.hasOption(GENERATED_POLICY_PRIORITY_PROPERTY)) {
+				applicationConfig.setGeneratedPolicyPriority(Integer.parseInt(cmd.getOptionValue(GENERATED_POLICY_PRIORITY_PROPERTY)));
+			}
+			if (cmd.hasOption(STATUS_PORT_PROPERTY)) {
+				applicationConfig.setStatusPort(Integer.parseInt(cmd.getOptionValue(STATUS_PORT_PROPERTY)));
+			}
+	        
+			if (cmd.hasOption(VALIDATE_ONLY_PROPERTY)) {
+				//Validate and plan without connecting to any endpoint
+				validate(applicationConfig, configFile, cmd.hasOption(STREAMING_PROPERTY));
+				return;
+			}
+	        
+			if (cmd.hasOption(COMPILE_PROPERTY)) {
+				//Write the requests to a request log instead of sending them
+				new RequestLogCompiler(applicationConfig).compile(plan(applicationConfig, configFile, cmd.hasOption(STREAMING_PROPERTY)),
+						Paths.get(cmd.getOptionValue(COMPILE_PROPERTY)));
+				return;
+			}
+	        
+			if (cmd.hasOption(REPLAY_PROPERTY)) {
+				//Send a compiled request log, resuming an interrupted replay
+				try (RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig)) {
+					rabbitMQAdminClient.processRequestLog(Paths.get(cmd.getOptionValue(REPLAY_PROPERTY)));
+				}
+				return;
+			}
+	        
+			if (cmd.hasOption(PRUNE_PROPERTY)) {
+				//Delete everything in the configured vhosts which is not in the config file
+				ProvisioningPlan provisioningPlan = plan(applicationConfig, configFile, cmd.hasOption(STREAMING_PROPERTY));
+				try (RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig)) {
+					rabbitMQAdminClient.prune(provisioningPlan);
+				}
+				return;
+			}
+	        
+			if (cmd.hasOption(VERIFY_PROPERTY)) {
+				//Provision and check every configured object against the broker afterwards
+				ProvisioningPlan provisioningPlan = plan(applicationConfig, configFile, cmd.hasOption(STREAMING_PROPERTY));
+				try (RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig)) {
+					rabbitMQAdminClient.processProvisioningPlan(provisioningPlan);
+					VerificationReport verificationReport = rabbitMQAdminClient.verify(provisioningPlan);
+					if (!verificationReport.isConsistent()) {
+						throw new RabbitMQProvisioningException(String.format("Broker doesn't match the configuration, %s mismatch(es)",
+								verificationReport.getMismatches().size()));
+					}
+				}
+				return;
+			}
 	        
-	    } catch (ParseException e) {
+			if (cmd.hasOption(WATCH_PROPERTY)) {
+				//Keep running and apply every change to the config files
+				watch(applicationConfig, configFile);
+				return;
+			}
+	        
+			if (cmd.hasOption(CLUSTERS_PROPERTY)) {
+				//Provision every cluster listed in the clusters file with the same config
+				List<ClusterEndpoint> clusterEndpoints = OBJECT_MAPPER.readValue(new File(cmd.getOptionValue(CLUSTERS_PROPERTY)),
+						new TypeReference<List<ClusterEndpoint>>() { });
+				List<Path> configFiles = ConfigFiles.resolve(configFile);
+				try (MultiClusterAdminClient multiClusterAdminClient = new MultiClusterAdminClient(applicationConfig, clusterEndpoints)) {
+					MultiClusterResult multiClusterResult;
+					if (configFiles.size() > 1) {
+						//Merge all config files into a single plan
+						multiClusterResult = multiClusterAdminClient.processProvisioningPlan(
+								new ProvisioningPlanner(applicationConfig).plan(configFiles, cmd.hasOption(STREAMING_PROPERTY)));
+					} else if (cmd.hasOption(STREAMING_PROPERTY)) {
+						try (InputStream configuration = new BufferedInputStream(Files.newInputStream(configFiles.get(0)))) {
+							multiClusterResult = multiClusterAdminClient.processRabbitMQConfigStream(configuration);
+						}
+					} else {
+						multiClusterResult = multiClusterAdminClient.processRabbitMQConfig(OBJECT_MAPPER.readValue(configFiles.get(0).toFile(), RabbitMQObjects.class));
+					}
+					if (!multiClusterResult.isSuccessful()) {
+						throw new RabbitMQProvisioningException(String.format("Provisioning failed on %s of %s cluster(s)",
+								multiClusterResult.getFailedClusters().size(), clusterEndpoints.size()));
+					}
+				}
+				return;
+			}
+	        
+			//Create client and run provisioning
+			List<Path> configFiles = ConfigFiles.resolve(configFile);
+			try (RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig)) {
+				if (configFiles.size() > 1) {
+					//Merge all config files into a single plan, provisioned in a single run
+					rabbitMQAdminClient.processProvisioningPlan(new ProvisioningPlanner(applicationConfig).plan(configFiles, cmd.hasOption(STREAMING_PROPERTY)));
+				} else if (cmd.hasOption(STREAMING_PROPERTY)) {
+					//Provision while reading the config file
+					try (InputStream configuration = new BufferedInputStream(Files.newInputStream(configFiles.get(0)))) {
+						rabbitMQAdminClient.processRabbitMQConfigStream(configuration);
+					}
+				} else {
+					//Read config file
+					RabbitMQObjects rabbitMQObjects = OBJECT_MAPPER.readValue(configFiles.get(0).toFile(), RabbitMQObjects.class);
+					rabbitMQAdminClient.processRabbitMQConfig(rabbitMQObjects);
+				}
+			}
+	        
+	    } catch (ParseException | IllegalArgumentException e) {
 	    	LOGGER.info("Exception parsing config JSON: {}", e.getMessage());
 	        helper.printHelp("Usage:", options);
 	        System.exit(0);
@@ -80,6 +297,77 @@ public class RabbitMQObjectCreator {
 		
 	}
 
+	/**
+	 * Validate and plan the config file, nothing is sent
+	 * 
+	 * @param applicationConfig
+	 * @param configFile
+	 * @param streaming read the config file with the streaming parser
+	 * @throws RabbitMQProvisioningException when the config is not valid
+	 * @throws IOException
+	 */
+	private static void validate(ApplicationConfig applicationConfig, String configFile, boolean streaming) throws RabbitMQProvisioningException, IOException {
+		ProvisioningPlan provisioningPlan = plan(applicationConfig, configFile, streaming);
+		LOGGER.info("Configuration is valid, {} object(s) planned from {} declaration(s)", provisioningPlan.size(), provisioningPlan.getDeclarationCount());
+	}
+
+	/**
+	 * Plan the config files, several files are merged into a single plan
+	 * 
+	 * @param applicationConfig
+	 * @param configFile comma separated config files, directories and glob patterns
+	 * @param streaming read the config file with the streaming parser
+	 * @return ProvisioningPlan
+	 * @throws RabbitMQProvisioningException when the config is not valid
+	 * @throws IOException
+	 */
+	private static ProvisioningPlan plan(ApplicationConfig applicationConfig, String configFile, boolean streaming) throws RabbitMQProvisioningException, IOException {
+		ProvisioningPlanner provisioningPlanner = new ProvisioningPlanner(applicationConfig);
+		List<Path> configFiles = ConfigFiles.resolve(configFile);
+		if (configFiles.size() > 1) {
+			return provisioningPlanner.plan(configFiles, streaming);
+		}
+		if (streaming) {
+			try (InputStream configuration = new BufferedInputStream(Files.newInputStream(configFiles.get(0)))) {
+				return provisioningPlanner.plan(configuration);
+			}
+		}
+		return provisioningPlanner.plan(OBJECT_MAPPER.readValue(configFiles.get(0).toFile(), RabbitMQObjects.class));
+	}
+
+	/**
+	 * Watch the config files until the process is stopped, the client stays connected between changes
+	 * 
+	 * @param applicationConfig
+	 * @param configFiles comma separated config files, directories and glob patterns
+	 * @throws RabbitMQProvisioningException
+	 * @throws IOException
+	 */
+	private static void watch(ApplicationConfig applicationConfig, String configFiles) throws RabbitMQProvisioningException, IOException {
+		List<Path> paths = ConfigFiles.resolveWatched(configFiles);
+		
+		try (RabbitMQAdminClient rabbitMQAdminClient = new RabbitMQAdminClient(applicationConfig);
+				ConfigWatcher configWatcher = new ConfigWatcher(applicationConfig, rabbitMQAdminClient, paths);
+				StatusServer statusServer = applicationConfig.getStatusPort() > 0
+						? new StatusServer(applicationConfig.getStatusPort(), configWatcher, rabbitMQAdminClient.getProvisioningMetrics()) : null) {
+			
+			//Stop watching on shutdown, a running apply is finished first. The join is bounded, the watch thread may
+			//itself be waiting in System.exit for this hook.
+			Thread watchThread = Thread.currentThread();
+			Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+				try {
+					configWatcher.close();
+					watchThread.join(SHUTDOWN_TIMEOUT_MILLIS);
+				} catch (IOException e) {
+					LOGGER.info("Unable to stop watching: {}", e.getMessage());
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}));
+			configWatcher.run();
+		}
+	}
+
 	/**
 	 * Builds all options used by main method.
 	 * 
@@ -91,29 +379,246 @@ public class RabbitMQObjectCreator {
 		Option adminEndpoint = Option.builder("e").longOpt(ENDPOINT_PROPERTY)
 		        						   .argName(ENDPOINT_PROPERTY)
 		        						   .hasArg()
-		        						   .required(true)
-		        						   .desc("Set RabbitMQ admin endpoint").build();
+		        						   .required(false)
+		        						   .desc("Set RabbitMQ admin endpoint, required unless clusters is set").build();
 		
 		Option username = Option.builder("u").longOpt(USERNAME_PROPERTY)
 										   .argName(USERNAME_PROPERTY)
 										   .hasArg()
-										   .required(true)
+										   .required(false)
 										   .desc("Set RabbitMQ admin username").build();
 		
 		Option password = Option.builder("p").longOpt(PASSWORD_PROPERTY)
 										   .argName(PASSWORD_PROPERTY)
 										   .hasArg()
-										   .required(true)
+										   .required(false)
 										   .desc("Set RabbitMQ admin password").build();
 		
 		Option configFile = Option.builder("c").longOpt(CONFIG_FILE_PROPERTY)
 				   .argName(CONFIG_FILE_PROPERTY)
 				   .hasArg()
-				   .required(true)
-				   .desc("Set config file containing objects").build();
+				   .required(false)
+				   .desc("Set config file containing objects, may list several files, directories and quoted glob patterns separated by commas, required unless replay is set").build();
+		
+		Option clusters = Option.builder().longOpt(CLUSTERS_PROPERTY)
+				   .argName(CLUSTERS_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set JSON file listing the clusters to provision concurrently, each with name, apiBaseURL and optionally apiUsername and apiPassword").build();
+		
+
+		Option mode = Option.builder("m").longOpt(MODE_PROPERTY)
+				   .argName(MODE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set provisioning mode, per-object (default) or definitions").build();
+		
+
+		Option maxRequestsInFlight = Option.builder().longOpt(MAX_REQUESTS_IN_FLIGHT_PROPERTY)
+				   .argName(MAX_REQUESTS_IN_FLIGHT_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set maximum number of concurrent requests to the admin endpoint, default 1").build();
+		
+		Option minRequestsInFlight = Option.builder().longOpt(MIN_REQUESTS_IN_FLIGHT_PROPERTY)
+				   .argName(MIN_REQUESTS_IN_FLIGHT_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set minimum number of concurrent requests when the admin endpoint is overloaded, default 1").build();
+		
+		Option maxRetries = Option.builder().longOpt(MAX_RETRIES_PROPERTY)
+				   .argName(MAX_RETRIES_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set number of retries of a request failing with 429, 502, 503, 504 or an I/O error, default 3").build();
+		
+		Option workerThreads = Option.builder().longOpt(WORKER_THREADS_PROPERTY)
+				   .argName(WORKER_THREADS_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set number of worker threads, used when virtual threads are not available").build();
+		
+		Option transport = Option.builder().longOpt(TRANSPORT_PROPERTY)
+				   .argName(TRANSPORT_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set HTTP transport, single-connection (default), pooled or async").build();
+		
+		Option provisioner = Option.builder().longOpt(PROVISIONER_PROPERTY)
+				   .argName(PROVISIONER_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set provisioner, http (default) or amqp declaring objects over AMQP 0-9-1 with per-object mode").build();
+		
+		Option amqpUri = Option.builder().longOpt(AMQP_URI_PROPERTY)
+				   .argName(AMQP_URI_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set AMQP URI of the broker, required for the amqp provisioner, for example amqp://localhost:5672").build();
+		
+		Option amqpChannels = Option.builder().longOpt(AMQP_CHANNELS_PROPERTY)
+				   .argName(AMQP_CHANNELS_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set number of channels per vhost used by the amqp provisioner, default 4").build();
+		
+		Option reconcile = Option.builder().longOpt(RECONCILE_PROPERTY)
+				   .required(false)
+				   .desc("Download the current definitions first and only send the changes").build();
+		
+		Option stateFile = Option.builder().longOpt(STATE_FILE_PROPERTY)
+				   .argName(STATE_FILE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set state file, objects unchanged since the last successful apply are skipped").build();
+		
+		Option forceFullApply = Option.builder().longOpt(FORCE_FULL_APPLY_PROPERTY)
+				   .required(false)
+				   .desc("Apply all objects, ignoring the state file").build();
+		
+		Option journal = Option.builder().longOpt(JOURNAL_PROPERTY)
+				   .argName(JOURNAL_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Journal every provisioned object to this file, removed once the whole config has been applied").build();
+		
+		Option resume = Option.builder().longOpt(RESUME_PROPERTY)
+				   .required(false)
+				   .desc("Skip the objects in the journal of an interrupted run of the same config").build();
+		
+		Option deadline = Option.builder().longOpt(DEADLINE_PROPERTY)
+				   .argName(DEADLINE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Stop starting new objects after this many seconds, the run fails listing the skipped objects").build();
+		
+		Option trustStore = Option.builder().longOpt(TRUST_STORE_PROPERTY)
+				   .argName(TRUST_STORE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set PKCS12 truststore with the certificates trusted for an HTTPS endpoint, the JVM defaults when not set").build();
+		
+		Option trustStorePassword = Option.builder().longOpt(TRUST_STORE_PASSWORD_PROPERTY)
+				   .argName(TRUST_STORE_PASSWORD_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set truststore password").build();
+		
+		Option keyStore = Option.builder().longOpt(KEY_STORE_PROPERTY)
+				   .argName(KEY_STORE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set PKCS12 keystore with the client certificate sent to an HTTPS endpoint").build();
+		
+		Option keyStorePassword = Option.builder().longOpt(KEY_STORE_PASSWORD_PROPERTY)
+				   .argName(KEY_STORE_PASSWORD_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set keystore and key password").build();
+		
+		Option tlsProtocols = Option.builder().longOpt(TLS_PROTOCOLS_PROPERTY)
+				   .argName(TLS_PROTOCOLS_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set comma separated TLS protocols, default TLSv1.3,TLSv1.2").build();
+		
+		Option tlsCipherSuites = Option.builder().longOpt(TLS_CIPHER_SUITES_PROPERTY)
+				   .argName(TLS_CIPHER_SUITES_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set comma separated TLS cipher suites, the JVM defaults when not set").build();
+		
+		Option connectionTtl = Option.builder().longOpt(CONNECTION_TTL_PROPERTY)
+				   .argName(CONNECTION_TTL_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Close pooled connections after this many seconds, default unlimited").build();
+		
+		Option keepAlive = Option.builder().longOpt(KEEP_ALIVE_PROPERTY)
+				   .argName(KEEP_ALIVE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Keep idle connections at most this many seconds, default the Keep-Alive timeout of the broker").build();
+		
+		Option metricsJson = Option.builder().longOpt(METRICS_JSON_PROPERTY)
+				   .argName(METRICS_JSON_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Write request latencies and counters of the run to this JSON file").build();
+		
+		Option metricsPrometheus = Option.builder().longOpt(METRICS_PROMETHEUS_PROPERTY)
+				   .argName(METRICS_PROMETHEUS_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Write request latencies and counters of the run to this file in Prometheus text format").build();
+		
+		Option validateOnly = Option.builder().longOpt(VALIDATE_ONLY_PROPERTY)
+				   .required(false)
+				   .desc("Only validate and plan the config file, no endpoint or credentials needed").build();
+		
+		Option watch = Option.builder().longOpt(WATCH_PROPERTY)
+				   .required(false)
+				   .desc("Keep running and apply changes to the config files, configFile may list several files or directories separated by commas").build();
+		
+		Option statusPort = Option.builder().longOpt(STATUS_PORT_PROPERTY)
+				   .argName(STATUS_PORT_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set port of the local status endpoint in watch mode, disabled by default").build();
+		
+		Option compile = Option.builder().longOpt(COMPILE_PROPERTY)
+				   .argName(COMPILE_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Compile the config file into this request log instead of sending it, no endpoint or credentials needed").build();
+		
+		Option replay = Option.builder().longOpt(REPLAY_PROPERTY)
+				   .argName(REPLAY_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Send the requests of this compiled request log, an interrupted replay resumes where it stopped").build();
+		
+		Option prune = Option.builder().longOpt(PRUNE_PROPERTY)
+				   .required(false)
+				   .desc("Delete the queues, exchanges and bindings of the configured vhosts which are not in the config file").build();
+		
+		Option dryRun = Option.builder().longOpt(DRY_RUN_PROPERTY)
+				   .required(false)
+				   .desc("Only list what prune would delete").build();
+		
+		Option ifEmpty = Option.builder().longOpt(IF_EMPTY_PROPERTY)
+				   .required(false)
+				   .desc("Prune only deletes queues without messages").build();
+		
+		Option policyQueueSettings = Option.builder().longOpt(POLICY_QUEUE_SETTINGS_PROPERTY)
+				   .required(false)
+				   .desc("Apply the dead letter exchange, message TTL and max length of queues with a few generated policies instead of queue arguments").build();
+		
+		Option generatedPolicyPriority = Option.builder().longOpt(GENERATED_POLICY_PRIORITY_PROPERTY)
+				   .argName(GENERATED_POLICY_PRIORITY_PROPERTY)
+				   .hasArg()
+				   .required(false)
+				   .desc("Set priority of the generated queue settings policies, default 0").build();
+		
+		Option verify = Option.builder().longOpt(VERIFY_PROPERTY)
+				   .required(false)
+				   .desc("Check every configured object against the broker after provisioning, with a few paginated list requests per vhost").build();
+		
+		Option streaming = Option.builder().longOpt(STREAMING_PROPERTY)
+				   .required(false)
+				   .desc("Read the config file as a stream and start provisioning while reading, for very large files").build();
 		
 
-		return options.addOption(password).addOption(username).addOption(adminEndpoint).addOption(configFile);
+		return options.addOption(password).addOption(username).addOption(adminEndpoint).addOption(configFile).addOption(mode)
+				.addOption(maxRequestsInFlight).addOption(workerThreads).addOption(transport)
+				.addOption(reconcile).addOption(stateFile).addOption(forceFullApply).addOption(streaming)
+				.addOption(metricsJson).addOption(metricsPrometheus).addOption(minRequestsInFlight).addOption(maxRetries).addOption(clusters)
+				.addOption(watch).addOption(statusPort).addOption(validateOnly).addOption(compile).addOption(replay)
+				.addOption(provisioner).addOption(amqpUri).addOption(amqpChannels)
+				.addOption(prune).addOption(dryRun).addOption(ifEmpty).addOption(policyQueueSettings).addOption(generatedPolicyPriority)
+				.addOption(verify).addOption(journal).addOption(resume).addOption(deadline)
+				.addOption(trustStore).addOption(trustStorePassword).addOption(keyStore).addOption(keyStorePassword)
+				.addOption(tlsProtocols).addOption(tlsCipherSuites).addOption(connectionTtl).addOption(keepAlive);
 	}
 
 }
\ No newline at end of file
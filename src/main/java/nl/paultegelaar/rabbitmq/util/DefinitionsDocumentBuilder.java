@@ -0,0 +1,109 @@
+package nl.paultegelaar.rabbitmq.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the queues, exchanges, bindings and policies of a single virtual host and compiles them into a definitions document
+ * which can be uploaded to the vhost scoped definitions endpoint of the management API.
+ *
+ */
+public class DefinitionsDocumentBuilder {
+
+	private static final String NAME_PROPERTY = "name";
+	private static final String AUTO_DELETE_PROPERTY = "auto_delete";
+
+	private final Map<String, Map<String, Object>> queues = new LinkedHashMap<>();
+	private final Map<String, Map<String, Object>> exchanges = new LinkedHashMap<>();
+	private final Map<String, Map<String, Object>> bindings = new LinkedHashMap<>();
+	private final Map<String, Map<String, Object>> policies = new LinkedHashMap<>();
+
+	/**
+	 * Add a queue, the first declaration of a queue name is kept, just like the first PUT creates the queue
+	 *
+	 * @param queueName
+	 * @param queueBody body as created by {@link RabbitMQPayloads}
+	 */
+	public void addQueue(String queueName, Map<String, Object> queueBody) {
+		Map<String, Object> queue = new LinkedHashMap<>();
+		queue.put(NAME_PROPERTY, queueName);
+		queue.put(RabbitMQPayloads.DURABLE_PROPERTY, queueBody.get(RabbitMQPayloads.DURABLE_PROPERTY));
+		queue.put(AUTO_DELETE_PROPERTY, false);
+		queue.put(RabbitMQPayloads.ARGUMENTS_PROPERTY, queueBody.get(RabbitMQPayloads.ARGUMENTS_PROPERTY));
+		queues.putIfAbsent(queueName, queue);
+	}
+
+	/**
+	 * Add an exchange, the first declaration of an exchange name is kept
+	 *
+	 * @param exchangeName
+	 * @param exchangeBody body as created by {@link RabbitMQPayloads}
+	 */
+	public void addExchange(String exchangeName, Map<String, Object> exchangeBody) {
+		Map<String, Object> exchange = new LinkedHashMap<>();
+		exchange.put(NAME_PROPERTY, exchangeName);
+		exchange.put(RabbitMQPayloads.TYPE_PROPERTY, exchangeBody.get(RabbitMQPayloads.TYPE_PROPERTY));
+		exchange.put(RabbitMQPayloads.DURABLE_PROPERTY, exchangeBody.get(RabbitMQPayloads.DURABLE_PROPERTY));
+		exchange.put(AUTO_DELETE_PROPERTY, false);
+		exchange.put("internal", false);
+		exchange.put(RabbitMQPayloads.ARGUMENTS_PROPERTY, Collections.emptyMap());
+		exchanges.putIfAbsent(exchangeName, exchange);
+	}
+
+	/**
+	 * Add a binding between an exchange and a queue
+	 *
+	 * @param exchangeName
+	 * @param queueName
+	 * @param bindingBody body as created by {@link RabbitMQPayloads}
+	 */
+	public void addBinding(String exchangeName, String queueName, Map<String, Object> bindingBody) {
+		String routingKey = (String) bindingBody.get(RabbitMQPayloads.ROUTING_KEY_PROPERTY);
+		Map<String, Object> binding = new LinkedHashMap<>();
+		binding.put("source", exchangeName);
+		binding.put("destination", queueName);
+		binding.put("destination_type", "queue");
+		binding.put(RabbitMQPayloads.ROUTING_KEY_PROPERTY, routingKey);
+		binding.put(RabbitMQPayloads.ARGUMENTS_PROPERTY, bindingBody.get(RabbitMQPayloads.ARGUMENTS_PROPERTY));
+		bindings.putIfAbsent(String.join("\u0000", exchangeName, queueName, routingKey), binding);
+	}
+
+	/**
+	 * Add a policy, the first declaration of a policy name is kept
+	 *
+	 * @param policyName
+	 * @param policyBody body as created by {@link RabbitMQPayloads}
+	 */
+	public void addPolicy(String policyName, Map<String, Object> policyBody) {
+		Map<String, Object> policy = new LinkedHashMap<>();
+		policy.put(NAME_PROPERTY, policyName);
+		policy.putAll(policyBody);
+		policies.putIfAbsent(policyName, policy);
+	}
+
+	/**
+	 * @return true when nothing was added
+	 */
+	public boolean isEmpty() {
+		return queues.isEmpty() && exchanges.isEmpty() && bindings.isEmpty() && policies.isEmpty();
+	}
+
+	/**
+	 * Compile the collected objects into a definitions document
+	 *
+	 * @return Map containing queues, exchanges, bindings and policies when there are any
+	 */
+	public Map<String, Object> build() {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put("queues", new ArrayList<>(queues.values()));
+		json.put("exchanges", new ArrayList<>(exchanges.values()));
+		json.put("bindings", new ArrayList<>(bindings.values()));
+		if (!policies.isEmpty()) {
+			json.put("policies", new ArrayList<>(policies.values()));
+		}
+		return json;
+	}
+
+}
@@ -0,0 +1,217 @@
+package nl.paultegelaar.rabbitmq.util;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.util.cluster.ClusterResult;
+import nl.paultegelaar.rabbitmq.util.cluster.MultiClusterResult;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.config.ClusterEndpoint;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.metrics.OperationMetrics;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanner;
+
+/**
+ * Applies one configuration to several clusters at the same time. The configuration is validated and planned once,
+ * the plan is then handed to a {@link RabbitMQAdminClient} per cluster. Every cluster has its own transport, workers,
+ * state file and metrics, a failing or slow cluster doesn't affect the others.
+ *
+ */
+public class MultiClusterAdminClient implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(MultiClusterAdminClient.class);
+
+	private final ApplicationConfig applicationConfig;
+	private final List<ClusterEndpoint> clusterEndpoints;
+	private final Map<String, RabbitMQAdminClient> rabbitMQAdminClients = new LinkedHashMap<>();
+	private final ExecutorService clusterExecutor;
+
+	/**
+	 * Create a client per cluster
+	 *
+	 * @param applicationConfig settings shared by all clusters, endpoint and credentials are taken from the clusters
+	 * @param clusterEndpoints  clusters to provision, names must be unique
+	 * @throws RabbitMQProvisioningException when a cluster is configured incorrectly
+	 */
+	public MultiClusterAdminClient(ApplicationConfig applicationConfig, List<ClusterEndpoint> clusterEndpoints) throws RabbitMQProvisioningException {
+		if (clusterEndpoints == null || clusterEndpoints.isEmpty()) {
+			throw new RabbitMQProvisioningException("At least one cluster endpoint is required");
+		}
+		this.applicationConfig = applicationConfig;
+		this.clusterEndpoints = new ArrayList<>(clusterEndpoints);
+
+		try {
+			for (ClusterEndpoint clusterEndpoint : clusterEndpoints) {
+				if (StringUtils.isBlank(clusterEndpoint.getName()) || rabbitMQAdminClients.containsKey(clusterEndpoint.getName())) {
+					throw new RabbitMQProvisioningException(String.format("Cluster name '%s' is blank or not unique", clusterEndpoint.getName()));
+				}
+				LOGGER.info("Building RabbitMQAdminClient for cluster {} at {}", clusterEndpoint.getName(), clusterEndpoint.getApiBaseURL());
+				rabbitMQAdminClients.put(clusterEndpoint.getName(), new RabbitMQAdminClient(forCluster(applicationConfig, clusterEndpoint)));
+			}
+		} catch (RabbitMQProvisioningException e) {
+			closeClients();
+			throw e;
+		}
+
+		AtomicInteger threadCount = new AtomicInteger();
+		this.clusterExecutor = Executors.newFixedThreadPool(rabbitMQAdminClients.size(), runnable -> {
+			Thread thread = new Thread(runnable, "rabbitmq-cluster-" + threadCount.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Derive the config of a single cluster. State, journal and metrics files get the cluster name appended, each
+	 * cluster keeps its own.
+	 *
+	 * @param applicationConfig
+	 * @param clusterEndpoint
+	 * @return ApplicationConfig for the cluster
+	 */
+	static ApplicationConfig forCluster(ApplicationConfig applicationConfig, ClusterEndpoint clusterEndpoint) {
+		ApplicationConfig clusterConfig = new ApplicationConfig(applicationConfig);
+		clusterConfig.setApiBaseURL(clusterEndpoint.getApiBaseURL());
+		if (StringUtils.isNotBlank(clusterEndpoint.getApiUsername())) {
+			clusterConfig.setApiUsername(clusterEndpoint.getApiUsername());
+		}
+		if (clusterEndpoint.getApiPassword() != null) {
+			clusterConfig.setApiPassword(clusterEndpoint.getApiPassword());
+		}
+		if (StringUtils.isNotBlank(clusterEndpoint.getAmqpURI())) {
+			clusterConfig.setAmqpURI(clusterEndpoint.getAmqpURI());
+		}
+		clusterConfig.setStateFile(perClusterFile(applicationConfig.getStateFile(), clusterEndpoint.getName()));
+		clusterConfig.setJournalFile(perClusterFile(applicationConfig.getJournalFile(), clusterEndpoint.getName()));
+		clusterConfig.setMetricsJsonFile(perClusterFile(applicationConfig.getMetricsJsonFile(), clusterEndpoint.getName()));
+		clusterConfig.setMetricsPrometheusFile(perClusterFile(applicationConfig.getMetricsPrometheusFile(), clusterEndpoint.getName()));
+		return clusterConfig;
+	}
+
+	/**
+	 * @param file        e.g. state.json
+	 * @param clusterName e.g. eu-1
+	 * @return file name containing the cluster name, e.g. state.eu-1.json, or null when no file is configured
+	 */
+	static String perClusterFile(String file, String clusterName) {
+		if (StringUtils.isBlank(file)) {
+			return file;
+		}
+		int nameStart = Math.max(file.lastIndexOf('/'), file.lastIndexOf('\\')) + 1;
+		int extensionStart = file.lastIndexOf('.');
+		if (extensionStart <= nameStart) {
+			return file + "." + clusterName;
+		}
+		return file.substring(0, extensionStart) + "." + clusterName + file.substring(extensionStart);
+	}
+
+	/**
+	 * Validate and plan the configuration once and apply it to all clusters
+	 *
+	 * @param rabbitMQObjects
+	 * @return result per cluster
+	 * @throws RabbitMQProvisioningException when the configuration is not valid, nothing has been sent
+	 */
+	public MultiClusterResult processRabbitMQConfig(RabbitMQObjects rabbitMQObjects) throws RabbitMQProvisioningException {
+		return processProvisioningPlan(new ProvisioningPlanner(applicationConfig).plan(rabbitMQObjects));
+	}
+
+	/**
+	 * Read, validate and plan the configuration once and apply it to all clusters
+	 *
+	 * @param configuration JSON configuration, not closed by this method
+	 * @return result per cluster
+	 * @throws RabbitMQProvisioningException when the configuration is not valid, nothing has been sent
+	 */
+	public MultiClusterResult processRabbitMQConfigStream(InputStream configuration) throws RabbitMQProvisioningException {
+		return processProvisioningPlan(new ProvisioningPlanner(applicationConfig).plan(configuration));
+	}
+
+	/**
+	 * Apply the plan to all clusters concurrently and wait for all of them
+	 *
+	 * @param provisioningPlan
+	 * @return result per cluster
+	 */
+	public MultiClusterResult processProvisioningPlan(ProvisioningPlan provisioningPlan) {
+		LOGGER.info("Provisioning {} object(s) to {} cluster(s)", provisioningPlan.size(), rabbitMQAdminClients.size());
+
+		List<CompletableFuture<ClusterResult>> clusterFutures = new ArrayList<>();
+		for (ClusterEndpoint clusterEndpoint : clusterEndpoints) {
+			clusterFutures.add(CompletableFuture.supplyAsync(() -> provisionCluster(clusterEndpoint, provisioningPlan), clusterExecutor));
+		}
+
+		List<ClusterResult> clusterResults = new ArrayList<>();
+		for (CompletableFuture<ClusterResult> clusterFuture : clusterFutures) {
+			clusterResults.add(clusterFuture.join());
+		}
+		MultiClusterResult multiClusterResult = new MultiClusterResult(clusterResults);
+		LOGGER.info("Cluster results:{}{}", System.lineSeparator(), multiClusterResult.summary());
+		return multiClusterResult;
+	}
+
+	private ClusterResult provisionCluster(ClusterEndpoint clusterEndpoint, ProvisioningPlan provisioningPlan) {
+		String clusterName = clusterEndpoint.getName();
+		RabbitMQAdminClient rabbitMQAdminClient = rabbitMQAdminClients.get(clusterName);
+		String error = null;
+		try {
+			rabbitMQAdminClient.processProvisioningPlan(provisioningPlan);
+		} catch (RabbitMQProvisioningException | RuntimeException e) {
+			LOGGER.error("Provisioning failed on cluster {}: {}", clusterName, e.getMessage());
+			error = e.getMessage() == null ? e.getClass().getName() : e.getMessage();
+		}
+
+		ProvisioningMetrics provisioningMetrics = rabbitMQAdminClient.getProvisioningMetrics();
+		long requestCount = 0;
+		long retryCount = 0;
+		for (OperationMetrics operationMetrics : provisioningMetrics.getOperationMetrics().values()) {
+			requestCount += operationMetrics.getRequestCount();
+			retryCount += operationMetrics.getRetryCount();
+		}
+		return new ClusterResult(clusterName, clusterEndpoint.getApiBaseURL(), error, provisioningMetrics.getObjectCount(), requestCount,
+				retryCount, provisioningMetrics.getRunDurationNanos());
+	}
+
+	/**
+	 * @return client per cluster name
+	 */
+	public Map<String, RabbitMQAdminClient> getRabbitMQAdminClients() {
+		return rabbitMQAdminClients;
+	}
+
+	/**
+	 * Close the clients of all clusters
+	 */
+	@Override
+	public void close() throws IOException {
+		clusterExecutor.shutdownNow();
+		closeClients();
+	}
+
+	private void closeClients() {
+		for (Map.Entry<String, RabbitMQAdminClient> entry : rabbitMQAdminClients.entrySet()) {
+			try {
+				entry.getValue().close();
+			} catch (IOException e) {
+				LOGGER.info("Unable to close client of cluster {}: {}", entry.getKey(), e.getMessage());
+			}
+		}
+	}
+
+}
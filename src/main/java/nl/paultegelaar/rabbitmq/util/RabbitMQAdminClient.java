@@ -1,63 +1,87 @@
 package nl.paultegelaar.rabbitmq.util;
 
+import java.io.Closeable;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
-import java.net.URI;
+import java.io.InputStream;
 import java.net.URISyntaxException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.http.client.config.RequestConfig;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.methods.HttpPut;
 import org.apache.http.client.methods.HttpUriRequest;
-import org.apache.http.config.ConnectionConfig;
-import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.client.CloseableHttpClient;
-import org.apache.http.impl.client.HttpClientBuilder;
-import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
-import org.apache.http.util.EntityUtils;
-import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
 import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
-import nl.paultegelaar.rabbitmq.config.Binding;
-import nl.paultegelaar.rabbitmq.config.Exchange;
-import nl.paultegelaar.rabbitmq.config.Queue;
 import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
-import nl.paultegelaar.rabbitmq.config.VirtualHost;
 import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.config.ProvisionerType;
+import nl.paultegelaar.rabbitmq.util.config.ProvisioningMode;
+import nl.paultegelaar.rabbitmq.util.engine.ProgressListener;
+import nl.paultegelaar.rabbitmq.util.engine.ProvisioningEngine;
+import nl.paultegelaar.rabbitmq.util.engine.ProvisioningProgress;
 import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.ingest.StreamingConfigReader;
+import nl.paultegelaar.rabbitmq.util.journal.ProgressJournal;
+import nl.paultegelaar.rabbitmq.util.metrics.MetricsExporter;
+import nl.paultegelaar.rabbitmq.util.metrics.Operation;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanBuilder;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanner;
+import nl.paultegelaar.rabbitmq.util.preflight.PreflightAnalyzer;
+import nl.paultegelaar.rabbitmq.util.provisioner.AmqpProvisioner;
+import nl.paultegelaar.rabbitmq.util.provisioner.Provisioner;
+import nl.paultegelaar.rabbitmq.util.prune.PrunePlanner;
+import nl.paultegelaar.rabbitmq.util.prune.PrunedObject;
+import nl.paultegelaar.rabbitmq.util.reconcile.LiveTopology;
+import nl.paultegelaar.rabbitmq.util.request.ManagementRequestFactory;
+import nl.paultegelaar.rabbitmq.util.requestlog.RequestLogCompiler;
+import nl.paultegelaar.rabbitmq.util.requestlog.RequestLogReplayer;
+import nl.paultegelaar.rabbitmq.util.reconcile.TopologyReconciler;
+import nl.paultegelaar.rabbitmq.util.state.ProvisioningStateStore;
+import nl.paultegelaar.rabbitmq.util.transport.HttpTransport;
+import nl.paultegelaar.rabbitmq.util.transport.HttpTransportFactory;
+import nl.paultegelaar.rabbitmq.util.transport.ManagementAPIResponse;
+import nl.paultegelaar.rabbitmq.util.transport.RetriesExhaustedException;
+import nl.paultegelaar.rabbitmq.util.validation.SharedValidator;
+import nl.paultegelaar.rabbitmq.util.verify.ListPageReader;
+import nl.paultegelaar.rabbitmq.util.verify.TopologyVerifier;
+import nl.paultegelaar.rabbitmq.util.verify.VerificationReport;
+
+public class RabbitMQAdminClient implements Closeable {
 
-public class RabbitMQAdminClient {
-
-	private static final String DURABLE_PROPERTY = "durable";
-	private static final String ARGUMENTS_PROPERTY = "arguments";
-	private static final String CONTENT_TYPE_HEADER = "Content-Type";
-	private static final String AUTHORIZATION_HEADER = "Authorization";
 	private static final Logger LOGGER = LoggerFactory.getLogger(RabbitMQAdminClient.class);
+	private static final ObjectWriter REQUEST_LOG_BODY_WRITER = new ObjectMapper().writer();
 
 	private final ApplicationConfig applicationConfig;
-	private final CloseableHttpClient httpClient;
+	// Created on the first request, nothing is connected when only validating or when there is nothing to send
+	private volatile HttpTransport httpTransport;
+	private final ManagementRequestFactory managementRequestFactory;
+	private final ProvisioningMetrics provisioningMetrics = new ProvisioningMetrics();
+	private final Provisioner provisioner;
 
 	public RabbitMQAdminClient(ApplicationConfig applicationConfig) throws RabbitMQProvisioningException {
 		
-		Set<ConstraintViolation<ApplicationConfig>> violations = Validation.buildDefaultValidatorFactory()
-				.getValidator().validate(applicationConfig);
+		Set<ConstraintViolation<ApplicationConfig>> violations = SharedValidator.get().validate(applicationConfig);
 		if (CollectionUtils.isNotEmpty(violations)) {
 			throw new RabbitMQProvisioningException(violations.toString());
 		}
@@ -66,20 +90,48 @@ public class RabbitMQAdminClient {
 
 		LOGGER.info("Building RabbitMQAdminClient");
 
-		// Create config with basic timeout for request
-		ConnectionConfig connConfig = ConnectionConfig.custom().build();
-		RequestConfig requestConfig = RequestConfig.custom()
-				.setConnectionRequestTimeout(applicationConfig.getHttpRequestTimeout())
-				.setConnectTimeout(applicationConfig.getHttpConnectionTimeout()).build();
+		// Headers and paths are the same for every request, prepare them once
+		managementRequestFactory = new ManagementRequestFactory(applicationConfig);
 
-		// Create connectionmanage, pool is overkill in this case, single one is fine
-		BasicHttpClientConnectionManager httpClientConnectionManager = new BasicHttpClientConnectionManager();
-		httpClientConnectionManager.setConnectionConfig(connConfig);
+		// Vhost checks always use the management API
+		Provisioner managementAPIProvisioner = this::performManagementAPICall;
+		provisioner = applicationConfig.getProvisionerType() == ProvisionerType.AMQP
+				? new AmqpProvisioner(applicationConfig, managementAPIProvisioner, provisioningMetrics) : managementAPIProvisioner;
 
-		// Build simple client
-		httpClient = HttpClientBuilder.create().setDefaultRequestConfig(requestConfig)
-				.setConnectionManager(httpClientConnectionManager).build();
+	}
 
+	/**
+	 * Close the provisioner, the transport and all their connections
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			provisioner.close();
+		} finally {
+			HttpTransport createdHttpTransport = httpTransport;
+			if (createdHttpTransport != null) {
+				createdHttpTransport.close();
+			}
+		}
+	}
+
+	/**
+	 * Get the transport, creating it on first use
+	 * 
+	 * @return HttpTransport, a single connection unless configured otherwise
+	 * @throws RabbitMQProvisioningException when the transport can't be created
+	 */
+	private HttpTransport getHttpTransport() throws RabbitMQProvisioningException {
+		HttpTransport createdHttpTransport = httpTransport;
+		if (createdHttpTransport == null) {
+			synchronized (this) {
+				if (httpTransport == null) {
+					httpTransport = HttpTransportFactory.create(applicationConfig, provisioningMetrics);
+				}
+				createdHttpTransport = httpTransport;
+			}
+		}
+		return createdHttpTransport;
 	}
 
 	/**
@@ -90,420 +142,748 @@ public class RabbitMQAdminClient {
 	 * @throws RabbitMQProvisioningException
 	 */
 	public void processRabbitMQConfig(RabbitMQObjects rabbitMQObjectsToCreate) throws RabbitMQProvisioningException {
-		LOGGER.info("Processing new RabbitMQ configration: {}", rabbitMQObjectsToCreate.getConfigName());
-		Set<ConstraintViolation<RabbitMQObjects>> violations = Validation.buildDefaultValidatorFactory().getValidator()
-				.validate(rabbitMQObjectsToCreate);
-		if (CollectionUtils.isNotEmpty(violations)) {
-			LOGGER.error("Configuration is not valid: {}", violations);
-			throw new RabbitMQProvisioningException(violations.toString());
-		}
+		await(processRabbitMQConfigAsync(rabbitMQObjectsToCreate, null));
+	}
 
-		if (CollectionUtils.isEmpty(rabbitMQObjectsToCreate.getVirtualHosts())) {
-			LOGGER.error("Configuration doesn't contain any virtual hosts");
+	/**
+	 * Validates and plans the configuration on the calling thread and provisions it on the worker pool, the calling
+	 * thread doesn't wait for the run. The returned future completes once every object is done and the state, journal
+	 * and metrics of the run have been written. Worker threads block on their requests, whatever the transport.
+	 * 
+	 * Cancelling the future, or passing the configured run deadline, stops the run: objects not started yet are
+	 * skipped, requests in flight finish in the background. A client runs one provisioning run at a time, use a client
+	 * per concurrent run.
+	 * 
+	 * @param rabbitMQObjectsToCreate
+	 * @param progressListener notified after every object, may be null
+	 * @return future failing with a RabbitMQProvisioningException listing every failed object
+	 */
+	public CompletableFuture<Void> processRabbitMQConfigAsync(RabbitMQObjects rabbitMQObjectsToCreate, ProgressListener progressListener) {
+		return provisionAsync(() -> {
+			ProvisioningPlan provisioningPlan = new ProvisioningPlanner(applicationConfig).plan(rabbitMQObjectsToCreate);
+			return CollectionUtils.isEmpty(rabbitMQObjectsToCreate.getVirtualHosts()) ? null : provisioningPlan;
+		}, progressListener);
+	}
+
+	/**
+	 * Reads the configuration with a streaming parser, only a single binding is kept in memory. In per object mode
+	 * objects are created while the rest of the configuration is still being read. Definitions mode, reconcile mode,
+	 * policy queue settings and the progress journal need all objects first, they start after the configuration has been
+	 * read.
+	 * 
+	 * Validation and conflicts are checked per binding, objects planned before the first invalid or conflicting
+	 * binding may already have been created when the error is reported.
+	 * 
+	 * @param configuration JSON configuration, not closed by this method
+	 * @throws RabbitMQProvisioningException
+	 */
+	public void processRabbitMQConfigStream(InputStream configuration) throws RabbitMQProvisioningException {
+		if (applicationConfig.getProvisioningMode() == ProvisioningMode.DEFINITIONS || applicationConfig.isReconcile()
+				|| applicationConfig.isPolicyQueueSettings() || StringUtils.isNotBlank(applicationConfig.getJournalFile())) {
+			await(provisionAsync(() -> new ProvisioningPlanner(applicationConfig).plan(configuration), null));
 			return;
 		}
 
-		// Iterate through virtual hosts, If there are none, you are done
-		List<VirtualHost> virtualHosts = rabbitMQObjectsToCreate.getVirtualHosts();
-		LOGGER.info("Iterating through virtual hosts");
-		for (VirtualHost virtualHost : virtualHosts) {
-			// Check the name, it is needed to create all the underlying objects, also check
-			// if there are any bindings
-			if (StringUtils.isBlank(virtualHost.getName())|| CollectionUtils.isEmpty(virtualHost.getBindings())) {
-					LOGGER.info("Configuration virtualhost name cannot be blank and virutalhost must contain bindings, skipping entry.");
-					continue;
-				}
+		provisioningMetrics.startRun();
+		try {
+			LOGGER.info("Streaming new RabbitMQ configuration");
+			StreamingConfigReader streamingConfigReader = new StreamingConfigReader(SharedValidator.get());
+			ProvisioningPlanBuilder provisioningPlanBuilder = new ProvisioningPlanBuilder(applicationConfig);
+			PreflightAnalyzer preflightAnalyzer = new PreflightAnalyzer(applicationConfig);
+
+			ProvisioningStateStore provisioningStateStore = loadProvisioningState();
+			boolean skipUnchanged = provisioningStateStore != null && !applicationConfig.isForceFullApply();
 
-				String virtualHostName = virtualHost.getName();
+			try (ProvisioningEngine<ObjectKey> provisioningEngine = new ProvisioningEngine<>(applicationConfig.getWorkerThreads(),
+					applicationConfig.isPreferVirtualThreads(), applicationConfig.getMaxRequestsInFlight(), applicationConfig.getMaxPendingObjects())) {
 
-				LOGGER.info("Processing virtualhost with name: {}", virtualHostName);
-				List<Binding> bindings = virtualHost.getBindings();
-				for (Binding binding : bindings) {
-					
-					LOGGER.info("Processing bindings");
-					if (StringUtils.isAnyBlank(binding.getExchange().getName(), binding.getQueue().getName())) {
-							LOGGER.info("Exchangename and queuename must never be blank, skipping entry");
+				Consumer<List<PlannedObject>> submitAddedObjects = addedObjects -> {
+					// Nothing new is sent once the configuration is known to conflict
+					if (!preflightAnalyzer.getConflicts().isEmpty() || !provisioningPlanBuilder.getConflicts().isEmpty()) {
+						return;
+					}
+					for (PlannedObject plannedObject : addedObjects) {
+						if (skipUnchanged && provisioningStateStore.isUnchanged(plannedObject)) {
 							continue;
+						}
+						// Skipped dependencies are left out, just like a filtered plan
+						List<ObjectKey> dependencies = plannedObject.getDependencies().stream()
+								.filter(provisioningEngine::isSubmitted).collect(Collectors.toList());
+						provisioningEngine.submit(plannedObject.getKey(), plannedObject.toString(), dependencies, () -> {
+							provisioner.provision(plannedObject);
+							provisioningMetrics.recordObjects(1);
+							if (provisioningStateStore != null) {
+								provisioningStateStore.recordSuccess(plannedObject);
+							}
+						});
 					}
-						
-					Exchange exchange = binding.getExchange();
-					Queue queue = binding.getQueue();
-					String routingkey = binding.getRoutingKey();
-					
-					
-					
+				};
+
+				RabbitMQProvisioningException configurationException = null;
+				try {
+					int bindingCount = streamingConfigReader.read(configuration, (virtualHostName, binding, bindingPath) -> {
+						preflightAnalyzer.addBinding(virtualHostName, binding, bindingPath);
+						submitAddedObjects.accept(provisioningPlanBuilder.addBinding(virtualHostName, ProvisioningPlanBuilder.virtualHostPath(bindingPath),
+								binding, bindingPath));
+					}, (virtualHostName, policy, operatorPolicy, policyPath) -> submitAddedObjects.accept(provisioningPlanBuilder.addPolicy(virtualHostName,
+							ProvisioningPlanBuilder.virtualHostPath(policyPath), policy, operatorPolicy, policyPath)));
+					LOGGER.info("Read {} binding(s)", bindingCount);
+				} catch (RabbitMQProvisioningException e) {
+					configurationException = e;
+				}
 
-					LOGGER.info("Processing binding for queue with name: {} and exchange with name {}", queue.getName(), exchange.getName());
-					performManagementAPICalls(virtualHostName, exchange, queue, routingkey);
+				// Wait for everything already sent, configuration errors take precedence over provisioning failures
+				try {
+					provisioningEngine.awaitCompletion();
+				} catch (RabbitMQProvisioningException e) {
+					if (configurationException == null) {
+						throw e;
+					}
+				}
+				if (configurationException != null) {
+					throw configurationException;
+				}
 
+				// Reports conflicts, objects which are no longer configured are only forgotten once everything succeeded
+				preflightAnalyzer.verify();
+				ProvisioningPlan provisioningPlan = provisioningPlanBuilder.build();
+				if (provisioningStateStore != null) {
+					provisioningStateStore.retainAll(provisioningPlan.getKeys());
+				}
+			} finally {
+				saveProvisioningState(provisioningStateStore);
 			}
+		} finally {
+			finishRun();
 		}
-
 	}
 
+	/**
+	 * Create all objects of a plan, every object is created exactly once
+	 * 
+	 * @param provisioningPlan
+	 * @throws RabbitMQProvisioningException listing every failed object
+	 */
+	public void processProvisioningPlan(ProvisioningPlan provisioningPlan) throws RabbitMQProvisioningException {
+		await(processProvisioningPlanAsync(provisioningPlan, null));
+	}
 
-	
 	/**
-	 * Perform calls to RabbitMQ Management API
+	 * Create all objects of a plan on the worker pool, see {@link #processRabbitMQConfigAsync(RabbitMQObjects, ProgressListener)}
 	 * 
-	 * @param virtualHostName
-	 * @param exchange
-	 * @param queue
-	 * @param routingkey
-	 * @throws RabbitMQProvisioningException
+	 * @param provisioningPlan
+	 * @param progressListener notified after every object, may be null
+	 * @return future failing with a RabbitMQProvisioningException listing every failed object
+	 */
+	public CompletableFuture<Void> processProvisioningPlanAsync(ProvisioningPlan provisioningPlan, ProgressListener progressListener) {
+		return provisionAsync(() -> provisioningPlan, progressListener);
+	}
+
+	/**
+	 * Replay a request log compiled by {@link RequestLogCompiler}, resuming after the lines completed by an earlier
+	 * replay of the same log
+	 *
+	 * @param requestLog
+	 * @return number of requests sent
+	 * @throws RabbitMQProvisioningException when the log can't be read or a request failed
 	 */
-	private void performManagementAPICalls(String virtualHostName, Exchange exchange, Queue queue, String routingkey) throws RabbitMQProvisioningException {
+	public int processRequestLog(Path requestLog) throws RabbitMQProvisioningException {
+		provisioningMetrics.startRun();
 		try {
-			
-			String queueName = queue.getName();
-			boolean queueDurability = queue.getDurable();
-			String exchangeName = exchange.getName();
-			String exchangeType = exchange.getExchangeType().value();
-			boolean exchangeDurability = exchange.getDurable();
-			
-			LOGGER.info("Check if vhost exists");
-			callRabbitMQManagementAPI(createVhostRequest(virtualHostName));
+			return new RequestLogReplayer(applicationConfig, requestLogEntry -> {
+				byte[] body = requestLogEntry.getBody() == null ? null : REQUEST_LOG_BODY_WRITER.writeValueAsBytes(requestLogEntry.getBody());
+				callRabbitMQManagementAPI(managementRequestFactory.createRequest(requestLogEntry.getMethod(), requestLogEntry.getPath(), body),
+						requestLogEntry.getOperation());
+				provisioningMetrics.recordObjects(1);
+			}).replay(requestLog);
+		} finally {
+			finishRun();
+		}
+	}
 
-			LOGGER.info("Creating queue");
-			callRabbitMQManagementAPI(createQueueRequest(virtualHostName, exchangeName, queue));
-			
-			if(BooleanUtils.isTrue(queue.getCreateDLQ())) {
-				LOGGER.info("Creating dead letter queue for queue: {}", queueName);
-				callRabbitMQManagementAPI(createDeadLetterQueueRequest(virtualHostName, queueName, queueDurability));
-			}else {
-				LOGGER.info("Not creating a dead letter queue for queue: {}", queueName);
+	/**
+	 * Delete the queues, exchanges and bindings of the planned virtual hosts which are not in the plan. Bindings are
+	 * deleted first, queues and exchanges once their own bindings are gone, bounded by the maximum number of requests
+	 * in flight. A dry run only lists the objects.
+	 *
+	 * @param provisioningPlan
+	 * @return objects deleted, or which would be deleted by a dry run
+	 * @throws RabbitMQProvisioningException listing every failed delete
+	 */
+	public List<PrunedObject> prune(ProvisioningPlan provisioningPlan) throws RabbitMQProvisioningException {
+		provisioningMetrics.startRun();
+		try {
+			List<PrunedObject> prunedObjects = planPrune(provisioningPlan);
+			if (applicationConfig.isPruneDryRun()) {
+				prunedObjects.forEach(prunedObject -> LOGGER.info("Dry run, would delete {}", prunedObject));
+				return prunedObjects;
 			}
 
-			if (StringUtils.startsWithIgnoreCase(exchangeName, applicationConfig.getReservedExchangeNamePrefix())) {
-				LOGGER.info("Reserved exchange name, skipping create for: {} and checking if it exists", exchangeName);
-				callRabbitMQManagementAPI(createGetExchangeRequest(virtualHostName, exchangeName));
-			} else {
-				LOGGER.info("Creating exchange");
-				callRabbitMQManagementAPI(createUpsertExchangeRequest(virtualHostName, exchangeName, exchangeType, exchangeDurability));
+			try (ProvisioningEngine<ObjectKey> provisioningEngine = new ProvisioningEngine<>(applicationConfig.getWorkerThreads(),
+					applicationConfig.isPreferVirtualThreads(), applicationConfig.getMaxRequestsInFlight())) {
+				// Ordered by the planner, bindings are always submitted first
+				for (PrunedObject prunedObject : prunedObjects) {
+					provisioningEngine.submit(prunedObject.getKey(), prunedObject.toString(), prunedObject.getDependencies(), () -> {
+						performDeleteAPICall(prunedObject);
+						provisioningMetrics.recordObjects(1);
+					});
+				}
+				provisioningEngine.awaitCompletion();
 			}
+			return prunedObjects;
+		} finally {
+			finishRun();
+		}
+	}
 
-			LOGGER.info("Creating binding");
-			// Use the same name for routing key and queue
-			callRabbitMQManagementAPI(createBindingRequest(virtualHostName, exchangeName, queueName, StringUtils.defaultIfBlank(routingkey, queueName)));
+	/**
+	 * Check every object of a plan against the broker. The queues and exchanges of each vhost are listed page by page
+	 * and the bindings and policies with one request each, all with only the compared columns, so a vhost is verified
+	 * in a few requests instead of one per object. The requests are recorded in the metrics of the current run.
+	 *
+	 * @param provisioningPlan
+	 * @return VerificationReport listing every missing or different object
+	 * @throws RabbitMQProvisioningException when a vhost doesn't exist or can't be listed
+	 */
+	public VerificationReport verify(ProvisioningPlan provisioningPlan) throws RabbitMQProvisioningException {
+		Map<String, LiveTopology> liveTopologies = new HashMap<>();
+		try {
+			for (String virtualHostName : provisioningPlan.getVirtualHostNames()) {
+				LOGGER.info("Listing objects of virtualhost with name: {}", virtualHostName);
+				liveTopologies.put(virtualHostName, listLiveTopology(virtualHostName));
+			}
 		} catch (URISyntaxException | IOException e) {
 			throw new RabbitMQProvisioningException(e);
 		}
+
+		VerificationReport verificationReport = TopologyVerifier.verify(provisioningPlan, liveTopologies);
+		if (verificationReport.isConsistent()) {
+			LOGGER.info(verificationReport.summary());
+		} else {
+			LOGGER.error(verificationReport.summary());
+		}
+		return verificationReport;
 	}
 
 	/**
-	 * Call RabbitMQ Management API, check if return code is in the 200 range and
-	 * check if the response is at least a valid JSON
-	 * 
-	 * @param request
-	 * @throws IOException
-	 * @throws RabbitMQProvisioningException
+	 * @return latencies and counters of the last provisioning run
 	 */
-	private void callRabbitMQManagementAPI(HttpUriRequest request) throws IOException, RabbitMQProvisioningException {
-		LOGGER.info("Sending request to: {}", request.getURI());
-
-		CloseableHttpResponse response = httpClient.execute(request);
+	public ProvisioningMetrics getProvisioningMetrics() {
+		return provisioningMetrics;
+	}
 
-		// Get response code
-		int statusCode = response.getStatusLine().getStatusCode();
+	/**
+	 * Start a run: plan, skip unchanged and journalled objects, reconcile when configured and submit the plan. The run
+	 * is finished, state and journal written, once the engine completes.
+	 * 
+	 * @param planner          plans the run on the calling thread, returns null when there is nothing to provision
+	 * @param progressListener may be null
+	 * @return future completing after the run has been finished
+	 */
+	private CompletableFuture<Void> provisionAsync(Callable<ProvisioningPlan> planner, ProgressListener progressListener) {
+		provisioningMetrics.startRun();
+		long startNanos = System.nanoTime();
+		ProvisioningStateStore provisioningStateStore = null;
+		ProgressJournal progressJournal = null;
+		ProvisioningEngine<ObjectKey> provisioningEngine = null;
+		try {
+			ProvisioningPlan provisioningPlan = planner.call();
+			if (provisioningPlan == null) {
+				finishRun();
+				return CompletableFuture.completedFuture(null);
+			}
 
-		String stringResponse = null;
+			provisioningStateStore = loadProvisioningState();
+			if (provisioningStateStore != null) {
+				// Objects which are no longer configured are forgotten
+				provisioningStateStore.retainAll(provisioningPlan.getKeys());
+			}
+			ProvisioningPlan plannedChanges = provisioningPlan;
+			
+			if (provisioningStateStore != null && !applicationConfig.isForceFullApply()) {
+				// Skip everything sent before with the same payload
+				ProvisioningStateStore unchangedObjects = provisioningStateStore;
+				plannedChanges = plannedChanges.filter(plannedObject -> !unchangedObjects.isUnchanged(plannedObject));
+				LOGGER.info("{} of {} object(s) changed since the last successful apply", plannedChanges.size(), provisioningPlan.size());
+			}
+			
+			progressJournal = openProgressJournal(provisioningPlan);
+			if (progressJournal != null && applicationConfig.isResume()) {
+				// Skip everything completed by the interrupted run
+				ProgressJournal completedObjects = progressJournal;
+				int changedCount = plannedChanges.size();
+				plannedChanges = plannedChanges.filter(plannedObject -> !completedObjects.isCompleted(plannedObject));
+				LOGGER.info("{} of {} object(s) left after resuming", plannedChanges.size(), changedCount);
+			}
 
-		// Stupid simple check if response is JSON
-		if (response.getEntity() != null) {
-			stringResponse = EntityUtils.toString(response.getEntity());
-			if (StringUtils.isNotBlank(stringResponse)) {
-				LOGGER.info("Parsing response: {}", stringResponse);
-				new JSONObject(stringResponse);
+			if (applicationConfig.isReconcile() && !plannedChanges.isEmpty()) {
+				// Only send what differs from the broker
+				ProvisioningPlan reconciledChanges = TopologyReconciler.reconcile(plannedChanges, downloadLiveTopologies(plannedChanges.getVirtualHostNames()));
+				if (provisioningStateStore != null) {
+					plannedChanges.getObjects().stream().filter(plannedObject -> reconciledChanges.getObject(plannedObject.getKey()) == null)
+							.forEach(provisioningStateStore::recordSuccess);
+				}
+				plannedChanges = reconciledChanges;
 			}
+			
+			provisioningEngine = new ProvisioningEngine<>(applicationConfig.getWorkerThreads(), applicationConfig.isPreferVirtualThreads(),
+					applicationConfig.getMaxRequestsInFlight());
+			provisioningEngine.setProgressListener(progressListener);
+			if (applicationConfig.getRunDeadlineMillis() > 0) {
+				provisioningEngine.setDeadline(startNanos + applicationConfig.getRunDeadlineMillis() * 1_000_000L);
+			}
+			submitProvisioningPlan(provisioningEngine, plannedChanges, provisioningStateStore, progressJournal);
+		} catch (Exception e) {
+			if (provisioningEngine != null) {
+				provisioningEngine.close();
+			}
+			saveProvisioningState(provisioningStateStore);
+			closeProgressJournal(progressJournal);
+			finishRun();
+			return CompletableFuture.failedFuture(e instanceof RabbitMQProvisioningException ? e : new RabbitMQProvisioningException(e));
 		}
-		// stupid simple validation of response code
-		if (statusCode > 199 && statusCode < 300) {
-			LOGGER.info("Succesfully created RabbitMQ object, received HTTP code: {}", statusCode);
-		} else {
-			LOGGER.error("Received invalid http response code: {}, body {}", statusCode, stringResponse);
-			throw new RabbitMQProvisioningException(String.format("Received invalid http response code: %s, body %s", statusCode, stringResponse));
+
+		ProvisioningEngine<ObjectKey> runningEngine = provisioningEngine;
+		ProvisioningStateStore runningStateStore = provisioningStateStore;
+		ProgressJournal runningJournal = progressJournal;
+		CompletableFuture<Void> run = new CompletableFuture<>();
+		runningEngine.completion().whenComplete((result, throwable) -> {
+			Throwable failure = throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+			try {
+				if (failure == null && runningJournal != null) {
+					runningJournal.complete();
+				}
+			} catch (IOException e) {
+				failure = new RabbitMQProvisioningException(e);
+			} finally {
+				saveProvisioningState(runningStateStore);
+				closeProgressJournal(runningJournal);
+				runningEngine.close();
+				finishRun();
+			}
+			if (failure == null) {
+				run.complete(null);
+			} else {
+				run.completeExceptionally(failure);
+			}
+		});
+		run.whenComplete((result, throwable) -> {
+			if (run.isCancelled()) {
+				runningEngine.stop("cancelled");
+			}
+		});
+		if (applicationConfig.getRunDeadlineMillis() > 0) {
+			// Don't wait for a request in flight past the deadline, it finishes in the background
+			long remainingNanos = startNanos + applicationConfig.getRunDeadlineMillis() * 1_000_000L - System.nanoTime();
+			CompletableFuture.delayedExecutor(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS).execute(() -> {
+				if (!run.isDone()) {
+					runningEngine.stop("deadline exceeded");
+					ProvisioningProgress progress = runningEngine.getProgress();
+					LOGGER.error("Provisioning deadline exceeded, {} object(s) completed, {} object(s) not completed", progress.getCompleted(),
+							progress.getPending() + progress.getSkipped());
+					run.completeExceptionally(new RabbitMQProvisioningException(String.format(
+							"Provisioning stopped (deadline exceeded), %s object(s) skipped or still in flight%s", progress.getPending() + progress.getSkipped(),
+							progress.getFailed() == 0 ? "" : String.format(", failed for %s object(s)", progress.getFailed()))));
+				}
+			});
 		}
+		return run;
 	}
 
 	/**
-	 * Create a generic PUT request based on payload, headers and URL
+	 * Wait for a run, for the blocking API
 	 * 
-	 * @param payload
-	 * @param headers
-	 * @param url
-	 * @return HttpPut based on inputs
-	 * @throws UnsupportedEncodingException
+	 * @param run
+	 * @throws RabbitMQProvisioningException
 	 */
-	private HttpPut createPutRequest(String payload, Map<String, String> headers, URI url)
-			throws UnsupportedEncodingException {
-		HttpPut request = new HttpPut(url);
-
-		// Copy headers to request
-		if (MapUtils.isNotEmpty(headers)) {
-			for (Map.Entry<String, String> entry : headers.entrySet()) {
-				request.addHeader(entry.getKey(), entry.getValue());
+	private static void await(CompletableFuture<Void> run) throws RabbitMQProvisioningException {
+		try {
+			run.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RabbitMQProvisioningException) {
+				throw (RabbitMQProvisioningException) e.getCause();
 			}
+			throw e;
 		}
-
-		// Set content as string, handle content type later
-		request.setEntity(new StringEntity(payload));
-
-		return request;
 	}
 
 	/**
-	 * Create a generic POST request based on payload, headers and URL
+	 * Submit the plan to the provisioning engine
 	 * 
-	 * 
-	 * @param payload
-	 * @param headers
-	 * @param url
-	 * @return HttpPost based on inputs
-	 * @throws UnsupportedEncodingException
+	 * @param provisioningEngine
+	 * @param provisioningPlan
+	 * @param provisioningStateStore records successfully provisioned objects, may be null
+	 * @param progressJournal        journals successfully provisioned objects, may be null
 	 */
-	private HttpPost createPostRequest(String payload, Map<String, String> headers, URI url)
-			throws UnsupportedEncodingException {
-		HttpPost request = new HttpPost(url);
-
-		// Copy haeders to request
-		if (MapUtils.isNotEmpty(headers)) {
-			for (Map.Entry<String, String> entry : headers.entrySet()) {
-				request.addHeader(entry.getKey(), entry.getValue());
+	private void submitProvisioningPlan(ProvisioningEngine<ObjectKey> provisioningEngine, ProvisioningPlan provisioningPlan,
+			ProvisioningStateStore provisioningStateStore, ProgressJournal progressJournal) {
+		if (applicationConfig.getProvisioningMode() == ProvisioningMode.DEFINITIONS) {
+			for (String virtualHostName : provisioningPlan.getVirtualHostNames()) {
+				LOGGER.info("Uploading definitions for virtualhost with name: {}", virtualHostName);
+				List<PlannedObject> plannedObjects = provisioningPlan.getObjects(virtualHostName);
+				provisioningEngine.submit(plannedObjects.get(0).getKey(), String.format("definitions of vhost '%s'", virtualHostName),
+						Collections.emptyList(), () -> {
+							performDefinitionsAPICalls(virtualHostName, plannedObjects);
+							provisioningMetrics.recordObjects(plannedObjects.size());
+							if (provisioningStateStore != null) {
+								plannedObjects.forEach(provisioningStateStore::recordSuccess);
+							}
+							if (progressJournal != null) {
+								for (PlannedObject plannedObject : plannedObjects) {
+									progressJournal.recordCompleted(plannedObject);
+								}
+							}
+						});
+			}
+		} else {
+			// The plan is ordered, dependencies are always submitted first
+			for (PlannedObject plannedObject : provisioningPlan.getObjects()) {
+				provisioningEngine.submit(plannedObject.getKey(), plannedObject.toString(), plannedObject.getDependencies(), () -> {
+					provisioner.provision(plannedObject);
+					provisioningMetrics.recordObjects(1);
+					if (provisioningStateStore != null) {
+						provisioningStateStore.recordSuccess(plannedObject);
+					}
+					if (progressJournal != null) {
+						progressJournal.recordCompleted(plannedObject);
+					}
+				});
 			}
 		}
-
-		// Set content as string, handle content type later
-		request.setEntity(new StringEntity(payload));
-
-		return request;
 	}
 
 	/**
-	 * Create a generic GET request based on headers and URL
+	 * Load the state of the previous runs when a state file is configured
 	 * 
-	 * 
-	 * @param payload
-	 * @param headers
-	 * @param url
-	 * @return HttpGet based on inputs
-	 * @throws UnsupportedEncodingException
+	 * @return ProvisioningStateStore or null when no state file is configured
+	 * @throws RabbitMQProvisioningException when the state file can't be read
 	 */
-	private HttpGet createGetRequest(Map<String, String> headers, URI url) {
-		HttpGet request = new HttpGet(url);
-
-		// Copy haeders to request
-		if (MapUtils.isNotEmpty(headers)) {
-			for (Map.Entry<String, String> entry : headers.entrySet()) {
-				request.addHeader(entry.getKey(), entry.getValue());
-			}
+	private ProvisioningStateStore loadProvisioningState() throws RabbitMQProvisioningException {
+		if (StringUtils.isBlank(applicationConfig.getStateFile())) {
+			return null;
+		}
+		try {
+			return ProvisioningStateStore.load(Paths.get(applicationConfig.getStateFile()), applicationConfig.getApiBaseURL());
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
 		}
-
-		return request;
 	}
 
 	/**
-	 * Create basic auth credentials based on configs
+	 * Save the state, a failed save only means objects are sent again next time
 	 * 
-	 * @return String containing base64 encoded credentials including Basic prefix.
+	 * @param provisioningStateStore may be null
 	 */
-	private String buildBasicAuthCredentials() {
-
-		// Encode username and password
-		String credentials = Base64.getEncoder().encodeToString(
-				(applicationConfig.getApiUsername() + ":" + new String(applicationConfig.getApiPassword()))
-						.getBytes(StandardCharsets.UTF_8));
-		return "Basic ".concat(credentials);
-
+	private void saveProvisioningState(ProvisioningStateStore provisioningStateStore) {
+		if (provisioningStateStore == null) {
+			return;
+		}
+		try {
+			provisioningStateStore.save();
+		} catch (IOException e) {
+			LOGGER.error("Unable to save state file: {}", e.getMessage());
+		}
 	}
 
 	/**
-	 * Create or update a new exchange within the specified virtual host
+	 * Open the progress journal when a journal file is configured
 	 * 
-	 * @param virtualhostName
-	 * @param exchangeName
-	 * @param exchangeType
-	 * @param durable
-	 * @return HttpPut request containing json body containing type and durability
-	 * @throws UnsupportedEncodingException
-	 * @throws URISyntaxException
+	 * @param provisioningPlan complete plan, its fingerprint decides whether the journal can be resumed
+	 * @return ProgressJournal or null when no journal file is configured
+	 * @throws RabbitMQProvisioningException when the journal can't be read or created
 	 */
-	private HttpUriRequest createUpsertExchangeRequest(String virtualhostName, String exchangeName, String exchangeType, boolean durable)
-			throws UnsupportedEncodingException, URISyntaxException {
-
-		// Build json message
-		JSONObject json = new JSONObject();
-		json.put("type", exchangeType);
-		json.put(DURABLE_PROPERTY, durable);
-
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
-		headers.put(CONTENT_TYPE_HEADER, ContentType.APPLICATION_JSON.getMimeType());
+	private ProgressJournal openProgressJournal(ProvisioningPlan provisioningPlan) throws RabbitMQProvisioningException {
+		if (StringUtils.isBlank(applicationConfig.getJournalFile())) {
+			return null;
+		}
+		try {
+			return ProgressJournal.open(Paths.get(applicationConfig.getJournalFile()),
+					ProgressJournal.fingerprint(provisioningPlan, applicationConfig.getApiBaseURL()), applicationConfig.isResume(),
+					applicationConfig.getJournalSyncBatchSize(), applicationConfig.getJournalSyncIntervalMillis());
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+	}
 
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getExchangePath(),
-				URLEncoder.encode(virtualhostName, StandardCharsets.UTF_8), exchangeName);
+	/**
+	 * Close the journal, a failed sync only means objects are sent again when resuming
+	 * 
+	 * @param progressJournal may be null
+	 */
+	private void closeProgressJournal(ProgressJournal progressJournal) {
+		if (progressJournal == null) {
+			return;
+		}
+		try {
+			progressJournal.close();
+		} catch (IOException e) {
+			LOGGER.error("Unable to write journal: {}", e.getMessage());
+		}
+	}
 
-		// Return with combined URL
-		return createPutRequest(json.toString(), headers, fullUrl);
+	/**
+	 * Finish the run, log the summary and export the metrics when configured. A failed export is only logged.
+	 */
+	private void finishRun() {
+		provisioningMetrics.finishRun();
+		LOGGER.info("Provisioning metrics:{}{}", System.lineSeparator(), provisioningMetrics.summary());
+		try {
+			if (StringUtils.isNotBlank(applicationConfig.getMetricsJsonFile())) {
+				MetricsExporter.writeJson(provisioningMetrics, Paths.get(applicationConfig.getMetricsJsonFile()));
+			}
+			if (StringUtils.isNotBlank(applicationConfig.getMetricsPrometheusFile())) {
+				MetricsExporter.writePrometheus(provisioningMetrics, Paths.get(applicationConfig.getMetricsPrometheusFile()));
+			}
+		} catch (IOException e) {
+			LOGGER.error("Unable to export metrics: {}", e.getMessage());
+		}
 	}
 
 	/**
-	 * Create a PUT request to create or update queue.
+	 * Download the definitions of every virtual host with a single request per vhost and index them
 	 * 
-	 * @param virtualhost
-	 * @param queue
-	 * @param exchangeName
-	 * @return HttpPut containing the body, URL and headers needed to create a queue
-	 * @throws UnsupportedEncodingException
-	 * @throws URISyntaxException
+	 * @param virtualHostNames
+	 * @return LiveTopology per virtual host name
+	 * @throws RabbitMQProvisioningException when a vhost doesn't exist or can't be read
 	 */
-	private HttpUriRequest createQueueRequest(String virtualhost, String exchangeName, Queue queue) throws UnsupportedEncodingException, URISyntaxException {
+	private Map<String, LiveTopology> downloadLiveTopologies(List<String> virtualHostNames) throws RabbitMQProvisioningException {
+		Map<String, LiveTopology> liveTopologies = new HashMap<>();
+		try {
+			for (String virtualHostName : virtualHostNames) {
+				LOGGER.info("Downloading definitions for virtualhost with name: {}", virtualHostName);
+				LiveTopology liveTopology = LiveTopology.fromDefinitions(callRabbitMQManagementAPI(managementRequestFactory.createGetDefinitionsRequest(virtualHostName), Operation.DEFINITIONS_DOWNLOAD, true));
+				LOGGER.info("Virtualhost with name: {} contains {} object(s)", virtualHostName, liveTopology.size());
+				liveTopologies.put(virtualHostName, liveTopology);
+			}
+		} catch (URISyntaxException | IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+		return liveTopologies;
+	}
 
-		// Build main json message
-		JSONObject json = new JSONObject();
-		json.put(DURABLE_PROPERTY, queue.getDurable());
-		// Build arguments json object
-		JSONObject arguments = new JSONObject();
-		
-		if(BooleanUtils.isTrue(queue.getCreateDLQ())) {
-			arguments.put("x-dead-letter-exchange", exchangeName);
-			arguments.put("x-dead-letter-routing-key", queue.getName().concat(applicationConfig.getDeadLetterPostfix()));
+	/**
+	 * List the queues, exchanges, bindings and policies of a virtual host into an index
+	 *
+	 * @param virtualHostName
+	 * @return LiveTopology of the vhost
+	 * @throws URISyntaxException
+	 * @throws IOException
+	 * @throws RabbitMQProvisioningException when the vhost doesn't exist or can't be listed
+	 */
+	private LiveTopology listLiveTopology(String virtualHostName) throws URISyntaxException, IOException, RabbitMQProvisioningException {
+		LiveTopology liveTopology = new LiveTopology();
+		int pageSize = applicationConfig.getVerifyPageSize();
+		int pageCount = 1;
+		for (int page = 1; page <= pageCount; page++) {
+			pageCount = ListPageReader.readQueues(callRabbitMQManagementAPI(managementRequestFactory.createListQueuesRequest(virtualHostName, page, pageSize),
+					Operation.QUEUES_LIST, true), liveTopology);
 		}
-		
-		if(queue.getType()!=null) {
-			arguments.put("x-queue-type", queue.getType().value());
+		pageCount = 1;
+		for (int page = 1; page <= pageCount; page++) {
+			pageCount = ListPageReader.readExchanges(callRabbitMQManagementAPI(managementRequestFactory.createListExchangesRequest(virtualHostName, page, pageSize),
+					Operation.EXCHANGES_LIST, true), liveTopology);
 		}
+		ListPageReader.readBindings(callRabbitMQManagementAPI(managementRequestFactory.createListBindingsRequest(virtualHostName), Operation.BINDINGS_LIST, true),
+				liveTopology);
+		ListPageReader.readPolicies(callRabbitMQManagementAPI(managementRequestFactory.createListPoliciesRequest(virtualHostName), Operation.POLICIES_LIST, true),
+				liveTopology);
+		LOGGER.info("Virtualhost with name: {} contains {} object(s)", virtualHostName, liveTopology.size());
+		return liveTopology;
+	}
 
-		// Add arguments to main json
-		json.put(ARGUMENTS_PROPERTY, arguments);
-
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
-		headers.put(CONTENT_TYPE_HEADER, ContentType.APPLICATION_JSON.getMimeType());
-
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getQueuePath(),
-				URLEncoder.encode(virtualhost, StandardCharsets.UTF_8),
-				URLEncoder.encode(queue.getName(), StandardCharsets.UTF_8));
+	/**
+	 * Download the queues, exchanges and bindings of every planned virtual host and compare them with the plan
+	 *
+	 * @param provisioningPlan
+	 * @return objects to delete, in delete order
+	 * @throws RabbitMQProvisioningException when a vhost doesn't exist or can't be read
+	 */
+	private List<PrunedObject> planPrune(ProvisioningPlan provisioningPlan) throws RabbitMQProvisioningException {
+		PrunePlanner prunePlanner = new PrunePlanner(applicationConfig.getReservedExchangeNamePrefix());
+		Map<String, LiveTopology> liveTopologies = downloadLiveTopologies(provisioningPlan.getVirtualHostNames());
+		List<PrunedObject> prunedObjects = new ArrayList<>();
+		try {
+			for (String virtualHostName : provisioningPlan.getVirtualHostNames()) {
+				// Definitions leave out the properties keys needed to delete a binding
+				String liveBindings = callRabbitMQManagementAPI(managementRequestFactory.createGetBindingsRequest(virtualHostName), Operation.BINDINGS_DOWNLOAD, true);
+				prunedObjects.addAll(prunePlanner.plan(virtualHostName, provisioningPlan.getObjects(virtualHostName), liveTopologies.get(virtualHostName), liveBindings));
+			}
+		} catch (URISyntaxException | IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+		LOGGER.info("{} object(s) on the broker are not configured", prunedObjects.size());
+		return prunedObjects;
+	}
 
-		// Return with combined URL, headers and json body
-		return createPutRequest(json.toString(), headers, fullUrl);
+	/**
+	 * Perform the call to the RabbitMQ Management API deleting a single object
+	 *
+	 * @param prunedObject
+	 * @throws RabbitMQProvisioningException
+	 */
+	private void performDeleteAPICall(PrunedObject prunedObject) throws RabbitMQProvisioningException {
+		try {
+			LOGGER.info("Deleting {}", prunedObject);
+			String virtualHostName = prunedObject.getVirtualHostName();
+			switch (prunedObject.getObjectType()) {
+			case BINDING:
+				callRabbitMQManagementAPI(managementRequestFactory.createDeleteBindingRequest(virtualHostName, prunedObject.getExchangeName(),
+						prunedObject.getQueueName(), prunedObject.getPropertiesKey()), Operation.BINDING_DELETE);
+				break;
+			case QUEUE:
+				callRabbitMQManagementAPI(managementRequestFactory.createDeleteQueueRequest(virtualHostName, prunedObject.getName(),
+						applicationConfig.isPruneIfEmpty()), Operation.QUEUE_DELETE);
+				break;
+			case EXCHANGE:
+				callRabbitMQManagementAPI(managementRequestFactory.createDeleteExchangeRequest(virtualHostName, prunedObject.getName()), Operation.EXCHANGE_DELETE);
+				break;
+			default:
+				throw new RabbitMQProvisioningException(String.format("Unsupported object type: %s", prunedObject.getObjectType()));
+			}
+		} catch (URISyntaxException | IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
 	}
 
 	/**
-	 * Create a PUT request to create or update dead letter queue.
+	 * Compile all objects of a virtual host into one definitions document and upload it with a single call. The
+	 * vhost and reserved exchanges are checked first, just like the per object calls do.
 	 * 
-	 * @param virtualhost
-	 * @param queueName
-	 * @return HttpPut containing the body, URL and headers needed to create a dead
-	 *         letter queue
-	 * @throws UnsupportedEncodingException
-	 * @throws URISyntaxException
+	 * @param virtualHostName
+	 * @param plannedObjects
+	 * @throws RabbitMQProvisioningException
 	 */
-	private HttpUriRequest createDeadLetterQueueRequest(String virtualhost, String queueName, boolean durable) throws UnsupportedEncodingException, URISyntaxException {
-
-		// Build json message
-		JSONObject json = new JSONObject();
-		json.put(DURABLE_PROPERTY, durable);
-		// Arguments is default empty
-		json.put(ARGUMENTS_PROPERTY, new JSONObject());
-
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
-		headers.put(CONTENT_TYPE_HEADER, ContentType.APPLICATION_JSON.getMimeType());
-
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getDeadLetterQueuePath(),
-				URLEncoder.encode(virtualhost, StandardCharsets.UTF_8),
-				URLEncoder.encode(queueName.concat(applicationConfig.getDeadLetterPostfix()), StandardCharsets.UTF_8));
-
-		// Return with combined URL, headers and json body
-		return createPutRequest(json.toString(), headers, fullUrl);
+	private void performDefinitionsAPICalls(String virtualHostName, List<PlannedObject> plannedObjects) throws RabbitMQProvisioningException {
+		try {
+			DefinitionsDocumentBuilder definitionsDocumentBuilder = new DefinitionsDocumentBuilder();
+			List<PlannedObject> existenceChecks = new ArrayList<>();
+			// Operator policies are not part of vhost definitions
+			List<PlannedObject> operatorPolicies = new ArrayList<>();
+			
+			for (PlannedObject plannedObject : plannedObjects) {
+				if (plannedObject.isExistenceCheck()) {
+					existenceChecks.add(plannedObject);
+					continue;
+				}
+				
+				Map<String, Object> payload = plannedObject.getPayload();
+				switch (plannedObject.getObjectType()) {
+				case QUEUE:
+				case DEAD_LETTER_QUEUE:
+					definitionsDocumentBuilder.addQueue(plannedObject.getName(), payload);
+					break;
+				case EXCHANGE:
+					definitionsDocumentBuilder.addExchange(plannedObject.getName(), payload);
+					break;
+				case BINDING:
+					definitionsDocumentBuilder.addBinding(plannedObject.getExchangeName(), plannedObject.getQueueName(), payload);
+					break;
+				case POLICY:
+					definitionsDocumentBuilder.addPolicy(plannedObject.getName(), payload);
+					break;
+				case OPERATOR_POLICY:
+					operatorPolicies.add(plannedObject);
+					break;
+				default:
+					break;
+				}
+			}
+			
+			if (definitionsDocumentBuilder.isEmpty() && operatorPolicies.isEmpty()) {
+				LOGGER.info("No definitions to upload for virtualhost with name: {}", virtualHostName);
+				return;
+			}
+			
+			// The vhost comes first in the plan, followed by the reserved exchanges
+			for (PlannedObject existenceCheck : existenceChecks) {
+				performManagementAPICall(existenceCheck);
+			}
+			
+			if (!definitionsDocumentBuilder.isEmpty()) {
+				LOGGER.info("Uploading definitions");
+				callRabbitMQManagementAPI(managementRequestFactory.createDefinitionsRequest(virtualHostName, definitionsDocumentBuilder.build()), Operation.DEFINITIONS_UPLOAD);
+			}
+			for (PlannedObject operatorPolicy : operatorPolicies) {
+				performManagementAPICall(operatorPolicy);
+			}
+		} catch (URISyntaxException | IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
 	}
 
+	
 	/**
-	 * Create a POST request to create a binding, it is a combination of the queue, the exchanage, the vhost and a routingkey to which message can be routed directly.
+	 * Perform the call to the RabbitMQ Management API creating or checking a single planned object
 	 * 
-	 * @param virtualhostName
-	 * @param exchangeName
-	 * @param queueName
-	 * @param routingKey
-	 * @return HttpPost containing the body, URL and headers needed to create a
-	 *         binding
-	 * @throws UnsupportedEncodingException
-	 * @throws URISyntaxException
+	 * @param plannedObject
+	 * @throws RabbitMQProvisioningException
 	 */
-	private HttpUriRequest createBindingRequest(String virtualhostName, String exchangeName, String queueName, String routingKey) throws UnsupportedEncodingException, URISyntaxException {
-
-		// Build json message
-		JSONObject json = new JSONObject();
-		json.put("routing_key", routingKey);
-		// Arguments is default empty
-		json.put(ARGUMENTS_PROPERTY, new JSONObject());
-
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
-		headers.put(CONTENT_TYPE_HEADER, ContentType.APPLICATION_JSON.getMimeType());
-
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getBindingPath(),
-				URLEncoder.encode(virtualhostName, StandardCharsets.UTF_8),
-				URLEncoder.encode(exchangeName, StandardCharsets.UTF_8),
-				URLEncoder.encode(queueName, StandardCharsets.UTF_8));
-
-		return createPostRequest(json.toString(), headers, fullUrl);
+	private void performManagementAPICall(PlannedObject plannedObject) throws RabbitMQProvisioningException {
+		try {
+			LOGGER.info("Provisioning {}", plannedObject);
+			callRabbitMQManagementAPI(managementRequestFactory.createRequest(plannedObject), Operation.of(plannedObject));
+		} catch (URISyntaxException | IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
 	}
 
 	/**
-	 * Create GET request used to check if a vhost exists
+	 * Call RabbitMQ Management API and check if return code is in the 200 range, the body of a successful response is
+	 * discarded
 	 * 
-	 * @param virtualhostName
-	 * @return HttpGet based on virtualhost name
-	 * @throws URISyntaxException
+	 * @param request
+	 * @param operation used to record the latency and status
+	 * @throws IOException
+	 * @throws RabbitMQProvisioningException
 	 */
-	private HttpUriRequest createVhostRequest(String virtualhostName) throws URISyntaxException {
-
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
+	private void callRabbitMQManagementAPI(HttpUriRequest request, Operation operation) throws IOException, RabbitMQProvisioningException {
+		callRabbitMQManagementAPI(request, operation, false);
+	}
 
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getVhostPath(),
-				URLEncoder.encode(virtualhostName, StandardCharsets.UTF_8));
+	/**
+	 * Call RabbitMQ Management API and check if return code is in the 200 range
+	 * 
+	 * @param request
+	 * @param operation used to record the latency and status
+	 * @param responseBodyRequired read the body of a successful response
+	 * @return response body, null when the response didn't contain one or it wasn't required
+	 * @throws IOException
+	 * @throws RabbitMQProvisioningException
+	 */
+	private String callRabbitMQManagementAPI(HttpUriRequest request, Operation operation, boolean responseBodyRequired) throws IOException, RabbitMQProvisioningException {
+		LOGGER.info("Sending request to: {}", request.getURI());
 
-		return createGetRequest(headers, fullUrl);
-	}
-	
-	private HttpUriRequest createGetExchangeRequest(String virtualhostName, String exchangeName) throws URISyntaxException {
+		ManagementAPIResponse response;
+		long startNanos = System.nanoTime();
+		try {
+			response = getHttpTransport().execute(request, responseBodyRequired);
+		} catch (IOException e) {
+			provisioningMetrics.recordIOError(operation, System.nanoTime() - startNanos);
+			if (e instanceof RetriesExhaustedException) {
+				recordRetries(operation, ((RetriesExhaustedException) e).getAttempts());
+			}
+			throw e;
+		}
+		provisioningMetrics.recordResponse(operation, response.getStatusCode(), System.nanoTime() - startNanos);
+		recordRetries(operation, response.getAttempts());
 
-		// Add headers
-		Map<String, String> headers = new HashMap<>();
-		headers.put(AUTHORIZATION_HEADER, buildBasicAuthCredentials());
+		// Get response code
+		int statusCode = response.getStatusCode();
 
-		// Build URL
-		URI fullUrl = createURL(applicationConfig.getApiBaseURL(), applicationConfig.getExchangePath(),
-				URLEncoder.encode(virtualhostName, StandardCharsets.UTF_8), exchangeName);
+		// stupid simple validation of response code, error bodies are not necessarily JSON
+		if (!response.isSuccessful()) {
+			LOGGER.error("Received invalid http response code: {}, body {}", statusCode, response.getBody());
+			throw new RabbitMQProvisioningException(String.format("Received invalid http response code: %s, body %s", statusCode, response.getBody()));
+		}
 
-		// Return with combined URL
-		return createGetRequest(headers, fullUrl);
+		LOGGER.info("Succesfully created RabbitMQ object, received HTTP code: {}", statusCode);
+		return response.getBody();
 	}
-	
 
-	/**
-	 * Create URL based on a baseURL a path and any parameters
-	 * 
-	 * @param baseURL
-	 * @param path
-	 * @param params
-	 * @return URI with params inserted
-	 * @throws URISyntaxException
-	 */
-	private URI createURL(String baseURL, String path, Object... params) throws URISyntaxException {
-		return new URI(baseURL.concat(String.format(path, params)));
+	private void recordRetries(Operation operation, int attempts) {
+		for (int retry = 1; retry < attempts; retry++) {
+			provisioningMetrics.recordRetry(operation);
+		}
 	}
 
 }
@@ -0,0 +1,183 @@
+package nl.paultegelaar.rabbitmq.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.BooleanUtils;
+
+import nl.paultegelaar.rabbitmq.config.Queue;
+
+/**
+ * Builds the JSON bodies of the RabbitMQ objects, shared by the per object calls and the definitions document so both
+ * produce exactly the same objects. Bodies are plain maps, serialized once when the request is built.
+ *
+ */
+public final class RabbitMQPayloads {
+
+	public static final String DURABLE_PROPERTY = "durable";
+	public static final String ARGUMENTS_PROPERTY = "arguments";
+	public static final String TYPE_PROPERTY = "type";
+	public static final String ROUTING_KEY_PROPERTY = "routing_key";
+	public static final String PATTERN_PROPERTY = "pattern";
+	public static final String APPLY_TO_PROPERTY = "apply-to";
+	public static final String PRIORITY_PROPERTY = "priority";
+	public static final String DEFINITION_PROPERTY = "definition";
+
+	private RabbitMQPayloads() {
+	}
+
+	/**
+	 * Build the arguments of a queue, containing the dead letter settings, message TTL, max length and the queue type
+	 *
+	 * @param exchangeName
+	 * @param queue
+	 * @param deadLetterPostfix
+	 * @return Map containing the queue arguments
+	 */
+	public static Map<String, Object> queueArguments(String exchangeName, Queue queue, String deadLetterPostfix) {
+		return queueArguments(exchangeName, queue, deadLetterPostfix, false);
+	}
+
+	/**
+	 * Build the arguments of a queue. With policy queue settings the dead letter exchange, message TTL and max length
+	 * are left to a policy, see {@link #queuePolicyDefinition(String, Queue)}. The dead letter routing key differs per
+	 * queue and the queue type can't be set by a policy, both remain arguments.
+	 *
+	 * @param exchangeName
+	 * @param queue
+	 * @param deadLetterPostfix
+	 * @param policyQueueSettings
+	 * @return Map containing the queue arguments
+	 */
+	public static Map<String, Object> queueArguments(String exchangeName, Queue queue, String deadLetterPostfix, boolean policyQueueSettings) {
+		Map<String, Object> arguments = new LinkedHashMap<>();
+
+		if (BooleanUtils.isTrue(queue.getCreateDLQ())) {
+			if (!policyQueueSettings) {
+				arguments.put("x-dead-letter-exchange", exchangeName);
+			}
+			arguments.put("x-dead-letter-routing-key", queue.getName().concat(deadLetterPostfix));
+		}
+
+		if (!policyQueueSettings && queue.getMessageTtl() != null) {
+			arguments.put("x-message-ttl", queue.getMessageTtl());
+		}
+		if (!policyQueueSettings && queue.getMaxLength() != null) {
+			arguments.put("x-max-length", queue.getMaxLength());
+		}
+
+		if (queue.getType() != null) {
+			arguments.put("x-queue-type", queue.getType().value());
+		}
+		return arguments;
+	}
+
+	/**
+	 * Build the policy definition replacing the dead letter exchange, message TTL and max length arguments of a queue
+	 *
+	 * @param exchangeName
+	 * @param queue
+	 * @return Map containing the policy definition, empty when the queue has none of these settings
+	 */
+	public static Map<String, Object> queuePolicyDefinition(String exchangeName, Queue queue) {
+		Map<String, Object> definition = new LinkedHashMap<>();
+		if (BooleanUtils.isTrue(queue.getCreateDLQ())) {
+			definition.put("dead-letter-exchange", exchangeName);
+		}
+		if (queue.getMessageTtl() != null) {
+			definition.put("message-ttl", queue.getMessageTtl());
+		}
+		if (queue.getMaxLength() != null) {
+			definition.put("max-length", queue.getMaxLength());
+		}
+		return definition;
+	}
+
+	/**
+	 * Build queue body
+	 *
+	 * @param exchangeName
+	 * @param queue
+	 * @param deadLetterPostfix
+	 * @return Map containing durability and arguments
+	 */
+	public static Map<String, Object> queue(String exchangeName, Queue queue, String deadLetterPostfix) {
+		return queue(exchangeName, queue, deadLetterPostfix, false);
+	}
+
+	/**
+	 * Build queue body
+	 *
+	 * @param exchangeName
+	 * @param queue
+	 * @param deadLetterPostfix
+	 * @param policyQueueSettings leave the settings a policy can apply out of the arguments
+	 * @return Map containing durability and arguments
+	 */
+	public static Map<String, Object> queue(String exchangeName, Queue queue, String deadLetterPostfix, boolean policyQueueSettings) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put(DURABLE_PROPERTY, queue.getDurable());
+		json.put(ARGUMENTS_PROPERTY, queueArguments(exchangeName, queue, deadLetterPostfix, policyQueueSettings));
+		return json;
+	}
+
+	/**
+	 * Build dead letter queue body, arguments are default empty
+	 *
+	 * @param durable
+	 * @return Map containing durability and empty arguments
+	 */
+	public static Map<String, Object> deadLetterQueue(boolean durable) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put(DURABLE_PROPERTY, durable);
+		json.put(ARGUMENTS_PROPERTY, Collections.emptyMap());
+		return json;
+	}
+
+	/**
+	 * Build exchange body
+	 *
+	 * @param exchangeType
+	 * @param durable
+	 * @return Map containing type and durability
+	 */
+	public static Map<String, Object> exchange(String exchangeType, boolean durable) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put(TYPE_PROPERTY, exchangeType);
+		json.put(DURABLE_PROPERTY, durable);
+		return json;
+	}
+
+	/**
+	 * Build binding body, arguments are default empty
+	 *
+	 * @param routingKey
+	 * @return Map containing routing key and empty arguments
+	 */
+	public static Map<String, Object> binding(String routingKey) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put(ROUTING_KEY_PROPERTY, routingKey);
+		json.put(ARGUMENTS_PROPERTY, Collections.emptyMap());
+		return json;
+	}
+
+	/**
+	 * Build policy body, used for policies and operator policies
+	 *
+	 * @param pattern    regular expression matching the names of the queues or exchanges
+	 * @param applyTo
+	 * @param priority
+	 * @param definition
+	 * @return Map containing pattern, apply-to, priority and definition
+	 */
+	public static Map<String, Object> policy(String pattern, String applyTo, int priority, Map<String, Object> definition) {
+		Map<String, Object> json = new LinkedHashMap<>();
+		json.put(PATTERN_PROPERTY, pattern);
+		json.put(APPLY_TO_PROPERTY, applyTo);
+		json.put(PRIORITY_PROPERTY, priority);
+		json.put(DEFINITION_PROPERTY, definition);
+		return json;
+	}
+
+}
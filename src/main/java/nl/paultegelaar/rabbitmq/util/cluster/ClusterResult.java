@@ -0,0 +1,71 @@
+package nl.paultegelaar.rabbitmq.util.cluster;
+
+/**
+ * Outcome of applying a plan to a single cluster.
+ *
+ */
+public class ClusterResult {
+
+	private final String clusterName;
+	private final String apiBaseURL;
+	private final String error;
+	private final long objectCount;
+	private final long requestCount;
+	private final long retryCount;
+	private final long durationNanos;
+
+	/**
+	 * @param clusterName
+	 * @param apiBaseURL
+	 * @param error         reason of the failure, null when successful
+	 * @param objectCount   objects provisioned
+	 * @param requestCount  requests which received a response
+	 * @param retryCount
+	 * @param durationNanos
+	 */
+	public ClusterResult(String clusterName, String apiBaseURL, String error, long objectCount, long requestCount, long retryCount, long durationNanos) {
+		this.clusterName = clusterName;
+		this.apiBaseURL = apiBaseURL;
+		this.error = error;
+		this.objectCount = objectCount;
+		this.requestCount = requestCount;
+		this.retryCount = retryCount;
+		this.durationNanos = durationNanos;
+	}
+
+	public String getClusterName() {
+		return clusterName;
+	}
+
+	public String getApiBaseURL() {
+		return apiBaseURL;
+	}
+
+	/**
+	 * @return reason of the failure or null when successful
+	 */
+	public String getError() {
+		return error;
+	}
+
+	public boolean isSuccessful() {
+		return error == null;
+	}
+
+	public long getObjectCount() {
+		return objectCount;
+	}
+
+	public long getRequestCount() {
+		return requestCount;
+	}
+
+	public long getRetryCount() {
+		return retryCount;
+	}
+
+	public long getDurationNanos() {
+		return durationNanos;
+	}
+
+}
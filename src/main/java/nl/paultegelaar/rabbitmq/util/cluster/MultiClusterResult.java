@@ -0,0 +1,53 @@
+package nl.paultegelaar.rabbitmq.util.cluster;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Outcome of applying a plan to several clusters, one {@link ClusterResult} per cluster in the configured order.
+ *
+ */
+public class MultiClusterResult {
+
+	private final List<ClusterResult> clusterResults;
+
+	public MultiClusterResult(List<ClusterResult> clusterResults) {
+		this.clusterResults = Collections.unmodifiableList(clusterResults);
+	}
+
+	public List<ClusterResult> getClusterResults() {
+		return clusterResults;
+	}
+
+	/**
+	 * @return results of the clusters which failed
+	 */
+	public List<ClusterResult> getFailedClusters() {
+		return clusterResults.stream().filter(clusterResult -> !clusterResult.isSuccessful()).collect(Collectors.toList());
+	}
+
+	/**
+	 * @return true when the plan was applied to every cluster
+	 */
+	public boolean isSuccessful() {
+		return clusterResults.stream().allMatch(ClusterResult::isSuccessful);
+	}
+
+	/**
+	 * @return human readable matrix, one line per cluster
+	 */
+	public String summary() {
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("%-20s %-7s %8s %9s %8s %10s  %s%n", "cluster", "result", "objects", "requests", "retries", "seconds", "error"));
+		for (ClusterResult clusterResult : clusterResults) {
+			summary.append(String.format("%-20s %-7s %8s %9s %8s %10.3f  %s%n", clusterResult.getClusterName(),
+					clusterResult.isSuccessful() ? "OK" : "FAILED", clusterResult.getObjectCount(), clusterResult.getRequestCount(),
+					clusterResult.getRetryCount(), clusterResult.getDurationNanos() / (double) TimeUnit.SECONDS.toNanos(1),
+					clusterResult.isSuccessful() ? "" : clusterResult.getError()));
+		}
+		return summary.toString();
+	}
+
+}
@@ -3,6 +3,8 @@ package nl.paultegelaar.rabbitmq.util.config;
 
 import org.hibernate.validator.constraints.URL;
 
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -11,6 +13,38 @@ public class ApplicationConfig {
 
 	private int httpConnectionTimeout = 60000;
 	private int httpRequestTimeout = 60000;
+	private int httpSocketTimeout = 60000;
+	private int maxRetries = 3;
+	private int retryInitialBackoffMillis = 100;
+	private int retryMaxBackoffMillis = 10000;
+	private boolean adaptiveConcurrency = true;
+	private int minRequestsInFlight = 1;
+	private int latencyThresholdMillis = 5000;
+	private int maxRequestsInFlight = 1;
+	private int workerThreads = 4;
+	private int maxPendingObjects = 10000;
+	private boolean preferVirtualThreads = true;
+	private HttpTransportType httpTransportType = HttpTransportType.SINGLE_CONNECTION;
+	private int maxConnectionsPerRoute = 10;
+	private int maxConnectionsTotal = 20;
+	private int idleConnectionTimeoutSeconds = 30;
+	private int asyncIoThreads = 2;
+	private int connectionTimeToLiveSeconds = 0;
+	private int keepAliveSeconds = 0;
+	private String tlsTrustStore;
+	private char[] tlsTrustStorePassword;
+	private String tlsTrustStoreType = "PKCS12";
+	private String tlsKeyStore;
+	private char[] tlsKeyStorePassword;
+	private String tlsKeyStoreType = "PKCS12";
+	private String tlsProtocols = "TLSv1.3,TLSv1.2";
+	private String tlsCipherSuites;
+	private int tlsSessionCacheSize = 100;
+	private int tlsSessionTimeoutSeconds = 3600;
+	private ProvisionerType provisionerType = ProvisionerType.HTTP;
+	private String amqpURI;
+	private int amqpChannels = 4;
+	private int amqpBatchSize = 100;
 	private String apiBaseURL;
 	private String apiUsername;
 	private char[] apiPassword;
@@ -19,10 +53,119 @@ public class ApplicationConfig {
 	private String deadLetterQueuePath = "/api/queues/%s/%s";
 	private String bindingPath = "/api/bindings/%s/e/%s/q/%s";
 	private String vhostPath = "/api/vhosts/%s/";
+	private String definitionsPath = "/api/definitions/%s";
+	private String virtualHostBindingsPath = "/api/bindings/%s";
+	private String policyPath = "/api/policies/%s/%s";
+	private String operatorPolicyPath = "/api/operator-policies/%s/%s";
+	private String virtualHostQueuesPath = "/api/queues/%s";
+	private String virtualHostExchangesPath = "/api/exchanges/%s";
+	private String virtualHostPoliciesPath = "/api/policies/%s";
+	private ProvisioningMode provisioningMode = ProvisioningMode.PER_OBJECT;
+	private boolean reconcile = false;
+	private String stateFile;
+	private boolean forceFullApply = false;
+	private String replayProgressFile;
+	private String journalFile;
+	private boolean resume = false;
+	private int journalSyncBatchSize = 1000;
+	private int journalSyncIntervalMillis = 1000;
+	private long runDeadlineMillis = 0;
+	private boolean pruneDryRun = false;
+	private boolean pruneIfEmpty = false;
+	private boolean policyQueueSettings = false;
+	private String generatedPolicyPrefix = "queue-creator.";
+	private int generatedPolicyPriority = 0;
+	private int verifyPageSize = 500;
+	private String metricsJsonFile;
+	private String metricsPrometheusFile;
+	private int watchDebounceMillis = 500;
+	private int statusPort = 0;
 	
 	private String deadLetterPostfix = ".dead-letter";
 	private String reservedExchangeNamePrefix = "amq.";
 	
+	public ApplicationConfig() {
+	}
+
+	/**
+	 * Copy all settings, used to derive the config of a single cluster
+	 *
+	 * @param other
+	 */
+	public ApplicationConfig(ApplicationConfig other) {
+		this.httpConnectionTimeout = other.httpConnectionTimeout;
+		this.httpRequestTimeout = other.httpRequestTimeout;
+		this.httpSocketTimeout = other.httpSocketTimeout;
+		this.maxRetries = other.maxRetries;
+		this.retryInitialBackoffMillis = other.retryInitialBackoffMillis;
+		this.retryMaxBackoffMillis = other.retryMaxBackoffMillis;
+		this.adaptiveConcurrency = other.adaptiveConcurrency;
+		this.minRequestsInFlight = other.minRequestsInFlight;
+		this.latencyThresholdMillis = other.latencyThresholdMillis;
+		this.maxRequestsInFlight = other.maxRequestsInFlight;
+		this.workerThreads = other.workerThreads;
+		this.maxPendingObjects = other.maxPendingObjects;
+		this.preferVirtualThreads = other.preferVirtualThreads;
+		this.httpTransportType = other.httpTransportType;
+		this.maxConnectionsPerRoute = other.maxConnectionsPerRoute;
+		this.maxConnectionsTotal = other.maxConnectionsTotal;
+		this.idleConnectionTimeoutSeconds = other.idleConnectionTimeoutSeconds;
+		this.asyncIoThreads = other.asyncIoThreads;
+		this.connectionTimeToLiveSeconds = other.connectionTimeToLiveSeconds;
+		this.keepAliveSeconds = other.keepAliveSeconds;
+		this.tlsTrustStore = other.tlsTrustStore;
+		this.tlsTrustStorePassword = other.tlsTrustStorePassword;
+		this.tlsTrustStoreType = other.tlsTrustStoreType;
+		this.tlsKeyStore = other.tlsKeyStore;
+		this.tlsKeyStorePassword = other.tlsKeyStorePassword;
+		this.tlsKeyStoreType = other.tlsKeyStoreType;
+		this.tlsProtocols = other.tlsProtocols;
+		this.tlsCipherSuites = other.tlsCipherSuites;
+		this.tlsSessionCacheSize = other.tlsSessionCacheSize;
+		this.tlsSessionTimeoutSeconds = other.tlsSessionTimeoutSeconds;
+		this.provisionerType = other.provisionerType;
+		this.amqpURI = other.amqpURI;
+		this.amqpChannels = other.amqpChannels;
+		this.amqpBatchSize = other.amqpBatchSize;
+		this.apiBaseURL = other.apiBaseURL;
+		this.apiUsername = other.apiUsername;
+		this.apiPassword = other.apiPassword;
+		this.exchangePath = other.exchangePath;
+		this.queuePath = other.queuePath;
+		this.deadLetterQueuePath = other.deadLetterQueuePath;
+		this.bindingPath = other.bindingPath;
+		this.vhostPath = other.vhostPath;
+		this.definitionsPath = other.definitionsPath;
+		this.virtualHostBindingsPath = other.virtualHostBindingsPath;
+		this.policyPath = other.policyPath;
+		this.operatorPolicyPath = other.operatorPolicyPath;
+		this.virtualHostQueuesPath = other.virtualHostQueuesPath;
+		this.virtualHostExchangesPath = other.virtualHostExchangesPath;
+		this.virtualHostPoliciesPath = other.virtualHostPoliciesPath;
+		this.provisioningMode = other.provisioningMode;
+		this.reconcile = other.reconcile;
+		this.stateFile = other.stateFile;
+		this.forceFullApply = other.forceFullApply;
+		this.replayProgressFile = other.replayProgressFile;
+		this.journalFile = other.journalFile;
+		this.resume = other.resume;
+		this.journalSyncBatchSize = other.journalSyncBatchSize;
+		this.journalSyncIntervalMillis = other.journalSyncIntervalMillis;
+		this.runDeadlineMillis = other.runDeadlineMillis;
+		this.pruneDryRun = other.pruneDryRun;
+		this.pruneIfEmpty = other.pruneIfEmpty;
+		this.policyQueueSettings = other.policyQueueSettings;
+		this.generatedPolicyPrefix = other.generatedPolicyPrefix;
+		this.generatedPolicyPriority = other.generatedPolicyPriority;
+		this.verifyPageSize = other.verifyPageSize;
+		this.metricsJsonFile = other.metricsJsonFile;
+		this.metricsPrometheusFile = other.metricsPrometheusFile;
+		this.watchDebounceMillis = other.watchDebounceMillis;
+		this.statusPort = other.statusPort;
+		this.deadLetterPostfix = other.deadLetterPostfix;
+		this.reservedExchangeNamePrefix = other.reservedExchangeNamePrefix;
+	}
+	
 	
 	@NotBlank
 	public String getVhostPath() {
@@ -42,6 +185,253 @@ public class ApplicationConfig {
 		this.deadLetterPostfix = deadLetterPostfix;
 	}
 
+	@NotBlank
+	public String getDefinitionsPath() {
+		return definitionsPath;
+	}
+
+	public void setDefinitionsPath(String definitionsPath) {
+		this.definitionsPath = definitionsPath;
+	}
+
+	@NotBlank
+	public String getVirtualHostBindingsPath() {
+		return virtualHostBindingsPath;
+	}
+
+	public void setVirtualHostBindingsPath(String virtualHostBindingsPath) {
+		this.virtualHostBindingsPath = virtualHostBindingsPath;
+	}
+
+	@NotBlank
+	public String getPolicyPath() {
+		return policyPath;
+	}
+
+	public void setPolicyPath(String policyPath) {
+		this.policyPath = policyPath;
+	}
+
+	@NotBlank
+	public String getOperatorPolicyPath() {
+		return operatorPolicyPath;
+	}
+
+	public void setOperatorPolicyPath(String operatorPolicyPath) {
+		this.operatorPolicyPath = operatorPolicyPath;
+	}
+
+	@NotBlank
+	public String getVirtualHostQueuesPath() {
+		return virtualHostQueuesPath;
+	}
+
+	public void setVirtualHostQueuesPath(String virtualHostQueuesPath) {
+		this.virtualHostQueuesPath = virtualHostQueuesPath;
+	}
+
+	@NotBlank
+	public String getVirtualHostExchangesPath() {
+		return virtualHostExchangesPath;
+	}
+
+	public void setVirtualHostExchangesPath(String virtualHostExchangesPath) {
+		this.virtualHostExchangesPath = virtualHostExchangesPath;
+	}
+
+	@NotBlank
+	public String getVirtualHostPoliciesPath() {
+		return virtualHostPoliciesPath;
+	}
+
+	public void setVirtualHostPoliciesPath(String virtualHostPoliciesPath) {
+		this.virtualHostPoliciesPath = virtualHostPoliciesPath;
+	}
+
+	@NotNull
+	public ProvisioningMode getProvisioningMode() {
+		return provisioningMode;
+	}
+
+	public void setProvisioningMode(ProvisioningMode provisioningMode) {
+		this.provisioningMode = provisioningMode;
+	}
+
+	public boolean isReconcile() {
+		return reconcile;
+	}
+
+	public void setReconcile(boolean reconcile) {
+		this.reconcile = reconcile;
+	}
+
+	public String getStateFile() {
+		return stateFile;
+	}
+
+	public void setStateFile(String stateFile) {
+		this.stateFile = stateFile;
+	}
+
+	public boolean isForceFullApply() {
+		return forceFullApply;
+	}
+
+	public void setForceFullApply(boolean forceFullApply) {
+		this.forceFullApply = forceFullApply;
+	}
+
+	/**
+	 * @return progress file of a request log replay, null to use the log file name followed by .progress
+	 */
+	public String getReplayProgressFile() {
+		return replayProgressFile;
+	}
+
+	public void setReplayProgressFile(String replayProgressFile) {
+		this.replayProgressFile = replayProgressFile;
+	}
+
+	/**
+	 * @return progress journal of a provisioning run, null to disable journalling
+	 */
+	public String getJournalFile() {
+		return journalFile;
+	}
+
+	public void setJournalFile(String journalFile) {
+		this.journalFile = journalFile;
+	}
+
+	/**
+	 * @return skip the objects journalled by an earlier run of the same config
+	 */
+	public boolean isResume() {
+		return resume;
+	}
+
+	public void setResume(boolean resume) {
+		this.resume = resume;
+	}
+
+	@Min(value = 1L)
+	public int getJournalSyncBatchSize() {
+		return journalSyncBatchSize;
+	}
+
+	public void setJournalSyncBatchSize(int journalSyncBatchSize) {
+		this.journalSyncBatchSize = journalSyncBatchSize;
+	}
+
+	@Min(value = 0L)
+	public int getJournalSyncIntervalMillis() {
+		return journalSyncIntervalMillis;
+	}
+
+	public void setJournalSyncIntervalMillis(int journalSyncIntervalMillis) {
+		this.journalSyncIntervalMillis = journalSyncIntervalMillis;
+	}
+
+	/**
+	 * @return maximum duration of a provisioning run, objects not started by then are skipped, 0 for no deadline
+	 */
+	@Min(value = 0L)
+	public long getRunDeadlineMillis() {
+		return runDeadlineMillis;
+	}
+
+	public void setRunDeadlineMillis(long runDeadlineMillis) {
+		this.runDeadlineMillis = runDeadlineMillis;
+	}
+
+	/**
+	 * @return only list the objects prune would delete
+	 */
+	public boolean isPruneDryRun() {
+		return pruneDryRun;
+	}
+
+	public void setPruneDryRun(boolean pruneDryRun) {
+		this.pruneDryRun = pruneDryRun;
+	}
+
+	/**
+	 * @return prune only deletes queues without messages
+	 */
+	public boolean isPruneIfEmpty() {
+		return pruneIfEmpty;
+	}
+
+	public void setPruneIfEmpty(boolean pruneIfEmpty) {
+		this.pruneIfEmpty = pruneIfEmpty;
+	}
+
+	/**
+	 * @return apply the dead letter exchange, message TTL and max length of queues with generated policies instead of
+	 *         queue arguments
+	 */
+	public boolean isPolicyQueueSettings() {
+		return policyQueueSettings;
+	}
+
+	public void setPolicyQueueSettings(boolean policyQueueSettings) {
+		this.policyQueueSettings = policyQueueSettings;
+	}
+
+	/**
+	 * @return name prefix of the generated queue settings policies
+	 */
+	@NotBlank
+	public String getGeneratedPolicyPrefix() {
+		return generatedPolicyPrefix;
+	}
+
+	public void setGeneratedPolicyPrefix(String generatedPolicyPrefix) {
+		this.generatedPolicyPrefix = generatedPolicyPrefix;
+	}
+
+	/**
+	 * @return priority of the generated queue settings policies, a configured policy with a higher priority matching
+	 *         the same queues replaces them
+	 */
+	@Min(value = 0L)
+	public int getGeneratedPolicyPriority() {
+		return generatedPolicyPriority;
+	}
+
+	public void setGeneratedPolicyPriority(int generatedPolicyPriority) {
+		this.generatedPolicyPriority = generatedPolicyPriority;
+	}
+
+	/**
+	 * @return number of queues or exchanges per page listed by verify, the management API allows at most 500
+	 */
+	@Min(value = 1L)
+	@Max(value = 500L)
+	public int getVerifyPageSize() {
+		return verifyPageSize;
+	}
+
+	public void setVerifyPageSize(int verifyPageSize) {
+		this.verifyPageSize = verifyPageSize;
+	}
+
+	public String getMetricsJsonFile() {
+		return metricsJsonFile;
+	}
+
+	public void setMetricsJsonFile(String metricsJsonFile) {
+		this.metricsJsonFile = metricsJsonFile;
+	}
+
+	public String getMetricsPrometheusFile() {
+		return metricsPrometheusFile;
+	}
+
+	public void setMetricsPrometheusFile(String metricsPrometheusFile) {
+		this.metricsPrometheusFile = metricsPrometheusFile;
+	}
+
 	@NotBlank	
 	public String getBindingPath() {
 		return bindingPath;
@@ -128,6 +518,362 @@ public class ApplicationConfig {
 		this.httpRequestTimeout = httpRequestTimeout;
 	}
 
+	@Min(value = 1L)
+	public int getHttpSocketTimeout() {
+		return httpSocketTimeout;
+	}
+
+	public void setHttpSocketTimeout(int httpSocketTimeout) {
+		this.httpSocketTimeout = httpSocketTimeout;
+	}
+
+	@Min(value = 0L)
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	@Min(value = 1L)
+	public int getRetryInitialBackoffMillis() {
+		return retryInitialBackoffMillis;
+	}
+
+	public void setRetryInitialBackoffMillis(int retryInitialBackoffMillis) {
+		this.retryInitialBackoffMillis = retryInitialBackoffMillis;
+	}
+
+	@Min(value = 1L)
+	public int getRetryMaxBackoffMillis() {
+		return retryMaxBackoffMillis;
+	}
+
+	public void setRetryMaxBackoffMillis(int retryMaxBackoffMillis) {
+		this.retryMaxBackoffMillis = retryMaxBackoffMillis;
+	}
+
+	public boolean isAdaptiveConcurrency() {
+		return adaptiveConcurrency;
+	}
+
+	public void setAdaptiveConcurrency(boolean adaptiveConcurrency) {
+		this.adaptiveConcurrency = adaptiveConcurrency;
+	}
+
+	@Min(value = 1L)
+	public int getMinRequestsInFlight() {
+		return minRequestsInFlight;
+	}
+
+	public void setMinRequestsInFlight(int minRequestsInFlight) {
+		this.minRequestsInFlight = minRequestsInFlight;
+	}
+
+	/**
+	 * @return true when the adaptive limit has a valid range
+	 */
+	@AssertTrue(message = "minRequestsInFlight must not be larger than maxRequestsInFlight")
+	public boolean isRequestsInFlightRangeValid() {
+		return minRequestsInFlight <= maxRequestsInFlight;
+	}
+
+	@Min(value = 1L)
+	public int getLatencyThresholdMillis() {
+		return latencyThresholdMillis;
+	}
+
+	public void setLatencyThresholdMillis(int latencyThresholdMillis) {
+		this.latencyThresholdMillis = latencyThresholdMillis;
+	}
+
+	@Min(value = 1L)
+	public int getMaxRequestsInFlight() {
+		return maxRequestsInFlight;
+	}
+
+	public void setMaxRequestsInFlight(int maxRequestsInFlight) {
+		this.maxRequestsInFlight = maxRequestsInFlight;
+	}
+
+	@Min(value = 1L)
+	public int getWorkerThreads() {
+		return workerThreads;
+	}
+
+	public void setWorkerThreads(int workerThreads) {
+		this.workerThreads = workerThreads;
+	}
+
+	@Min(value = 1L)
+	public int getMaxPendingObjects() {
+		return maxPendingObjects;
+	}
+
+	public void setMaxPendingObjects(int maxPendingObjects) {
+		this.maxPendingObjects = maxPendingObjects;
+	}
+
+	public boolean isPreferVirtualThreads() {
+		return preferVirtualThreads;
+	}
+
+	public void setPreferVirtualThreads(boolean preferVirtualThreads) {
+		this.preferVirtualThreads = preferVirtualThreads;
+	}
+
+	@NotNull
+	public HttpTransportType getHttpTransportType() {
+		return httpTransportType;
+	}
+
+	public void setHttpTransportType(HttpTransportType httpTransportType) {
+		this.httpTransportType = httpTransportType;
+	}
+
+	@Min(value = 1L)
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	@Min(value = 1L)
+	public int getMaxConnectionsTotal() {
+		return maxConnectionsTotal;
+	}
+
+	public void setMaxConnectionsTotal(int maxConnectionsTotal) {
+		this.maxConnectionsTotal = maxConnectionsTotal;
+	}
+
+	@Min(value = 1L)
+	public int getIdleConnectionTimeoutSeconds() {
+		return idleConnectionTimeoutSeconds;
+	}
+
+	public void setIdleConnectionTimeoutSeconds(int idleConnectionTimeoutSeconds) {
+		this.idleConnectionTimeoutSeconds = idleConnectionTimeoutSeconds;
+	}
+
+	@Min(value = 1L)
+	public int getAsyncIoThreads() {
+		return asyncIoThreads;
+	}
+
+	public void setAsyncIoThreads(int asyncIoThreads) {
+		this.asyncIoThreads = asyncIoThreads;
+	}
+
+	/**
+	 * @return maximum lifetime of a pooled connection, 0 keeps connections until they are idle or closed
+	 */
+	@Min(value = 0L)
+	public int getConnectionTimeToLiveSeconds() {
+		return connectionTimeToLiveSeconds;
+	}
+
+	public void setConnectionTimeToLiveSeconds(int connectionTimeToLiveSeconds) {
+		this.connectionTimeToLiveSeconds = connectionTimeToLiveSeconds;
+	}
+
+	/**
+	 * @return maximum time an idle connection is kept for reuse, a shorter Keep-Alive timeout of the broker wins, 0
+	 *         only uses the Keep-Alive timeout of the broker
+	 */
+	@Min(value = 0L)
+	public int getKeepAliveSeconds() {
+		return keepAliveSeconds;
+	}
+
+	public void setKeepAliveSeconds(int keepAliveSeconds) {
+		this.keepAliveSeconds = keepAliveSeconds;
+	}
+
+	/**
+	 * @return keystore with the trusted certificates of an HTTPS management API, the JVM defaults when not set
+	 */
+	public String getTlsTrustStore() {
+		return tlsTrustStore;
+	}
+
+	public void setTlsTrustStore(String tlsTrustStore) {
+		this.tlsTrustStore = tlsTrustStore;
+	}
+
+	public char[] getTlsTrustStorePassword() {
+		return tlsTrustStorePassword;
+	}
+
+	public void setTlsTrustStorePassword(char[] tlsTrustStorePassword) {
+		this.tlsTrustStorePassword = tlsTrustStorePassword;
+	}
+
+	@NotBlank
+	public String getTlsTrustStoreType() {
+		return tlsTrustStoreType;
+	}
+
+	public void setTlsTrustStoreType(String tlsTrustStoreType) {
+		this.tlsTrustStoreType = tlsTrustStoreType;
+	}
+
+	/**
+	 * @return keystore with the client certificate and key, no client certificate is sent when not set
+	 */
+	public String getTlsKeyStore() {
+		return tlsKeyStore;
+	}
+
+	public void setTlsKeyStore(String tlsKeyStore) {
+		this.tlsKeyStore = tlsKeyStore;
+	}
+
+	/**
+	 * @return password of the keystore, also used for the key
+	 */
+	public char[] getTlsKeyStorePassword() {
+		return tlsKeyStorePassword;
+	}
+
+	public void setTlsKeyStorePassword(char[] tlsKeyStorePassword) {
+		this.tlsKeyStorePassword = tlsKeyStorePassword;
+	}
+
+	@NotBlank
+	public String getTlsKeyStoreType() {
+		return tlsKeyStoreType;
+	}
+
+	public void setTlsKeyStoreType(String tlsKeyStoreType) {
+		this.tlsKeyStoreType = tlsKeyStoreType;
+	}
+
+	/**
+	 * @return comma separated TLS protocols to enable
+	 */
+	@NotBlank
+	public String getTlsProtocols() {
+		return tlsProtocols;
+	}
+
+	public void setTlsProtocols(String tlsProtocols) {
+		this.tlsProtocols = tlsProtocols;
+	}
+
+	/**
+	 * @return comma separated cipher suites to enable, the JVM defaults when not set
+	 */
+	public String getTlsCipherSuites() {
+		return tlsCipherSuites;
+	}
+
+	public void setTlsCipherSuites(String tlsCipherSuites) {
+		this.tlsCipherSuites = tlsCipherSuites;
+	}
+
+	/**
+	 * @return TLS sessions cached for resumption by new connections, 0 doesn't limit the cache
+	 */
+	@Min(value = 0L)
+	public int getTlsSessionCacheSize() {
+		return tlsSessionCacheSize;
+	}
+
+	public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+		this.tlsSessionCacheSize = tlsSessionCacheSize;
+	}
+
+	/**
+	 * @return time a cached TLS session can be resumed, 0 doesn't expire sessions
+	 */
+	@Min(value = 0L)
+	public int getTlsSessionTimeoutSeconds() {
+		return tlsSessionTimeoutSeconds;
+	}
+
+	public void setTlsSessionTimeoutSeconds(int tlsSessionTimeoutSeconds) {
+		this.tlsSessionTimeoutSeconds = tlsSessionTimeoutSeconds;
+	}
+
+	@NotNull
+	public ProvisionerType getProvisionerType() {
+		return provisionerType;
+	}
+
+	public void setProvisionerType(ProvisionerType provisionerType) {
+		this.provisionerType = provisionerType;
+	}
+
+	/**
+	 * @return AMQP URI of the broker, without vhost, used by the AMQP provisioner
+	 */
+	public String getAmqpURI() {
+		return amqpURI;
+	}
+
+	public void setAmqpURI(String amqpURI) {
+		this.amqpURI = amqpURI;
+	}
+
+	/**
+	 * @return number of channels per vhost used by the AMQP provisioner
+	 */
+	@Min(value = 1L)
+	public int getAmqpChannels() {
+		return amqpChannels;
+	}
+
+	public void setAmqpChannels(int amqpChannels) {
+		this.amqpChannels = amqpChannels;
+	}
+
+	/**
+	 * @return maximum number of declarations the AMQP provisioner sends on a channel before waiting for the broker
+	 */
+	@Min(value = 1L)
+	public int getAmqpBatchSize() {
+		return amqpBatchSize;
+	}
+
+	public void setAmqpBatchSize(int amqpBatchSize) {
+		this.amqpBatchSize = amqpBatchSize;
+	}
+
+	@AssertTrue(message = "amqpURI is required when the provisioner is amqp")
+	public boolean isAmqpURIValid() {
+		return provisionerType != ProvisionerType.AMQP || (amqpURI != null && !amqpURI.isBlank());
+	}
+
+	@AssertTrue(message = "the amqp provisioner only supports per-object mode")
+	public boolean isProvisionerModeValid() {
+		return provisionerType != ProvisionerType.AMQP || provisioningMode == ProvisioningMode.PER_OBJECT;
+	}
+
+	@Min(value = 0L)
+	public int getWatchDebounceMillis() {
+		return watchDebounceMillis;
+	}
+
+	public void setWatchDebounceMillis(int watchDebounceMillis) {
+		this.watchDebounceMillis = watchDebounceMillis;
+	}
+
+	/**
+	 * @return port of the local status endpoint in watch mode, 0 when disabled
+	 */
+	@Min(value = 0L)
+	public int getStatusPort() {
+		return statusPort;
+	}
+
+	public void setStatusPort(int statusPort) {
+		this.statusPort = statusPort;
+	}
+
 	@NotNull
 	public String getReservedExchangeNamePrefix() {
 		return reservedExchangeNamePrefix;
@@ -0,0 +1,70 @@
+package nl.paultegelaar.rabbitmq.util.config;
+
+import jakarta.validation.constraints.NotBlank;
+
+/**
+ * Management endpoint and credentials of a single cluster, used when one configuration is applied to several
+ * clusters. Missing credentials and AMQP URI are taken from the application config.
+ *
+ */
+public class ClusterEndpoint {
+
+	private String name;
+	private String apiBaseURL;
+	private String apiUsername;
+	private char[] apiPassword;
+	private String amqpURI;
+
+	public ClusterEndpoint() {
+	}
+
+	public ClusterEndpoint(String name, String apiBaseURL, String apiUsername, char[] apiPassword) {
+		this.name = name;
+		this.apiBaseURL = apiBaseURL;
+		this.apiUsername = apiUsername;
+		this.apiPassword = apiPassword;
+	}
+
+	@NotBlank
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	@NotBlank
+	public String getApiBaseURL() {
+		return apiBaseURL;
+	}
+
+	public void setApiBaseURL(String apiBaseURL) {
+		this.apiBaseURL = apiBaseURL;
+	}
+
+	public String getApiUsername() {
+		return apiUsername;
+	}
+
+	public void setApiUsername(String apiUsername) {
+		this.apiUsername = apiUsername;
+	}
+
+	public char[] getApiPassword() {
+		return apiPassword;
+	}
+
+	public void setApiPassword(char[] apiPassword) {
+		this.apiPassword = apiPassword;
+	}
+
+	public String getAmqpURI() {
+		return amqpURI;
+	}
+
+	public void setAmqpURI(String amqpURI) {
+		this.amqpURI = amqpURI;
+	}
+
+}
@@ -0,0 +1,25 @@
+package nl.paultegelaar.rabbitmq.util.config;
+
+/**
+ * Determines how requests are sent to the management API.
+ *
+ */
+public enum HttpTransportType {
+
+	/**
+	 * One connection, requests are sent one at a time.
+	 */
+	SINGLE_CONNECTION,
+
+	/**
+	 * Pool of keep-alive connections, limited per route and in total, idle connections are evicted.
+	 */
+	POOLED,
+
+	/**
+	 * Non-blocking client, requests are multiplexed by a few I/O threads over a limited number of connections. Each
+	 * worker thread still waits for its own response.
+	 */
+	ASYNC
+
+}
@@ -0,0 +1,20 @@
+package nl.paultegelaar.rabbitmq.util.config;
+
+/**
+ * Determines which protocol is used to declare queues, exchanges and bindings.
+ *
+ */
+public enum ProvisionerType {
+
+	/**
+	 * Every object is created with a call to the management API.
+	 */
+	HTTP,
+
+	/**
+	 * Objects are declared with AMQP 0-9-1 methods pipelined over a few channels per vhost, the management API is only
+	 * used to check the vhosts.
+	 */
+	AMQP
+
+}
@@ -0,0 +1,20 @@
+package nl.paultegelaar.rabbitmq.util.config;
+
+/**
+ * Determines how the RabbitMQ objects are sent to the management API.
+ *
+ */
+public enum ProvisioningMode {
+
+	/**
+	 * Every vhost, queue, dead letter queue, exchange and binding is created with its own management API call.
+	 */
+	PER_OBJECT,
+
+	/**
+	 * All objects of a virtual host are compiled into one definitions document and uploaded with a single call per
+	 * virtual host.
+	 */
+	DEFINITIONS
+
+}
@@ -0,0 +1,18 @@
+package nl.paultegelaar.rabbitmq.util.engine;
+
+/**
+ * Receives the progress of a provisioning run.
+ *
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+	/**
+	 * Called every time an object completed, failed or was skipped, from the thread that executed it. Implementations
+	 * must be thread safe and return quickly, exceptions are logged and ignored.
+	 *
+	 * @param provisioningProgress
+	 */
+	void onProgress(ProvisioningProgress provisioningProgress);
+
+}
@@ -0,0 +1,17 @@
+package nl.paultegelaar.rabbitmq.util.engine;
+
+/**
+ * A single unit of provisioning work, normally one call to the management API.
+ *
+ */
+@FunctionalInterface
+public interface ProvisioningAction {
+
+	/**
+	 * Perform the work, any exception marks the object as failed and skips everything depending on it
+	 *
+	 * @throws Exception
+	 */
+	void execute() throws Exception;
+
+}
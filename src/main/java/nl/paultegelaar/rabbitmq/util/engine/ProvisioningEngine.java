@@ -0,0 +1,304 @@
+package nl.paultegelaar.rabbitmq.util.engine;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+
+/**
+ * Executes provisioning actions as a dependency graph. An action is started as soon as all the actions it depends on
+ * have succeeded, independent actions run in parallel on the worker pool. The number of actions executing at the same
+ * time, and with that the number of requests in flight, is bounded.
+ *
+ * If an action fails, every action depending on it is skipped, all failures are reported together when the engine
+ * completes. A stopped engine, cancelled or past its deadline, skips every action which hasn't started yet, actions
+ * already executing are allowed to finish.
+ *
+ * @param <K> key identifying a provisioned object
+ */
+public class ProvisioningEngine<K> implements AutoCloseable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningEngine.class);
+
+	private final ExecutorService executorService;
+	private final Semaphore requestsInFlight;
+	private final Semaphore pendingActions;
+	private final Map<K, CompletableFuture<Void>> submitted = new ConcurrentHashMap<>();
+	private final Queue<String> failures = new ConcurrentLinkedQueue<>();
+	private final AtomicInteger skipped = new AtomicInteger();
+	private final AtomicInteger completed = new AtomicInteger();
+	private volatile ProgressListener progressListener;
+	private volatile long deadlineNanos;
+	private volatile boolean deadlineSet;
+	private volatile String stopReason;
+
+	/**
+	 * Create engine
+	 *
+	 * @param workerThreads         number of platform threads, used when virtual threads are not preferred or not
+	 *                              available
+	 * @param preferVirtualThreads  use a virtual thread per action when the runtime supports it
+	 * @param maxRequestsInFlight   maximum number of actions executing at the same time
+	 */
+	public ProvisioningEngine(int workerThreads, boolean preferVirtualThreads, int maxRequestsInFlight) {
+		this(workerThreads, preferVirtualThreads, maxRequestsInFlight, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Create engine with a bound on the number of submitted actions which haven't completed yet, submitting blocks
+	 * while the bound is reached. Used when actions are submitted while the configuration is still being read.
+	 *
+	 * @param workerThreads
+	 * @param preferVirtualThreads
+	 * @param maxRequestsInFlight
+	 * @param maxPendingActions   maximum number of submitted actions not yet completed
+	 */
+	public ProvisioningEngine(int workerThreads, boolean preferVirtualThreads, int maxRequestsInFlight, int maxPendingActions) {
+		this.executorService = createExecutorService(workerThreads, preferVirtualThreads);
+		this.requestsInFlight = new Semaphore(maxRequestsInFlight, true);
+		this.pendingActions = new Semaphore(maxPendingActions);
+	}
+
+	/**
+	 * Submit an action, it will run after all dependencies have completed successfully. Dependencies must be
+	 * submitted before the actions depending on them.
+	 *
+	 * @param key          unique key of the object
+	 * @param description  human readable description, used when reporting failures
+	 * @param dependencies keys of the objects that must exist first
+	 * @param action       work to perform
+	 * @throws IllegalStateException when a key is submitted twice or a dependency is unknown
+	 */
+	public void submit(K key, String description, Collection<K> dependencies, ProvisioningAction action) {
+		List<CompletableFuture<Void>> dependencyFutures = new ArrayList<>(dependencies.size());
+		for (K dependency : dependencies) {
+			CompletableFuture<Void> dependencyFuture = submitted.get(dependency);
+			if (dependencyFuture == null) {
+				throw new IllegalStateException(String.format("Dependency %s of %s has not been submitted", dependency, key));
+			}
+			dependencyFutures.add(dependencyFuture);
+		}
+
+		// Reserve the key first, so an object submitted concurrently from another thread is rejected
+		CompletableFuture<Void> future = new CompletableFuture<>();
+		if (submitted.putIfAbsent(key, future) != null) {
+			throw new IllegalStateException(String.format("Object %s has already been submitted", key));
+		}
+
+		pendingActions.acquireUninterruptibly();
+		CompletableFuture.allOf(dependencyFutures.toArray(new CompletableFuture[0]))
+				.whenComplete((result, throwable) -> {
+					if (throwable != null) {
+						LOGGER.info("Skipping {}, a dependency failed", description);
+						skipped.incrementAndGet();
+						notifyProgress();
+					}
+				})
+				.thenRunAsync(() -> run(description, action), executorService)
+				.whenComplete((result, throwable) -> {
+					pendingActions.release();
+					if (throwable != null) {
+						future.completeExceptionally(throwable);
+					} else {
+						future.complete(null);
+					}
+				});
+	}
+
+	/**
+	 * @param key
+	 * @return true when an action for this key has been submitted
+	 */
+	public boolean isSubmitted(K key) {
+		return submitted.containsKey(key);
+	}
+
+	/**
+	 * @param progressListener notified after every completed, failed or skipped action, may be null
+	 */
+	public void setProgressListener(ProgressListener progressListener) {
+		this.progressListener = progressListener;
+	}
+
+	/**
+	 * Stop the engine once the deadline has passed
+	 *
+	 * @param deadlineNanos deadline as {@link System#nanoTime()}
+	 */
+	public void setDeadline(long deadlineNanos) {
+		this.deadlineNanos = deadlineNanos;
+		this.deadlineSet = true;
+	}
+
+	/**
+	 * Skip every action which hasn't started yet, safe to call from any thread
+	 *
+	 * @param reason reported when the engine completes, e.g. cancelled
+	 */
+	public void stop(String reason) {
+		if (stopReason == null) {
+			LOGGER.info("Provisioning stopped: {}", reason);
+			stopReason = reason;
+		}
+	}
+
+	/**
+	 * Wait until every submitted action has completed or has been skipped
+	 *
+	 * @throws RabbitMQProvisioningException listing every failed object
+	 */
+	public void awaitCompletion() throws RabbitMQProvisioningException {
+		try {
+			CompletableFuture.allOf(submitted.values().toArray(new CompletableFuture[0])).join();
+		} catch (RuntimeException e) {
+			// Failures are collected per action
+		}
+
+		RabbitMQProvisioningException failure = failure();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+
+	/**
+	 * Completes without blocking a thread once every action submitted so far has completed or has been skipped
+	 *
+	 * @return future failing with a RabbitMQProvisioningException listing every failed object
+	 */
+	public CompletableFuture<Void> completion() {
+		return CompletableFuture.allOf(submitted.values().toArray(new CompletableFuture[0])).handle((result, throwable) -> {
+			RabbitMQProvisioningException failure = failure();
+			if (failure != null) {
+				throw new CompletionException(failure);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * @return counts of the actions submitted so far
+	 */
+	public ProvisioningProgress getProgress() {
+		int failed = failures.size();
+		int completedActions = completed.get();
+		int skippedActions = skipped.get();
+		return new ProvisioningProgress(completedActions, failed, skippedActions,
+				Math.max(0, submitted.size() - completedActions - failed - skippedActions), stopReason != null);
+	}
+
+	/**
+	 * Shut down the workers, actions still executing are interrupted
+	 */
+	@Override
+	public void close() {
+		if (getProgress().getPending() == 0) {
+			// Don't interrupt the thread completing the last action, it may still be running callbacks
+			executorService.shutdown();
+		} else {
+			executorService.shutdownNow();
+		}
+	}
+
+	private RabbitMQProvisioningException failure() {
+		if (stopReason != null) {
+			LOGGER.error("Provisioning stopped ({}), {} object(s) failed, skipped {} object(s)", stopReason, failures.size(), skipped.get());
+			return new RabbitMQProvisioningException(String.format("Provisioning stopped (%s), skipped %s object(s)%s", stopReason, skipped.get(),
+					failures.isEmpty() ? "" : String.format(", failed for %s object(s): %s", failures.size(), failures)));
+		}
+		if (!failures.isEmpty()) {
+			LOGGER.error("Provisioning failed for {} object(s), skipped {} dependent object(s)", failures.size(), skipped.get());
+			return new RabbitMQProvisioningException(String.format("Provisioning failed for %s object(s): %s", failures.size(), failures));
+		}
+		return null;
+	}
+
+	private void run(String description, ProvisioningAction action) {
+		try {
+			requestsInFlight.acquire();
+			try {
+				if (deadlineSet && stopReason == null && System.nanoTime() - deadlineNanos >= 0) {
+					stop("deadline exceeded");
+				}
+				if (stopReason != null) {
+					skipped.incrementAndGet();
+					throw new CancellationException(String.format("%s: %s", description, stopReason));
+				}
+				action.execute();
+				completed.incrementAndGet();
+			} finally {
+				requestsInFlight.release();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			failures.add(String.format("%s: interrupted", description));
+			throw new IllegalStateException(e);
+		} catch (CancellationException e) {
+			// Stopped, not a failure of the action
+			throw e;
+		} catch (Exception e) {
+			LOGGER.error("Provisioning failed for {}: {}", description, e.getMessage());
+			failures.add(String.format("%s: %s", description, e.getMessage()));
+			throw new IllegalStateException(e);
+		} finally {
+			notifyProgress();
+		}
+	}
+
+	private void notifyProgress() {
+		ProgressListener listener = progressListener;
+		if (listener == null) {
+			return;
+		}
+		try {
+			listener.onProgress(getProgress());
+		} catch (RuntimeException e) {
+			LOGGER.error("Progress listener failed: {}", e.getMessage());
+		}
+	}
+
+	/**
+	 * Create a virtual thread per task executor when preferred and running on a runtime supporting it, otherwise a
+	 * fixed pool of platform threads.
+	 *
+	 * @param workerThreads
+	 * @param preferVirtualThreads
+	 * @return ExecutorService running the actions
+	 */
+	private static ExecutorService createExecutorService(int workerThreads, boolean preferVirtualThreads) {
+		if (preferVirtualThreads) {
+			try {
+				Method factoryMethod = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				LOGGER.info("Using virtual threads for provisioning");
+				return (ExecutorService) factoryMethod.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				LOGGER.info("Virtual threads not available on this runtime, using {} worker threads", workerThreads);
+			}
+		}
+
+		AtomicInteger threadNumber = new AtomicInteger();
+		ThreadFactory threadFactory = runnable -> {
+			Thread thread = new Thread(runnable, "rabbitmq-provisioning-" + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+		return Executors.newFixedThreadPool(workerThreads, threadFactory);
+	}
+
+}
@@ -0,0 +1,58 @@
+package nl.paultegelaar.rabbitmq.util.engine;
+
+/**
+ * Snapshot of the objects of a provisioning run. Objects skipped because a dependency failed or the run was stopped
+ * are counted as skipped.
+ *
+ */
+public class ProvisioningProgress {
+
+	private final int completed;
+	private final int failed;
+	private final int skipped;
+	private final int pending;
+	private final boolean stopped;
+
+	public ProvisioningProgress(int completed, int failed, int skipped, int pending, boolean stopped) {
+		this.completed = completed;
+		this.failed = failed;
+		this.skipped = skipped;
+		this.pending = pending;
+		this.stopped = stopped;
+	}
+
+	/**
+	 * @return objects provisioned successfully
+	 */
+	public int getCompleted() {
+		return completed;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public int getSkipped() {
+		return skipped;
+	}
+
+	/**
+	 * @return objects submitted but not completed, failed or skipped yet
+	 */
+	public int getPending() {
+		return pending;
+	}
+
+	/**
+	 * @return true when the run was cancelled or passed its deadline
+	 */
+	public boolean isStopped() {
+		return stopped;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s completed, %s failed, %s skipped, %s pending%s", completed, failed, skipped, pending, stopped ? ", stopped" : "");
+	}
+
+}
@@ -0,0 +1,21 @@
+package nl.paultegelaar.rabbitmq.util.ingest;
+
+import nl.paultegelaar.rabbitmq.config.Binding;
+
+/**
+ * Receives the bindings of a configuration one at a time while it is being read.
+ *
+ */
+@FunctionalInterface
+public interface BindingHandler {
+
+	/**
+	 * Handle a single validated binding
+	 *
+	 * @param virtualHostName name of the vhost containing the binding
+	 * @param binding
+	 * @param bindingPath     JSON path of the binding, e.g. virtualHosts[0].bindings[3]
+	 */
+	void handle(String virtualHostName, Binding binding, String bindingPath);
+
+}
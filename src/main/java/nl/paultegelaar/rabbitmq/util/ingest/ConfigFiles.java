@@ -0,0 +1,116 @@
+package nl.paultegelaar.rabbitmq.util.ingest;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.apache.commons.lang3.StringUtils;
+
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+
+/**
+ * Resolves the config files given on the command line. Every comma separated entry is a file, a directory of which all
+ * .json files are used, or a glob pattern such as teams/*&#47;topology.json. Files of a directory or pattern are
+ * used in name order, a file matched by several entries is used once.
+ *
+ */
+public final class ConfigFiles {
+
+	private static final String CONFIG_FILE_EXTENSION = ".json";
+	private static final String GLOB_CHARACTERS = "*?[{";
+
+	private ConfigFiles() {
+	}
+
+	/**
+	 * @param configFiles comma separated files, directories and glob patterns
+	 * @return config files in the order given
+	 * @throws RabbitMQProvisioningException when an entry doesn't match any file
+	 */
+	public static List<Path> resolve(String configFiles) throws RabbitMQProvisioningException {
+		return resolve(configFiles, false);
+	}
+
+	/**
+	 * Resolve the paths to watch, directories are kept so config files added to them later are picked up. Files
+	 * matched by a glob pattern are resolved once, files matching it later are not watched.
+	 *
+	 * @param configFiles comma separated files, directories and glob patterns
+	 * @return files and directories in the order given
+	 * @throws RabbitMQProvisioningException when an entry doesn't match any file or directory
+	 */
+	public static List<Path> resolveWatched(String configFiles) throws RabbitMQProvisioningException {
+		return resolve(configFiles, true);
+	}
+
+	private static List<Path> resolve(String configFiles, boolean keepDirectories) throws RabbitMQProvisioningException {
+		Set<Path> resolvedFiles = new LinkedHashSet<>();
+		for (String entry : configFiles.split(",")) {
+			if (StringUtils.isBlank(entry)) {
+				continue;
+			}
+			String trimmedEntry = entry.trim();
+			if (keepDirectories && !StringUtils.containsAny(trimmedEntry, GLOB_CHARACTERS) && Files.isDirectory(Paths.get(trimmedEntry))) {
+				resolvedFiles.add(Paths.get(trimmedEntry).normalize());
+				continue;
+			}
+			Set<Path> entryFiles;
+			try {
+				entryFiles = StringUtils.containsAny(trimmedEntry, GLOB_CHARACTERS) ? matchGlob(trimmedEntry) : listPath(Paths.get(trimmedEntry));
+			} catch (IOException e) {
+				throw new RabbitMQProvisioningException(String.format("Unable to list config files of %s: %s", trimmedEntry, e.getMessage()));
+			}
+			if (entryFiles.isEmpty()) {
+				throw new RabbitMQProvisioningException(String.format("No config file found for %s", trimmedEntry));
+			}
+			entryFiles.forEach(file -> resolvedFiles.add(file.normalize()));
+		}
+		return new ArrayList<>(resolvedFiles);
+	}
+
+	private static Set<Path> listPath(Path path) throws IOException {
+		Set<Path> files = new TreeSet<>();
+		if (Files.isDirectory(path)) {
+			try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(path, "*" + CONFIG_FILE_EXTENSION)) {
+				directoryStream.forEach(files::add);
+			}
+		} else if (Files.isRegularFile(path)) {
+			files.add(path);
+		}
+		return files;
+	}
+
+	/**
+	 * Walk the directory in front of the first glob character and match the rest of the pattern
+	 *
+	 * @param pattern
+	 * @return matching regular files
+	 * @throws IOException
+	 */
+	private static Set<Path> matchGlob(String pattern) throws IOException {
+		int globStart = StringUtils.indexOfAny(pattern, GLOB_CHARACTERS);
+		int baseEnd = Math.max(pattern.lastIndexOf('/', globStart), pattern.lastIndexOf(FileSystems.getDefault().getSeparator(), globStart)) + 1;
+		Path baseDirectory = Paths.get(baseEnd == 0 ? "." : pattern.substring(0, baseEnd));
+		if (!Files.isDirectory(baseDirectory)) {
+			return new TreeSet<>();
+		}
+
+		PathMatcher pathMatcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern.substring(baseEnd));
+		try (Stream<Path> paths = Files.walk(baseDirectory)) {
+			return paths.filter(Files::isRegularFile).filter(path -> pathMatcher.matches(baseDirectory.relativize(path)))
+					.map(path -> baseEnd == 0 ? baseDirectory.relativize(path) : path).collect(Collectors.toCollection(TreeSet::new));
+		}
+	}
+
+}
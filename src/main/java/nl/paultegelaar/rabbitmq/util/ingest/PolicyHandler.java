@@ -0,0 +1,22 @@
+package nl.paultegelaar.rabbitmq.util.ingest;
+
+import nl.paultegelaar.rabbitmq.config.Policy;
+
+/**
+ * Receives the policies and operator policies of a configuration one at a time while it is being read.
+ *
+ */
+@FunctionalInterface
+public interface PolicyHandler {
+
+	/**
+	 * Handle a single validated policy
+	 *
+	 * @param virtualHostName name of the vhost containing the policy
+	 * @param policy
+	 * @param operatorPolicy  true for an operator policy
+	 * @param policyPath      JSON path of the policy, e.g. virtualHosts[0].policies[1]
+	 */
+	void handle(String virtualHostName, Policy policy, boolean operatorPolicy, String policyPath);
+
+}
@@ -0,0 +1,364 @@
+package nl.paultegelaar.rabbitmq.util.ingest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import nl.paultegelaar.rabbitmq.config.Binding;
+import nl.paultegelaar.rabbitmq.config.BindingTemplate;
+import nl.paultegelaar.rabbitmq.config.Policy;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.template.BindingTemplateExpander;
+
+/**
+ * Reads a configuration with a streaming parser and hands every binding to a {@link BindingHandler} as soon as it has
+ * been read and validated. Only a single binding is held in memory at a time, except for bindings appearing before the
+ * name of their vhost, those are kept until the name has been read. Binding templates are expanded one binding at a
+ * time as well. Policies are handed to a {@link PolicyHandler} the same way.
+ *
+ * Violations are reported with the JSON path of the offending entry. Once a violation has been found no further
+ * bindings are handed over, the rest of the configuration is still read so every violation is reported at once. A
+ * reader is used for a single configuration.
+ *
+ */
+public class StreamingConfigReader {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StreamingConfigReader.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final String CONFIG_NAME_PROPERTY = "configName";
+	private static final String VIRTUAL_HOSTS_PROPERTY = "virtualHosts";
+	private static final String NAME_PROPERTY = "name";
+	private static final String BINDINGS_PROPERTY = "bindings";
+	private static final String BINDING_TEMPLATES_PROPERTY = "bindingTemplates";
+	private static final String POLICIES_PROPERTY = "policies";
+	private static final String OPERATOR_POLICIES_PROPERTY = "operatorPolicies";
+
+	private final Validator validator;
+	private final List<String> violations = new ArrayList<>();
+	private int bindingCount;
+
+	public StreamingConfigReader(Validator validator) {
+		this.validator = validator;
+	}
+
+	/**
+	 * Read the configuration and hand over every binding, policies are validated but not handed over
+	 *
+	 * @param inputStream    configuration, not closed by this method
+	 * @param bindingHandler
+	 * @return number of bindings handed over
+	 * @throws RabbitMQProvisioningException when the configuration can't be read or is not valid
+	 */
+	public int read(InputStream inputStream, BindingHandler bindingHandler) throws RabbitMQProvisioningException {
+		return read(inputStream, bindingHandler, (virtualHostName, policy, operatorPolicy, policyPath) -> {
+		});
+	}
+
+	/**
+	 * Read the configuration and hand over every binding and policy
+	 *
+	 * @param inputStream    configuration, not closed by this method
+	 * @param bindingHandler
+	 * @param policyHandler
+	 * @return number of bindings handed over
+	 * @throws RabbitMQProvisioningException when the configuration can't be read or is not valid
+	 */
+	public int read(InputStream inputStream, BindingHandler bindingHandler, PolicyHandler policyHandler) throws RabbitMQProvisioningException {
+		JsonParser parser;
+		try {
+			parser = OBJECT_MAPPER.getFactory().createParser(inputStream);
+			parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+
+		try {
+			readConfig(parser, bindingHandler, policyHandler);
+		} catch (JsonProcessingException e) {
+			String message = String.format("Configuration can't be parsed at %s: %s", toPath(parser.getParsingContext()), e.getOriginalMessage());
+			LOGGER.error(message);
+			throw new RabbitMQProvisioningException(message);
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		} finally {
+			try {
+				parser.close();
+			} catch (IOException e) {
+				LOGGER.info("Unable to close parser: {}", e.getMessage());
+			}
+		}
+
+		if (!violations.isEmpty()) {
+			LOGGER.error("Configuration is not valid: {}", violations);
+			throw new RabbitMQProvisioningException(String.format("Configuration contains %s violation(s): %s", violations.size(), violations));
+		}
+		return bindingCount;
+	}
+
+	/**
+	 * Convert the parsing context into the same path notation used for violations
+	 *
+	 * @param context
+	 * @return path like virtualHosts[0].bindings[1].queue
+	 */
+	private static String toPath(JsonStreamContext context) {
+		StringBuilder path = new StringBuilder();
+		for (JsonStreamContext current = context; current != null && !current.inRoot(); current = current.getParent()) {
+			if (current.inArray()) {
+				path.insert(0, String.format("[%s]", current.getCurrentIndex()));
+			} else if (current.getCurrentName() != null) {
+				path.insert(0, current.getCurrentName()).insert(0, '.');
+			}
+		}
+		return path.length() > 0 && path.charAt(0) == '.' ? path.substring(1) : path.toString();
+	}
+
+	private void readConfig(JsonParser parser, BindingHandler bindingHandler, PolicyHandler policyHandler) throws IOException, RabbitMQProvisioningException {
+		if (parser.nextToken() != JsonToken.START_OBJECT) {
+			throw new RabbitMQProvisioningException("Configuration must be a JSON object");
+		}
+
+		String configName = null;
+		int virtualHostCount = 0;
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.currentName();
+			JsonToken valueToken = parser.nextToken();
+
+			if (CONFIG_NAME_PROPERTY.equals(fieldName)) {
+				configName = parser.getValueAsString();
+				LOGGER.info("Processing new RabbitMQ configration: {}", configName);
+			} else if (VIRTUAL_HOSTS_PROPERTY.equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					readVirtualHost(parser, String.format("virtualHosts[%s]", virtualHostCount++), bindingHandler, policyHandler);
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		if (configName == null) {
+			violations.add("configName: must not be null");
+		}
+		if (virtualHostCount == 0) {
+			violations.add("virtualHosts: must contain at least one virtual host");
+		}
+	}
+
+	private void readVirtualHost(JsonParser parser, String virtualHostPath, BindingHandler bindingHandler, PolicyHandler policyHandler)
+			throws IOException, RabbitMQProvisioningException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			violations.add(String.format("%s: must be an object", virtualHostPath));
+			parser.skipChildren();
+			return;
+		}
+
+		String virtualHostName = null;
+		boolean nameRead = false;
+		int virtualHostBindingCount = 0;
+		int virtualHostTemplateCount = 0;
+		// Bindings and templates read before the vhost name, keyed by path
+		Map<String, Binding> pendingBindings = new LinkedHashMap<>();
+		Map<String, BindingTemplateExpander> pendingTemplates = new LinkedHashMap<>();
+		Map<String, Policy> pendingPolicies = new LinkedHashMap<>();
+		Map<String, Policy> pendingOperatorPolicies = new LinkedHashMap<>();
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String fieldName = parser.currentName();
+			JsonToken valueToken = parser.nextToken();
+
+			if (NAME_PROPERTY.equals(fieldName)) {
+				virtualHostName = parser.getValueAsString();
+				nameRead = true;
+			} else if (BINDINGS_PROPERTY.equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					String bindingPath = String.format("%s.bindings[%s]", virtualHostPath, virtualHostBindingCount++);
+					Binding binding = readBinding(parser, bindingPath);
+					if (!isValid(binding, bindingPath)) {
+						continue;
+					}
+					if (nameRead) {
+						handle(virtualHostName, binding, bindingPath, bindingHandler);
+					} else {
+						pendingBindings.put(bindingPath, binding);
+					}
+				}
+			} else if (BINDING_TEMPLATES_PROPERTY.equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					String templatePath = String.format("%s.bindingTemplates[%s]", virtualHostPath, virtualHostTemplateCount++);
+					BindingTemplateExpander bindingTemplateExpander = readBindingTemplate(parser, templatePath);
+					if (bindingTemplateExpander == null) {
+						continue;
+					}
+					if (nameRead) {
+						expand(virtualHostName, bindingTemplateExpander, templatePath, bindingHandler);
+					} else {
+						pendingTemplates.put(templatePath, bindingTemplateExpander);
+					}
+				}
+			} else if ((POLICIES_PROPERTY.equals(fieldName) || OPERATOR_POLICIES_PROPERTY.equals(fieldName)) && valueToken == JsonToken.START_ARRAY) {
+				boolean operatorPolicy = OPERATOR_POLICIES_PROPERTY.equals(fieldName);
+				int policyCount = 0;
+				while (parser.nextToken() != JsonToken.END_ARRAY) {
+					String policyPath = String.format("%s.%s[%s]", virtualHostPath, fieldName, policyCount++);
+					Policy policy = readValue(parser, policyPath, Policy.class);
+					if (!isValid(policy, policyPath)) {
+						continue;
+					}
+					if (nameRead) {
+						handle(virtualHostName, policy, operatorPolicy, policyPath, policyHandler);
+					} else {
+						(operatorPolicy ? pendingOperatorPolicies : pendingPolicies).put(policyPath, policy);
+					}
+				}
+			} else {
+				parser.skipChildren();
+			}
+		}
+
+		if (virtualHostBindingCount == 0 && virtualHostTemplateCount == 0) {
+			violations.add(String.format("%s: must contain at least one binding or binding template", virtualHostPath));
+		}
+		for (Map.Entry<String, Binding> pendingBinding : pendingBindings.entrySet()) {
+			handle(virtualHostName, pendingBinding.getValue(), pendingBinding.getKey(), bindingHandler);
+		}
+		for (Map.Entry<String, BindingTemplateExpander> pendingTemplate : pendingTemplates.entrySet()) {
+			expand(virtualHostName, pendingTemplate.getValue(), pendingTemplate.getKey(), bindingHandler);
+		}
+		for (Map.Entry<String, Policy> pendingPolicy : pendingPolicies.entrySet()) {
+			handle(virtualHostName, pendingPolicy.getValue(), false, pendingPolicy.getKey(), policyHandler);
+		}
+		for (Map.Entry<String, Policy> pendingOperatorPolicy : pendingOperatorPolicies.entrySet()) {
+			handle(virtualHostName, pendingOperatorPolicy.getValue(), true, pendingOperatorPolicy.getKey(), policyHandler);
+		}
+	}
+
+	/**
+	 * Read, validate and compile a binding template
+	 *
+	 * @param parser
+	 * @param templatePath
+	 * @return BindingTemplateExpander, or null when the template is not valid
+	 */
+	private BindingTemplateExpander readBindingTemplate(JsonParser parser, String templatePath) throws IOException, RabbitMQProvisioningException {
+		BindingTemplate bindingTemplate = readValue(parser, templatePath, BindingTemplate.class);
+		if (bindingTemplate == null) {
+			violations.add(String.format("%s: must not be null", templatePath));
+			return null;
+		}
+		Set<ConstraintViolation<BindingTemplate>> templateViolations = validator.validate(bindingTemplate);
+		for (ConstraintViolation<BindingTemplate> violation : templateViolations) {
+			violations.add(String.format("%s.%s: %s", templatePath, violation.getPropertyPath(), violation.getMessage()));
+		}
+		if (!templateViolations.isEmpty()) {
+			return null;
+		}
+		try {
+			return new BindingTemplateExpander(bindingTemplate, templatePath);
+		} catch (RabbitMQProvisioningException e) {
+			violations.add(e.getMessage());
+			return null;
+		}
+	}
+
+	private void expand(String virtualHostName, BindingTemplateExpander bindingTemplateExpander, String templatePath, BindingHandler bindingHandler) {
+		if (StringUtils.isBlank(virtualHostName)) {
+			LOGGER.info("Configuration virtualhost name cannot be blank, skipping binding template at {}", templatePath);
+			return;
+		}
+		if (!violations.isEmpty()) {
+			return;
+		}
+		try {
+			bindingTemplateExpander.expand(virtualHostName, (expandedVirtualHostName, binding, bindingPath) -> handle(expandedVirtualHostName, binding,
+					bindingPath, bindingHandler));
+		} catch (RabbitMQProvisioningException e) {
+			violations.add(e.getMessage());
+		}
+	}
+
+	private Binding readBinding(JsonParser parser, String bindingPath) throws IOException, RabbitMQProvisioningException {
+		return readValue(parser, bindingPath, Binding.class);
+	}
+
+	private static <T> T readValue(JsonParser parser, String valuePath, Class<T> valueType) throws IOException, RabbitMQProvisioningException {
+		try {
+			return parser.readValueAs(valueType);
+		} catch (JsonMappingException e) {
+			// The parser position is unknown after a failed mapping, reading can't continue
+			StringBuilder path = new StringBuilder(valuePath);
+			for (JsonMappingException.Reference reference : e.getPath()) {
+				if (reference.getFieldName() != null) {
+					path.append('.').append(reference.getFieldName());
+				} else if (reference.getIndex() >= 0) {
+					path.append('[').append(reference.getIndex()).append(']');
+				}
+			}
+			String message = String.format("Configuration can't be read at %s: %s", path, e.getOriginalMessage());
+			LOGGER.error(message);
+			throw new RabbitMQProvisioningException(message);
+		}
+	}
+
+	private boolean isValid(Binding binding, String bindingPath) {
+		if (binding == null) {
+			violations.add(String.format("%s: must not be null", bindingPath));
+			return false;
+		}
+		for (ConstraintViolation<Binding> violation : validator.validate(binding)) {
+			violations.add(String.format("%s.%s: %s", bindingPath, violation.getPropertyPath(), violation.getMessage()));
+		}
+		return violations.isEmpty();
+	}
+
+	private boolean isValid(Policy policy, String policyPath) {
+		if (policy == null) {
+			violations.add(String.format("%s: must not be null", policyPath));
+			return false;
+		}
+		for (ConstraintViolation<Policy> violation : validator.validate(policy)) {
+			violations.add(String.format("%s.%s: %s", policyPath, violation.getPropertyPath(), violation.getMessage()));
+		}
+		return violations.isEmpty();
+	}
+
+	private void handle(String virtualHostName, Policy policy, boolean operatorPolicy, String policyPath, PolicyHandler policyHandler) {
+		if (StringUtils.isBlank(virtualHostName)) {
+			LOGGER.info("Configuration virtualhost name cannot be blank, skipping policy at {}", policyPath);
+			return;
+		}
+		if (violations.isEmpty()) {
+			policyHandler.handle(virtualHostName, policy, operatorPolicy, policyPath);
+		}
+	}
+
+	private void handle(String virtualHostName, Binding binding, String bindingPath, BindingHandler bindingHandler) {
+		// Check the name, it is needed to create all the underlying objects
+		if (StringUtils.isBlank(virtualHostName)) {
+			LOGGER.info("Configuration virtualhost name cannot be blank, skipping binding at {}", bindingPath);
+			return;
+		}
+		// Stop handing over bindings once the configuration is known to be invalid
+		if (violations.isEmpty()) {
+			bindingCount++;
+			bindingHandler.handle(virtualHostName, binding, bindingPath);
+		}
+	}
+
+}
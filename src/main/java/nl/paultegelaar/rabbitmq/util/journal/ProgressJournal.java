@@ -0,0 +1,264 @@
+package nl.paultegelaar.rabbitmq.util.journal;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.state.ProvisioningStateStore;
+
+/**
+ * Append-only journal of the objects provisioned by a run, so a failed or killed run can be resumed. The first line
+ * holds the fingerprint of the planned config, every following line is a CRC32 checksum followed by the key of a
+ * completed object. A resume only skips objects journalled for the same fingerprint.
+ *
+ * Records are buffered and synced to disk every sync batch size records or sync interval, whichever comes first, and
+ * when the journal is closed. Records written after the last sync may be lost when the process is killed, those objects
+ * are sent again. A torn or corrupt last record is detected by its checksum and cut off before appending.
+ *
+ */
+public class ProgressJournal implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProgressJournal.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final String HEADER_PREFIX = "journal ";
+	private static final int CHECKSUM_LENGTH = 8;
+
+	private final Path journalFile;
+	private final Set<String> completedKeys;
+	private final FileChannel channel;
+	private final Writer writer;
+	private final int syncBatchSize;
+	private final long syncIntervalNanos;
+	private int unsyncedRecords;
+	private long lastSyncNanos = System.nanoTime();
+	private boolean closed;
+
+	private ProgressJournal(Path journalFile, Set<String> completedKeys, FileChannel channel, int syncBatchSize, long syncIntervalMillis) {
+		this.journalFile = journalFile;
+		this.completedKeys = completedKeys;
+		this.channel = channel;
+		this.writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), 8192);
+		this.syncBatchSize = syncBatchSize;
+		this.syncIntervalNanos = syncIntervalMillis * 1_000_000L;
+	}
+
+	/**
+	 * Open the journal of a config. An existing journal is resumed when requested and written for the same config,
+	 * otherwise it is replaced by an empty one.
+	 *
+	 * @param journalFile
+	 * @param configFingerprint  see {@link #fingerprint(ProvisioningPlan, String)}
+	 * @param resume             skip the objects journalled by an earlier run
+	 * @param syncBatchSize      records written before syncing to disk
+	 * @param syncIntervalMillis maximum time between syncs while records are written
+	 * @return ProgressJournal
+	 * @throws IOException
+	 */
+	public static ProgressJournal open(Path journalFile, String configFingerprint, boolean resume, int syncBatchSize, long syncIntervalMillis)
+			throws IOException {
+		String header = HEADER_PREFIX.concat(configFingerprint);
+		Set<String> completedKeys = new HashSet<>();
+		long validLength = -1;
+		if (resume && Files.exists(journalFile)) {
+			validLength = readJournal(Files.readAllBytes(journalFile), header, completedKeys);
+			if (validLength < 0) {
+				LOGGER.info("Journal {} belongs to another config, applying all objects", journalFile);
+			} else {
+				LOGGER.info("Resuming from journal {}, {} object(s) already completed", journalFile, completedKeys.size());
+			}
+		}
+
+		FileChannel channel;
+		if (validLength >= 0) {
+			channel = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+			// Cut off a torn last record, new records are appended after the last complete one
+			channel.truncate(validLength);
+			channel.position(validLength);
+		} else {
+			Path directory = journalFile.toAbsolutePath().getParent();
+			Files.createDirectories(directory);
+			channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		ProgressJournal progressJournal = new ProgressJournal(journalFile, completedKeys, channel, syncBatchSize, syncIntervalMillis);
+		if (validLength < 0) {
+			progressJournal.writer.write(header);
+			progressJournal.writer.write('\n');
+			progressJournal.sync();
+		}
+		return progressJournal;
+	}
+
+	/**
+	 * Read the completed keys of a journal
+	 *
+	 * @param content
+	 * @param header        expected first line
+	 * @param completedKeys filled with the key of every valid record
+	 * @return length of the header and all valid records, -1 when the header doesn't match
+	 */
+	static long readJournal(byte[] content, String header, Set<String> completedKeys) {
+		int lineStart = 0;
+		boolean headerRead = false;
+		for (int index = 0; index < content.length; index++) {
+			if (content[index] != '\n') {
+				continue;
+			}
+			String line = new String(content, lineStart, index - lineStart, StandardCharsets.UTF_8);
+			if (!headerRead) {
+				if (!header.equals(line)) {
+					return -1;
+				}
+				headerRead = true;
+			} else {
+				String key = parseRecord(line);
+				if (key == null) {
+					// Everything after a corrupt record is ignored
+					break;
+				}
+				completedKeys.add(key);
+			}
+			lineStart = index + 1;
+		}
+		// The last line without a newline is an incomplete record
+		return headerRead ? lineStart : -1;
+	}
+
+	/**
+	 * @param plannedObject
+	 * @return true when the object was journalled by an earlier run of the same config
+	 */
+	public synchronized boolean isCompleted(PlannedObject plannedObject) {
+		return completedKeys.contains(journalKey(plannedObject.getKey()));
+	}
+
+	/**
+	 * Append a completed object, synced with the next batch. Safe to call from multiple threads.
+	 *
+	 * @param plannedObject
+	 * @throws IOException
+	 */
+	public synchronized void recordCompleted(PlannedObject plannedObject) throws IOException {
+		String key = journalKey(plannedObject.getKey());
+		if (!completedKeys.add(key)) {
+			return;
+		}
+		writer.write(checksum(key));
+		writer.write(' ');
+		writer.write(key);
+		writer.write('\n');
+		if (++unsyncedRecords >= syncBatchSize || System.nanoTime() - lastSyncNanos >= syncIntervalNanos) {
+			sync();
+		}
+	}
+
+	/**
+	 * Write all records to disk
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void sync() throws IOException {
+		writer.flush();
+		channel.force(false);
+		unsyncedRecords = 0;
+		lastSyncNanos = System.nanoTime();
+	}
+
+	/**
+	 * The whole config has been provisioned, the journal is removed so the next run starts from the first object
+	 *
+	 * @throws IOException
+	 */
+	public void complete() throws IOException {
+		close();
+		Files.deleteIfExists(journalFile);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			sync();
+		} finally {
+			writer.close();
+		}
+	}
+
+	/**
+	 * Fingerprint of everything a plan sends to an endpoint, changes to any object or its order start a new journal
+	 *
+	 * @param provisioningPlan
+	 * @param endpoint         management API the plan is provisioned to
+	 * @return hex encoded SHA-256 hash
+	 */
+	public static String fingerprint(ProvisioningPlan provisioningPlan, String endpoint) {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			messageDigest.update(String.valueOf(endpoint).getBytes(StandardCharsets.UTF_8));
+			for (PlannedObject plannedObject : provisioningPlan.getObjects()) {
+				messageDigest.update((byte) '\n');
+				messageDigest.update(ProvisioningStateStore.fingerprint(plannedObject).getBytes(StandardCharsets.UTF_8));
+			}
+			return String.format("%064x", new BigInteger(1, messageDigest.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * @param line
+	 * @return key of the record, null when the checksum doesn't match
+	 */
+	private static String parseRecord(String line) {
+		if (line.length() <= CHECKSUM_LENGTH + 1 || line.charAt(CHECKSUM_LENGTH) != ' ') {
+			return null;
+		}
+		String key = line.substring(CHECKSUM_LENGTH + 1);
+		return checksum(key).equals(line.substring(0, CHECKSUM_LENGTH)) ? key : null;
+	}
+
+	private static String checksum(String key) {
+		CRC32 crc32 = new CRC32();
+		crc32.update(key.getBytes(StandardCharsets.UTF_8));
+		return String.format("%08x", crc32.getValue());
+	}
+
+	/**
+	 * Unambiguous single line key, vhost and object names may contain any character
+	 *
+	 * @param objectKey
+	 * @return JSON array containing type, vhost and name
+	 */
+	private static String journalKey(ObjectKey objectKey) {
+		try {
+			return OBJECT_MAPPER.writeValueAsString(Arrays.asList(objectKey.getObjectType().name(), objectKey.getVirtualHostName(), objectKey.getName()));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,184 @@
+package nl.paultegelaar.rabbitmq.util.metrics;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Exports {@link ProvisioningMetrics} as JSON or in the Prometheus text format. Files are replaced atomically, so a
+ * scraper never reads a partially written file.
+ *
+ */
+public final class MetricsExporter {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final String PROMETHEUS_PREFIX = "rabbitmq_provisioning_";
+	private static final double[] EXPORTED_PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private MetricsExporter() {
+	}
+
+	/**
+	 * @param provisioningMetrics
+	 * @return JSON document containing the run totals and every operation that sent requests
+	 * @throws IOException
+	 */
+	public static String toJson(ProvisioningMetrics provisioningMetrics) throws IOException {
+		Map<String, Object> root = new LinkedHashMap<>();
+		root.put("runDurationSeconds", toSeconds(provisioningMetrics.getRunDurationNanos()));
+		root.put("objects", provisioningMetrics.getObjectCount());
+		root.put("objectsPerSecond", provisioningMetrics.getObjectsPerSecond());
+		root.put("tlsFullHandshakes", provisioningMetrics.getTlsFullHandshakeCount());
+		root.put("tlsResumedSessions", provisioningMetrics.getTlsResumedSessionCount());
+
+		Map<String, Object> operations = new LinkedHashMap<>();
+		for (Map.Entry<Operation, OperationMetrics> entry : provisioningMetrics.getOperationMetrics().entrySet()) {
+			OperationMetrics metrics = entry.getValue();
+			if (metrics.getRequestCount() == 0) {
+				continue;
+			}
+			Map<String, Object> operation = new LinkedHashMap<>();
+			operation.put("requests", metrics.getRequestCount());
+			operation.put("failures", metrics.getFailureCount());
+			operation.put("ioErrors", metrics.getIOErrorCount());
+			operation.put("retries", metrics.getRetryCount());
+			Map<String, Long> statusCodes = new LinkedHashMap<>();
+			metrics.getStatusCounts().forEach((statusCode, count) -> statusCodes.put(String.valueOf(statusCode), count));
+			operation.put("statusCodes", statusCodes);
+
+			Map<String, Object> latency = new LinkedHashMap<>();
+			latency.put("mean", metrics.getMeanLatencyMicros() / 1000.0);
+			for (double percentile : EXPORTED_PERCENTILES) {
+				latency.put("p".concat(BigDecimal.valueOf(percentile).stripTrailingZeros().toPlainString().replace('.', '_')),
+						metrics.getLatencyPercentileMicros(percentile) / 1000.0);
+			}
+			latency.put("max", metrics.getMaxLatencyMicros() / 1000.0);
+			operation.put("latencyMillis", latency);
+
+			operations.put(entry.getKey().getMetricName(), operation);
+		}
+		root.put("operations", operations);
+		return OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsString(root);
+	}
+
+	/**
+	 * @param provisioningMetrics
+	 * @return metrics in the Prometheus text exposition format
+	 */
+	public static String toPrometheus(ProvisioningMetrics provisioningMetrics) {
+		StringBuilder text = new StringBuilder();
+		Map<Operation, OperationMetrics> operationMetrics = provisioningMetrics.getOperationMetrics();
+
+		header(text, "request_duration_seconds", "summary", "Latency of management API requests");
+		operationMetrics.forEach((operation, metrics) -> {
+			if (metrics.getRequestCount() == 0) {
+				return;
+			}
+			for (double percentile : EXPORTED_PERCENTILES) {
+				sample(text, "request_duration_seconds", String.format("operation=\"%s\",quantile=\"%s\"", operation.getMetricName(),
+						BigDecimal.valueOf(percentile).movePointLeft(2).stripTrailingZeros().toPlainString()),
+						metrics.getLatencyPercentileMicros(percentile) / 1_000_000.0);
+			}
+			sample(text, "request_duration_seconds_sum", label(operation), metrics.getLatencySumMicros() / 1_000_000.0);
+			sample(text, "request_duration_seconds_count", label(operation), metrics.getRequestCount());
+		});
+
+		header(text, "requests_total", "counter", "Management API responses by HTTP status code");
+		operationMetrics.forEach((operation, metrics) -> metrics.getStatusCounts().forEach((statusCode, count) -> sample(text, "requests_total",
+				String.format("operation=\"%s\",status=\"%s\"", operation.getMetricName(), statusCode), count)));
+
+		header(text, "failures_total", "counter", "Management API requests with an unsuccessful status code or without response");
+		operationMetrics.forEach((operation, metrics) -> {
+			if (metrics.getRequestCount() > 0) {
+				sample(text, "failures_total", label(operation), metrics.getFailureCount());
+			}
+		});
+
+		header(text, "retries_total", "counter", "Management API requests sent again");
+		operationMetrics.forEach((operation, metrics) -> {
+			if (metrics.getRequestCount() > 0) {
+				sample(text, "retries_total", label(operation), metrics.getRetryCount());
+			}
+		});
+
+		header(text, "run_duration_seconds", "gauge", "Duration of the provisioning run");
+		sample(text, "run_duration_seconds", null, toSeconds(provisioningMetrics.getRunDurationNanos()));
+		header(text, "objects", "gauge", "Objects provisioned in the run");
+		sample(text, "objects", null, provisioningMetrics.getObjectCount());
+		header(text, "objects_per_second", "gauge", "Objects provisioned per second of run time");
+		sample(text, "objects_per_second", null, provisioningMetrics.getObjectsPerSecond());
+		header(text, "tls_handshakes_total", "counter", "TLS handshakes of new management API connections");
+		sample(text, "tls_handshakes_total", "session=\"full\"", provisioningMetrics.getTlsFullHandshakeCount());
+		sample(text, "tls_handshakes_total", "session=\"resumed\"", provisioningMetrics.getTlsResumedSessionCount());
+		return text.toString();
+	}
+
+	/**
+	 * Write the metrics as JSON
+	 *
+	 * @param provisioningMetrics
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writeJson(ProvisioningMetrics provisioningMetrics, Path file) throws IOException {
+		write(toJson(provisioningMetrics), file);
+	}
+
+	/**
+	 * Write the metrics in the Prometheus text format, e.g. for the node exporter textfile collector
+	 *
+	 * @param provisioningMetrics
+	 * @param file
+	 * @throws IOException
+	 */
+	public static void writePrometheus(ProvisioningMetrics provisioningMetrics, Path file) throws IOException {
+		write(toPrometheus(provisioningMetrics), file);
+	}
+
+	private static void write(String content, Path file) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporaryFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			Files.write(temporaryFile, content.getBytes(StandardCharsets.UTF_8));
+			try {
+				Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+	}
+
+	private static void header(StringBuilder text, String name, String type, String help) {
+		text.append("# HELP ").append(PROMETHEUS_PREFIX).append(name).append(' ').append(help).append('\n');
+		text.append("# TYPE ").append(PROMETHEUS_PREFIX).append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void sample(StringBuilder text, String name, String labels, double value) {
+		text.append(PROMETHEUS_PREFIX).append(name);
+		if (labels != null) {
+			text.append('{').append(labels).append('}');
+		}
+		text.append(' ').append(value == Math.rint(value) ? String.valueOf((long) value) : String.valueOf(value)).append('\n');
+	}
+
+	private static String label(Operation operation) {
+		return String.format("operation=\"%s\"", operation.getMetricName());
+	}
+
+	private static double toSeconds(long nanos) {
+		return nanos / (double) TimeUnit.SECONDS.toNanos(1);
+	}
+
+}
@@ -0,0 +1,68 @@
+package nl.paultegelaar.rabbitmq.util.metrics;
+
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * Kind of management API call, latencies and counters are kept per operation.
+ *
+ */
+public enum Operation {
+
+	VHOST_CHECK("vhost_check"),
+	QUEUE_UPSERT("queue_upsert"),
+	DEAD_LETTER_QUEUE_UPSERT("dead_letter_queue_upsert"),
+	EXCHANGE_UPSERT("exchange_upsert"),
+	EXCHANGE_GET("exchange_get"),
+	BINDING_CREATE("binding_create"),
+	POLICY_UPSERT("policy_upsert"),
+	OPERATOR_POLICY_UPSERT("operator_policy_upsert"),
+	DEFINITIONS_UPLOAD("definitions_upload"),
+	DEFINITIONS_DOWNLOAD("definitions_download"),
+	BINDINGS_DOWNLOAD("bindings_download"),
+	QUEUES_LIST("queues_list"),
+	EXCHANGES_LIST("exchanges_list"),
+	BINDINGS_LIST("bindings_list"),
+	POLICIES_LIST("policies_list"),
+	QUEUE_DELETE("queue_delete"),
+	EXCHANGE_DELETE("exchange_delete"),
+	BINDING_DELETE("binding_delete");
+
+	private final String metricName;
+
+	Operation(String metricName) {
+		this.metricName = metricName;
+	}
+
+	/**
+	 * @param plannedObject
+	 * @return operation creating or checking the object
+	 */
+	public static Operation of(PlannedObject plannedObject) {
+		switch (plannedObject.getObjectType()) {
+		case VHOST:
+			return VHOST_CHECK;
+		case QUEUE:
+			return QUEUE_UPSERT;
+		case DEAD_LETTER_QUEUE:
+			return DEAD_LETTER_QUEUE_UPSERT;
+		case EXCHANGE:
+			return plannedObject.isExistenceCheck() ? EXCHANGE_GET : EXCHANGE_UPSERT;
+		case BINDING:
+			return BINDING_CREATE;
+		case POLICY:
+			return POLICY_UPSERT;
+		case OPERATOR_POLICY:
+			return OPERATOR_POLICY_UPSERT;
+		default:
+			throw new IllegalArgumentException(String.format("Unsupported object type: %s", plannedObject.getObjectType()));
+		}
+	}
+
+	/**
+	 * @return name used in the summary and the exported metrics
+	 */
+	public String getMetricName() {
+		return metricName;
+	}
+
+}
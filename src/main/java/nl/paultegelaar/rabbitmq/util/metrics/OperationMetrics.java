@@ -0,0 +1,121 @@
+package nl.paultegelaar.rabbitmq.util.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import nl.paultegelaar.rabbitmq.util.transport.ManagementAPIResponse;
+
+/**
+ * Latency histogram and counters of a single operation. Recording is thread safe and doesn't lock.
+ *
+ */
+public class OperationMetrics {
+
+	// Latencies are recorded in microseconds, up to an hour with 3 significant digits
+	private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.HOURS.toMicros(1);
+	private static final int SIGNIFICANT_DIGITS = 3;
+
+	private final Histogram latencyHistogram = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, SIGNIFICANT_DIGITS);
+	private final LongAdder latencySumMicros = new LongAdder();
+	private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+	private final LongAdder failures = new LongAdder();
+	private final LongAdder ioErrors = new LongAdder();
+	private final LongAdder retries = new LongAdder();
+
+	void recordResponse(int statusCode, long durationNanos) {
+		recordLatency(durationNanos);
+		statusCounts.computeIfAbsent(statusCode, key -> new LongAdder()).increment();
+		if (!ManagementAPIResponse.isSuccessful(statusCode)) {
+			failures.increment();
+		}
+	}
+
+	void recordIOError(long durationNanos) {
+		recordLatency(durationNanos);
+		ioErrors.increment();
+		failures.increment();
+	}
+
+	void recordRetry() {
+		retries.increment();
+	}
+
+	void reset() {
+		latencyHistogram.reset();
+		latencySumMicros.reset();
+		statusCounts.clear();
+		failures.reset();
+		ioErrors.reset();
+		retries.reset();
+	}
+
+	private void recordLatency(long durationNanos) {
+		long durationMicros = Math.min(Math.max(TimeUnit.NANOSECONDS.toMicros(durationNanos), 1), HIGHEST_TRACKABLE_MICROS);
+		latencyHistogram.recordValue(durationMicros);
+		latencySumMicros.add(durationMicros);
+	}
+
+	/**
+	 * @return number of requests, including the ones that failed with an I/O error
+	 */
+	public long getRequestCount() {
+		return latencyHistogram.getTotalCount();
+	}
+
+	/**
+	 * @return number of requests with a status outside the 200 range or an I/O error
+	 */
+	public long getFailureCount() {
+		return failures.sum();
+	}
+
+	/**
+	 * @return number of requests without a response
+	 */
+	public long getIOErrorCount() {
+		return ioErrors.sum();
+	}
+
+	public long getRetryCount() {
+		return retries.sum();
+	}
+
+	/**
+	 * @return number of responses per HTTP status code, ordered by status code
+	 */
+	public Map<Integer, Long> getStatusCounts() {
+		Map<Integer, Long> counts = new TreeMap<>();
+		statusCounts.forEach((statusCode, count) -> counts.put(statusCode, count.sum()));
+		return counts;
+	}
+
+	/**
+	 * @return sum of all latencies in microseconds
+	 */
+	public long getLatencySumMicros() {
+		return latencySumMicros.sum();
+	}
+
+	/**
+	 * @param percentile between 0 and 100
+	 * @return latency in microseconds
+	 */
+	public long getLatencyPercentileMicros(double percentile) {
+		return latencyHistogram.getValueAtPercentile(percentile);
+	}
+
+	public long getMaxLatencyMicros() {
+		return latencyHistogram.getMaxValue();
+	}
+
+	public double getMeanLatencyMicros() {
+		return latencyHistogram.getMean();
+	}
+
+}
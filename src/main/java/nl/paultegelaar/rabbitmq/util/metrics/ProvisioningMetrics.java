@@ -0,0 +1,161 @@
+package nl.paultegelaar.rabbitmq.util.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and counters of a provisioning run, per operation. A run starts with {@link #startRun()}, which clears
+ * the previous run, and ends with {@link #finishRun()}.
+ *
+ */
+public class ProvisioningMetrics {
+
+	private static final double[] SUMMARY_PERCENTILES = { 50, 90, 99 };
+
+	private final Map<Operation, OperationMetrics> operationMetrics = new EnumMap<>(Operation.class);
+	private final LongAdder objectCount = new LongAdder();
+	private final LongAdder tlsFullHandshakeCount = new LongAdder();
+	private final LongAdder tlsResumedSessionCount = new LongAdder();
+	private volatile long runStartNanos = System.nanoTime();
+	private volatile long runDurationNanos;
+
+	public ProvisioningMetrics() {
+		for (Operation operation : Operation.values()) {
+			operationMetrics.put(operation, new OperationMetrics());
+		}
+	}
+
+	/**
+	 * Clear everything and start timing a new run
+	 */
+	public void startRun() {
+		operationMetrics.values().forEach(OperationMetrics::reset);
+		objectCount.reset();
+		tlsFullHandshakeCount.reset();
+		tlsResumedSessionCount.reset();
+		runDurationNanos = 0;
+		runStartNanos = System.nanoTime();
+	}
+
+	/**
+	 * Stop timing the run
+	 */
+	public void finishRun() {
+		runDurationNanos = System.nanoTime() - runStartNanos;
+	}
+
+	/**
+	 * Record a request which received a response
+	 *
+	 * @param operation
+	 * @param statusCode
+	 * @param durationNanos time between sending the request and receiving the complete response
+	 */
+	public void recordResponse(Operation operation, int statusCode, long durationNanos) {
+		operationMetrics.get(operation).recordResponse(statusCode, durationNanos);
+	}
+
+	/**
+	 * Record a request which failed without a response
+	 *
+	 * @param operation
+	 * @param durationNanos time until the request failed
+	 */
+	public void recordIOError(Operation operation, long durationNanos) {
+		operationMetrics.get(operation).recordIOError(durationNanos);
+	}
+
+	/**
+	 * Record a request being sent again
+	 *
+	 * @param operation
+	 */
+	public void recordRetry(Operation operation) {
+		operationMetrics.get(operation).recordRetry();
+	}
+
+	/**
+	 * Record successfully provisioned objects
+	 *
+	 * @param count
+	 */
+	public void recordObjects(int count) {
+		objectCount.add(count);
+	}
+
+	/**
+	 * Record a TLS handshake of a new connection
+	 *
+	 * @param resumed true when an earlier session was resumed instead of negotiating a new one
+	 */
+	public void recordTlsHandshake(boolean resumed) {
+		(resumed ? tlsResumedSessionCount : tlsFullHandshakeCount).increment();
+	}
+
+	/**
+	 * @return metrics of every operation
+	 */
+	public Map<Operation, OperationMetrics> getOperationMetrics() {
+		return Collections.unmodifiableMap(operationMetrics);
+	}
+
+	/**
+	 * @return duration of the last finished run, or of the current run so far
+	 */
+	public long getRunDurationNanos() {
+		return runDurationNanos > 0 ? runDurationNanos : System.nanoTime() - runStartNanos;
+	}
+
+	public long getObjectCount() {
+		return objectCount.sum();
+	}
+
+	public long getTlsFullHandshakeCount() {
+		return tlsFullHandshakeCount.sum();
+	}
+
+	public long getTlsResumedSessionCount() {
+		return tlsResumedSessionCount.sum();
+	}
+
+	/**
+	 * @return provisioned objects per second of run time
+	 */
+	public double getObjectsPerSecond() {
+		double seconds = getRunDurationNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+		return seconds > 0 ? getObjectCount() / seconds : 0;
+	}
+
+	/**
+	 * @return human readable summary of the run, one line per operation that sent requests
+	 */
+	public String summary() {
+		StringBuilder summary = new StringBuilder();
+		summary.append(String.format("Provisioning run took %.3f s, %s object(s), %.1f object(s)/s%n",
+				getRunDurationNanos() / (double) TimeUnit.SECONDS.toNanos(1), getObjectCount(), getObjectsPerSecond()));
+		summary.append(String.format("%-26s %9s %9s %8s %10s %10s %10s %10s%n", "operation", "requests", "failures", "retries",
+				"p50 ms", "p90 ms", "p99 ms", "max ms"));
+
+		for (Map.Entry<Operation, OperationMetrics> entry : operationMetrics.entrySet()) {
+			OperationMetrics metrics = entry.getValue();
+			if (metrics.getRequestCount() == 0) {
+				continue;
+			}
+			summary.append(String.format("%-26s %9s %9s %8s", entry.getKey().getMetricName(), metrics.getRequestCount(),
+					metrics.getFailureCount(), metrics.getRetryCount()));
+			for (double percentile : SUMMARY_PERCENTILES) {
+				summary.append(String.format(" %10.2f", metrics.getLatencyPercentileMicros(percentile) / 1000.0));
+			}
+			summary.append(String.format(" %10.2f%n", metrics.getMaxLatencyMicros() / 1000.0));
+		}
+		if (getTlsFullHandshakeCount() + getTlsResumedSessionCount() > 0) {
+			summary.append(String.format("TLS connections: %s full handshake(s), %s resumed session(s)%n", getTlsFullHandshakeCount(),
+					getTlsResumedSessionCount()));
+		}
+		return summary.toString();
+	}
+
+}
@@ -0,0 +1,60 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+import java.util.Objects;
+
+/**
+ * Identifies a provisioned object by virtual host, type and name, two declarations with the same key describe the same
+ * object on the broker.
+ *
+ */
+public final class ObjectKey {
+
+	private final String virtualHostName;
+	private final ObjectType objectType;
+	private final String name;
+
+	public ObjectKey(String virtualHostName, ObjectType objectType, String name) {
+		this.virtualHostName = virtualHostName;
+		this.objectType = objectType;
+		this.name = name;
+	}
+
+	public String getVirtualHostName() {
+		return virtualHostName;
+	}
+
+	public ObjectType getObjectType() {
+		return objectType;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(virtualHostName, objectType, name);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ObjectKey)) {
+			return false;
+		}
+		ObjectKey other = (ObjectKey) obj;
+		return objectType == other.objectType && Objects.equals(virtualHostName, other.virtualHostName)
+				&& Objects.equals(name, other.name);
+	}
+
+	@Override
+	public String toString() {
+		if (objectType == ObjectType.VHOST) {
+			return String.format("vhost '%s'", virtualHostName);
+		}
+		return String.format("%s '%s' in vhost '%s'", objectType.getDisplayName(), name, virtualHostName);
+	}
+
+}
@@ -0,0 +1,27 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+/**
+ * Types of objects provisioned on the broker.
+ *
+ */
+public enum ObjectType {
+
+	VHOST("vhost"),
+	QUEUE("queue"),
+	DEAD_LETTER_QUEUE("dead letter queue"),
+	EXCHANGE("exchange"),
+	BINDING("binding"),
+	POLICY("policy"),
+	OPERATOR_POLICY("operator policy");
+
+	private final String displayName;
+
+	ObjectType(String displayName) {
+		this.displayName = displayName;
+	}
+
+	public String getDisplayName() {
+		return displayName;
+	}
+
+}
@@ -0,0 +1,98 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A unique object in the provisioning plan, containing everything needed to create it on the broker.
+ *
+ */
+public class PlannedObject {
+
+	private final ObjectKey key;
+	private final Map<String, Object> payload;
+	private final boolean existenceCheck;
+	private final List<ObjectKey> dependencies;
+	private final String source;
+	private final String exchangeName;
+	private final String queueName;
+
+	/**
+	 * Create planned object
+	 *
+	 * @param key
+	 * @param payload        body sent to the management API, empty for existence checks
+	 * @param existenceCheck true when the object must already exist and is only checked
+	 * @param dependencies   objects which must exist before this one can be created
+	 * @param source         JSON path of the first declaration in the configuration
+	 * @param exchangeName   source exchange, only for bindings
+	 * @param queueName      destination queue, only for bindings
+	 */
+	public PlannedObject(ObjectKey key, Map<String, Object> payload, boolean existenceCheck, List<ObjectKey> dependencies,
+			String source, String exchangeName, String queueName) {
+		this.key = key;
+		this.payload = Collections.unmodifiableMap(payload);
+		this.existenceCheck = existenceCheck;
+		this.dependencies = Collections.unmodifiableList(dependencies);
+		this.source = source;
+		this.exchangeName = exchangeName;
+		this.queueName = queueName;
+	}
+
+	public ObjectKey getKey() {
+		return key;
+	}
+
+	public ObjectType getObjectType() {
+		return key.getObjectType();
+	}
+
+	public String getVirtualHostName() {
+		return key.getVirtualHostName();
+	}
+
+	public String getName() {
+		return key.getName();
+	}
+
+	public Map<String, Object> getPayload() {
+		return payload;
+	}
+
+	public boolean isExistenceCheck() {
+		return existenceCheck;
+	}
+
+	public List<ObjectKey> getDependencies() {
+		return dependencies;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public String getExchangeName() {
+		return exchangeName;
+	}
+
+	public String getQueueName() {
+		return queueName;
+	}
+
+	/**
+	 * Copy this object with other dependencies, used when dependencies are left out of a plan
+	 *
+	 * @param otherDependencies
+	 * @return PlannedObject with the given dependencies
+	 */
+	public PlannedObject withDependencies(List<ObjectKey> otherDependencies) {
+		return new PlannedObject(key, payload, existenceCheck, otherDependencies, source, exchangeName, queueName);
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s (%s)", key, source);
+	}
+
+}
@@ -0,0 +1,114 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * The unique objects to provision, ordered so every object comes after the objects it depends on.
+ *
+ */
+public class ProvisioningPlan {
+
+	private final Map<ObjectKey, PlannedObject> plannedObjects;
+	private final int declarationCount;
+
+	public ProvisioningPlan(Map<ObjectKey, PlannedObject> plannedObjects, int declarationCount) {
+		this.plannedObjects = Collections.unmodifiableMap(new LinkedHashMap<>(plannedObjects));
+		this.declarationCount = declarationCount;
+	}
+
+	/**
+	 * @return all objects in dependency order
+	 */
+	public Collection<PlannedObject> getObjects() {
+		return plannedObjects.values();
+	}
+
+	/**
+	 * @param key
+	 * @return object or null when not part of the plan
+	 */
+	public PlannedObject getObject(ObjectKey key) {
+		return plannedObjects.get(key);
+	}
+
+	public Set<ObjectKey> getKeys() {
+		return plannedObjects.keySet();
+	}
+
+	/**
+	 * @param virtualHostName
+	 * @return objects of one virtual host in dependency order
+	 */
+	public List<PlannedObject> getObjects(String virtualHostName) {
+		List<PlannedObject> objects = new ArrayList<>();
+		for (PlannedObject plannedObject : plannedObjects.values()) {
+			if (plannedObject.getVirtualHostName().equals(virtualHostName)) {
+				objects.add(plannedObject);
+			}
+		}
+		return objects;
+	}
+
+	/**
+	 * @return names of the virtual hosts containing objects in the plan
+	 */
+	public List<String> getVirtualHostNames() {
+		Set<String> virtualHostNames = new LinkedHashSet<>();
+		for (ObjectKey key : plannedObjects.keySet()) {
+			virtualHostNames.add(key.getVirtualHostName());
+		}
+		return new ArrayList<>(virtualHostNames);
+	}
+
+	/**
+	 * Create a plan containing only the objects matching the filter. Dependencies on objects which are left out are
+	 * dropped, those objects are assumed to exist already.
+	 *
+	 * @param filter
+	 * @return ProvisioningPlan with the retained objects in the same order
+	 */
+	public ProvisioningPlan filter(Predicate<PlannedObject> filter) {
+		Map<ObjectKey, PlannedObject> retainedObjects = new LinkedHashMap<>();
+		for (PlannedObject plannedObject : plannedObjects.values()) {
+			if (!filter.test(plannedObject)) {
+				continue;
+			}
+			List<ObjectKey> retainedDependencies = new ArrayList<>(plannedObject.getDependencies().size());
+			for (ObjectKey dependency : plannedObject.getDependencies()) {
+				if (retainedObjects.containsKey(dependency)) {
+					retainedDependencies.add(dependency);
+				}
+			}
+			retainedObjects.put(plannedObject.getKey(), retainedDependencies.size() == plannedObject.getDependencies().size()
+					? plannedObject : plannedObject.withDependencies(retainedDependencies));
+		}
+		return new ProvisioningPlan(retainedObjects, declarationCount);
+	}
+
+	/**
+	 * @return number of unique objects
+	 */
+	public int size() {
+		return plannedObjects.size();
+	}
+
+	/**
+	 * @return number of object declarations in the configuration, before deduplication
+	 */
+	public int getDeclarationCount() {
+		return declarationCount;
+	}
+
+	public boolean isEmpty() {
+		return plannedObjects.isEmpty();
+	}
+
+}
@@ -0,0 +1,377 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.config.Binding;
+import nl.paultegelaar.rabbitmq.config.BindingTemplate;
+import nl.paultegelaar.rabbitmq.config.Exchange;
+import nl.paultegelaar.rabbitmq.config.Policy;
+import nl.paultegelaar.rabbitmq.config.Queue;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.config.VirtualHost;
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.template.BindingTemplateExpander;
+
+/**
+ * Collapses the bindings of a configuration into unique objects keyed by virtual host, type and name. Every vhost,
+ * queue, dead letter queue, exchange and binding is planned once, no matter how many bindings declare it. Declarations
+ * of the same object with different settings are collected as conflicts.
+ *
+ * With policy queue settings the dead letter exchange, message TTL and max length of the queues are planned as a few
+ * generated policies instead of queue arguments, one per distinct combination of settings in a vhost. A generated
+ * policy is named after its dead letter exchange. Its queues are matched by a shared name prefix when no other planned
+ * queue of the vhost starts with it, otherwise by name.
+ *
+ */
+public class ProvisioningPlanBuilder {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningPlanBuilder.class);
+	private static final String NAME_SEPARATORS = ".-_";
+
+	private final ApplicationConfig applicationConfig;
+	private final Map<ObjectKey, PlannedObject> plannedObjects = new LinkedHashMap<>();
+	private final List<String> conflicts = new ArrayList<>();
+	// Queue names per vhost and policy definition, only used with policy queue settings
+	private final Map<String, Map<Map<String, Object>, List<String>>> queueSettingsPolicies = new LinkedHashMap<>();
+	private final Map<ObjectKey, Map<String, Object>> queuePolicyDefinitions = new HashMap<>();
+	private int declarationCount;
+
+	public ProvisioningPlanBuilder(ApplicationConfig applicationConfig) {
+		this.applicationConfig = applicationConfig;
+	}
+
+	/**
+	 * Add all bindings and binding templates of a configuration
+	 *
+	 * @param rabbitMQObjects
+	 * @return this builder
+	 * @throws RabbitMQProvisioningException when a binding template is not valid or generates duplicate bindings
+	 */
+	public ProvisioningPlanBuilder add(RabbitMQObjects rabbitMQObjects) throws RabbitMQProvisioningException {
+		return add(rabbitMQObjects, null);
+	}
+
+	/**
+	 * Add all bindings and binding templates of one of several config files, conflicts name the file
+	 *
+	 * @param rabbitMQObjects
+	 * @param source          config file, prepended to the JSON paths, may be null
+	 * @return this builder
+	 * @throws RabbitMQProvisioningException when a binding template is not valid or generates duplicate bindings
+	 */
+	public ProvisioningPlanBuilder add(RabbitMQObjects rabbitMQObjects, String source) throws RabbitMQProvisioningException {
+		String sourcePrefix = source == null ? "" : source + ":";
+		List<VirtualHost> virtualHosts = rabbitMQObjects.getVirtualHosts();
+		if (CollectionUtils.isEmpty(virtualHosts)) {
+			return this;
+		}
+
+		for (int virtualHostIndex = 0; virtualHostIndex < virtualHosts.size(); virtualHostIndex++) {
+			VirtualHost virtualHost = virtualHosts.get(virtualHostIndex);
+			String virtualHostPath = String.format("%svirtualHosts[%s]", sourcePrefix, virtualHostIndex);
+			// Check the name, it is needed to create all the underlying objects, also check
+			// if there are any bindings
+			if (StringUtils.isBlank(virtualHost.getName())
+					|| (CollectionUtils.isEmpty(virtualHost.getBindings()) && CollectionUtils.isEmpty(virtualHost.getBindingTemplates()))) {
+				LOGGER.info("Configuration virtualhost name cannot be blank and virutalhost must contain bindings, skipping entry.");
+				continue;
+			}
+
+			List<Binding> bindings = ListUtils.emptyIfNull(virtualHost.getBindings());
+			for (int bindingIndex = 0; bindingIndex < bindings.size(); bindingIndex++) {
+				addBinding(virtualHost.getName(), virtualHostPath, bindings.get(bindingIndex),
+						String.format("%s.bindings[%s]", virtualHostPath, bindingIndex));
+			}
+
+			List<BindingTemplate> bindingTemplates = ListUtils.emptyIfNull(virtualHost.getBindingTemplates());
+			for (int templateIndex = 0; templateIndex < bindingTemplates.size(); templateIndex++) {
+				addBindingTemplate(virtualHost.getName(), virtualHostPath, bindingTemplates.get(templateIndex),
+						String.format("%s.bindingTemplates[%s]", virtualHostPath, templateIndex));
+			}
+
+			List<Policy> policies = ListUtils.emptyIfNull(virtualHost.getPolicies());
+			for (int policyIndex = 0; policyIndex < policies.size(); policyIndex++) {
+				addPolicy(virtualHost.getName(), virtualHostPath, policies.get(policyIndex), false,
+						String.format("%s.policies[%s]", virtualHostPath, policyIndex));
+			}
+
+			List<Policy> operatorPolicies = ListUtils.emptyIfNull(virtualHost.getOperatorPolicies());
+			for (int policyIndex = 0; policyIndex < operatorPolicies.size(); policyIndex++) {
+				addPolicy(virtualHost.getName(), virtualHostPath, operatorPolicies.get(policyIndex), true,
+						String.format("%s.operatorPolicies[%s]", virtualHostPath, policyIndex));
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Add every binding generated by a template, the generated bindings are added one at a time and never held in
+	 * memory together
+	 *
+	 * @param virtualHostName
+	 * @param virtualHostPath JSON path of the vhost, used to report conflicts
+	 * @param bindingTemplate
+	 * @param templatePath    JSON path of the template, used to report errors and conflicts
+	 * @return number of generated bindings
+	 * @throws RabbitMQProvisioningException when the template is not valid or generates duplicate bindings
+	 */
+	public long addBindingTemplate(String virtualHostName, String virtualHostPath, BindingTemplate bindingTemplate, String templatePath)
+			throws RabbitMQProvisioningException {
+		return new BindingTemplateExpander(bindingTemplate, templatePath).expand(virtualHostName,
+				(expandedVirtualHostName, binding, bindingPath) -> addBinding(expandedVirtualHostName, virtualHostPath, binding, bindingPath));
+	}
+
+	/**
+	 * Add a single binding together with its vhost, queue, dead letter queue and exchange
+	 *
+	 * @param virtualHostName
+	 * @param virtualHostPath JSON path of the vhost, used to report conflicts
+	 * @param binding
+	 * @param bindingPath     JSON path of the binding, used to report conflicts
+	 * @return the objects which were not yet part of the plan
+	 */
+	public List<PlannedObject> addBinding(String virtualHostName, String virtualHostPath, Binding binding, String bindingPath) {
+		if (StringUtils.isAnyBlank(binding.getExchange().getName(), binding.getQueue().getName())) {
+			LOGGER.info("Exchangename and queuename must never be blank, skipping entry");
+			return Collections.emptyList();
+		}
+
+		List<PlannedObject> addedObjects = new ArrayList<>();
+		Exchange exchange = binding.getExchange();
+		Queue queue = binding.getQueue();
+		String queueName = queue.getName();
+		String exchangeName = exchange.getName();
+		String deadLetterPostfix = applicationConfig.getDeadLetterPostfix();
+
+		ObjectKey virtualHostKey = new ObjectKey(virtualHostName, ObjectType.VHOST, virtualHostName);
+		plan(new PlannedObject(virtualHostKey, Collections.emptyMap(), true, Collections.emptyList(), virtualHostPath, null, null), addedObjects);
+		List<ObjectKey> virtualHostDependency = Collections.singletonList(virtualHostKey);
+
+		ObjectKey queueKey = new ObjectKey(virtualHostName, ObjectType.QUEUE, queueName);
+		boolean policyQueueSettings = applicationConfig.isPolicyQueueSettings();
+		plan(new PlannedObject(queueKey, RabbitMQPayloads.queue(exchangeName, queue, deadLetterPostfix, policyQueueSettings), false,
+				virtualHostDependency, bindingPath.concat(".queue"), null, null), addedObjects);
+		if (policyQueueSettings) {
+			addQueuePolicyDefinition(queueKey, RabbitMQPayloads.queuePolicyDefinition(exchangeName, queue), bindingPath.concat(".queue"));
+		}
+
+		if (BooleanUtils.isTrue(queue.getCreateDLQ())) {
+			ObjectKey deadLetterQueueKey = new ObjectKey(virtualHostName, ObjectType.DEAD_LETTER_QUEUE, queueName.concat(deadLetterPostfix));
+			plan(new PlannedObject(deadLetterQueueKey, RabbitMQPayloads.deadLetterQueue(queue.getDurable()), false,
+					virtualHostDependency, bindingPath.concat(".queue.createDLQ"), null, null), addedObjects);
+		}
+
+		// Reserved exchanges can't be created, they are only checked
+		ObjectKey exchangeKey = new ObjectKey(virtualHostName, ObjectType.EXCHANGE, exchangeName);
+		if (StringUtils.startsWithIgnoreCase(exchangeName, applicationConfig.getReservedExchangeNamePrefix())) {
+			plan(new PlannedObject(exchangeKey, Collections.emptyMap(), true, virtualHostDependency,
+					bindingPath.concat(".exchange"), null, null), addedObjects);
+		} else {
+			plan(new PlannedObject(exchangeKey, RabbitMQPayloads.exchange(exchange.getExchangeType().value(), exchange.getDurable()),
+					false, virtualHostDependency, bindingPath.concat(".exchange"), null, null), addedObjects);
+		}
+
+		// Use the same name for routing key and queue
+		String routingKey = StringUtils.defaultIfBlank(binding.getRoutingKey(), queueName);
+		ObjectKey bindingKey = new ObjectKey(virtualHostName, ObjectType.BINDING, String.format("%s -> %s [%s]", exchangeName, queueName, routingKey));
+		plan(new PlannedObject(bindingKey, RabbitMQPayloads.binding(routingKey), false, Arrays.asList(queueKey, exchangeKey),
+				bindingPath, exchangeName, queueName), addedObjects);
+
+		return addedObjects;
+	}
+
+	/**
+	 * Add a policy or operator policy
+	 *
+	 * @param virtualHostName
+	 * @param virtualHostPath JSON path of the vhost, used to report conflicts
+	 * @param policy
+	 * @param operatorPolicy
+	 * @param policyPath      JSON path of the policy, used to report conflicts
+	 * @return the objects which were not yet part of the plan
+	 */
+	public List<PlannedObject> addPolicy(String virtualHostName, String virtualHostPath, Policy policy, boolean operatorPolicy, String policyPath) {
+		List<PlannedObject> addedObjects = new ArrayList<>();
+		ObjectKey virtualHostKey = new ObjectKey(virtualHostName, ObjectType.VHOST, virtualHostName);
+		plan(new PlannedObject(virtualHostKey, Collections.emptyMap(), true, Collections.emptyList(), virtualHostPath, null, null), addedObjects);
+
+		ObjectKey policyKey = new ObjectKey(virtualHostName, operatorPolicy ? ObjectType.OPERATOR_POLICY : ObjectType.POLICY, policy.getName());
+		String applyTo = ObjectUtils.defaultIfNull(policy.getApplyTo(), Policy.ApplyTo.ALL).value();
+		plan(new PlannedObject(policyKey, RabbitMQPayloads.policy(policy.getPattern(), applyTo, ObjectUtils.defaultIfNull(policy.getPriority(), 0),
+				policy.getDefinition()), false, Collections.singletonList(virtualHostKey), policyPath, null, null), addedObjects);
+		return addedObjects;
+	}
+
+	/**
+	 * @param jsonPath JSON path of an object in a vhost, without a source prefix, e.g. virtualHosts[0].bindings[1]
+	 * @return JSON path of the vhost, e.g. virtualHosts[0]
+	 */
+	public static String virtualHostPath(String jsonPath) {
+		return StringUtils.substringBefore(jsonPath, ".");
+	}
+
+	/**
+	 * @return conflicts found so far
+	 */
+	public List<String> getConflicts() {
+		return Collections.unmodifiableList(conflicts);
+	}
+
+	/**
+	 * Build the plan
+	 *
+	 * @return ProvisioningPlan containing every object once
+	 * @throws RabbitMQProvisioningException when the configuration contains conflicting declarations
+	 */
+	public ProvisioningPlan build() throws RabbitMQProvisioningException {
+		planQueueSettingsPolicies();
+		if (!conflicts.isEmpty()) {
+			LOGGER.error("Configuration contains {} conflicting declaration(s): {}", conflicts.size(), conflicts);
+			throw new RabbitMQProvisioningException(String.format("Configuration contains %s conflicting declaration(s): %s", conflicts.size(), conflicts));
+		}
+		LOGGER.info("Planned {} unique object(s) from {} declaration(s)", plannedObjects.size(), declarationCount);
+		return new ProvisioningPlan(plannedObjects, declarationCount);
+	}
+
+	/**
+	 * Remember the policy settings of a queue, a queue declared again with other settings is a conflict
+	 *
+	 * @param queueKey
+	 * @param definition
+	 * @param queuePath
+	 */
+	private void addQueuePolicyDefinition(ObjectKey queueKey, Map<String, Object> definition, String queuePath) {
+		Map<String, Object> existingDefinition = queuePolicyDefinitions.putIfAbsent(queueKey, definition);
+		if (existingDefinition == null) {
+			if (!definition.isEmpty()) {
+				queueSettingsPolicies.computeIfAbsent(queueKey.getVirtualHostName(), virtualHostName -> new LinkedHashMap<>())
+						.computeIfAbsent(definition, queueSettings -> new ArrayList<>()).add(queueKey.getName());
+			}
+		} else if (!existingDefinition.equals(definition)) {
+			conflicts.add(String.format("%s declared at %s with policy settings %s conflicts with %s declared at %s", queueKey, queuePath, definition,
+					existingDefinition, plannedObjects.get(queueKey).getSource()));
+		}
+	}
+
+	/**
+	 * Plan a policy for every distinct combination of queue settings per vhost, named after the dead letter exchange
+	 */
+	private void planQueueSettingsPolicies() {
+		for (Map.Entry<String, Map<Map<String, Object>, List<String>>> virtualHostPolicies : queueSettingsPolicies.entrySet()) {
+			String virtualHostName = virtualHostPolicies.getKey();
+			List<ObjectKey> virtualHostDependency = Collections.singletonList(new ObjectKey(virtualHostName, ObjectType.VHOST, virtualHostName));
+			NavigableSet<String> virtualHostQueueNames = plannedObjects.keySet().stream()
+					.filter(key -> key.getVirtualHostName().equals(virtualHostName))
+					.filter(key -> key.getObjectType() == ObjectType.QUEUE || key.getObjectType() == ObjectType.DEAD_LETTER_QUEUE)
+					.map(ObjectKey::getName).collect(Collectors.toCollection(TreeSet::new));
+			Set<String> policyNames = new HashSet<>();
+			for (Map.Entry<Map<String, Object>, List<String>> queueSettings : virtualHostPolicies.getValue().entrySet()) {
+				String baseName = applicationConfig.getGeneratedPolicyPrefix()
+						.concat(String.valueOf(queueSettings.getKey().getOrDefault("dead-letter-exchange", "queues")));
+				String policyName = baseName;
+				for (int index = 2; !policyNames.add(policyName); index++) {
+					policyName = String.format("%s.%s", baseName, index);
+				}
+
+				NavigableSet<String> otherQueueNames = new TreeSet<>(virtualHostQueueNames);
+				otherQueueNames.removeAll(queueSettings.getValue());
+				PlannedObject policy = new PlannedObject(new ObjectKey(virtualHostName, ObjectType.POLICY, policyName),
+						RabbitMQPayloads.policy(queuePattern(queueSettings.getValue(), otherQueueNames), Policy.ApplyTo.QUEUES.value(),
+								applicationConfig.getGeneratedPolicyPriority(), queueSettings.getKey()), false, virtualHostDependency,
+						"generated queue settings", null, null);
+				PlannedObject existingObject = plannedObjects.putIfAbsent(policy.getKey(), policy);
+				if (existingObject != null) {
+					conflicts.add(String.format("generated %s conflicts with the policy declared at %s", policy.getKey(), existingObject.getSource()));
+				}
+			}
+		}
+		queueSettingsPolicies.clear();
+	}
+
+	/**
+	 * Build the pattern of a generated policy. Queues sharing a name prefix up to a separator are matched by that
+	 * prefix, the shortest prefix no other queue starts with is used. Queues without such a prefix are listed by name.
+	 *
+	 * @param queueNames      queues with the settings of the policy
+	 * @param otherQueueNames every other planned queue and dead letter queue of the vhost
+	 * @return anchored pattern
+	 */
+	static String queuePattern(Collection<String> queueNames, NavigableSet<String> otherQueueNames) {
+		NavigableSet<String> remainingNames = new TreeSet<>(queueNames);
+		List<String> alternatives = new ArrayList<>();
+		while (!remainingNames.isEmpty()) {
+			String queueName = remainingNames.pollFirst();
+			String alternative = escapePattern(queueName);
+			for (int index = 0; index < queueName.length() - 1; index++) {
+				if (NAME_SEPARATORS.indexOf(queueName.charAt(index)) < 0) {
+					continue;
+				}
+				String prefix = queueName.substring(0, index + 1);
+				String otherQueueName = otherQueueNames.ceiling(prefix);
+				if (otherQueueName != null && otherQueueName.startsWith(prefix)) {
+					// A longer prefix may still exclude the other queue
+					continue;
+				}
+				NavigableSet<String> prefixedNames = remainingNames.subSet(prefix, true, prefix + Character.MAX_VALUE, false);
+				if (prefixedNames.isEmpty()) {
+					break;
+				}
+				alternative = escapePattern(prefix).concat(".*");
+				prefixedNames.clear();
+				break;
+			}
+			alternatives.add(alternative);
+		}
+		return alternatives.stream().collect(Collectors.joining("|", "^(?:", ")$"));
+	}
+
+	/**
+	 * @param name
+	 * @return name with every regular expression metacharacter escaped
+	 */
+	static String escapePattern(String name) {
+		StringBuilder pattern = new StringBuilder(name.length());
+		for (char character : name.toCharArray()) {
+			if ("\\^$.|?*+()[]{}".indexOf(character) >= 0) {
+				pattern.append('\\');
+			}
+			pattern.append(character);
+		}
+		return pattern.toString();
+	}
+
+	private void plan(PlannedObject plannedObject, List<PlannedObject> addedObjects) {
+		declarationCount++;
+		PlannedObject existingObject = plannedObjects.putIfAbsent(plannedObject.getKey(), plannedObject);
+		if (existingObject == null) {
+			addedObjects.add(plannedObject);
+		} else if (existingObject.isExistenceCheck() != plannedObject.isExistenceCheck()
+				|| !existingObject.getPayload().equals(plannedObject.getPayload())) {
+			conflicts.add(String.format("%s declared at %s as %s conflicts with %s declared at %s", plannedObject.getKey(),
+					plannedObject.getSource(), plannedObject.getPayload(), existingObject.getPayload(), existingObject.getSource()));
+		}
+	}
+
+}
@@ -0,0 +1,219 @@
+package nl.paultegelaar.rabbitmq.util.plan;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.collections4.ListUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.config.VirtualHost;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.ingest.StreamingConfigReader;
+import nl.paultegelaar.rabbitmq.util.preflight.PreflightAnalyzer;
+import nl.paultegelaar.rabbitmq.util.validation.SharedValidator;
+
+/**
+ * Validates a configuration, runs the {@link PreflightAnalyzer} and turns it into a {@link ProvisioningPlan}. The plan doesn't depend on the broker, so a
+ * configuration applied to several brokers is only validated and planned once.
+ *
+ */
+public class ProvisioningPlanner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningPlanner.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final ApplicationConfig applicationConfig;
+	private final Validator validator;
+
+	public ProvisioningPlanner(ApplicationConfig applicationConfig) {
+		this.applicationConfig = applicationConfig;
+		this.validator = SharedValidator.get();
+	}
+
+	/**
+	 * Validate and plan a configuration
+	 *
+	 * @param rabbitMQObjects
+	 * @return ProvisioningPlan, empty when the configuration doesn't contain any virtual hosts
+	 * @throws RabbitMQProvisioningException when the configuration is not valid or contains conflicts
+	 */
+	public ProvisioningPlan plan(RabbitMQObjects rabbitMQObjects) throws RabbitMQProvisioningException {
+		LOGGER.info("Processing new RabbitMQ configration: {}", rabbitMQObjects.getConfigName());
+		validate(rabbitMQObjects, null);
+
+		ProvisioningPlanBuilder provisioningPlanBuilder = new ProvisioningPlanBuilder(applicationConfig);
+		if (CollectionUtils.isEmpty(rabbitMQObjects.getVirtualHosts())) {
+			LOGGER.error("Configuration doesn't contain any virtual hosts");
+			return provisioningPlanBuilder.build();
+		}
+
+		// Report every declaration the broker would refuse before any request is sent
+		long preflightStart = System.nanoTime();
+		new PreflightAnalyzer(applicationConfig).add(rabbitMQObjects).verify();
+		LOGGER.info("Pre-flight check took {} ms", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - preflightStart));
+
+		// Collapse the configuration into unique objects, conflicts are reported before any request is sent
+		LOGGER.info("Planning virtual hosts");
+		return provisioningPlanBuilder.add(rabbitMQObjects).build();
+	}
+
+	/**
+	 * Read, validate and plan several config files as a single configuration. The files are parsed and validated in
+	 * parallel on a fork-join pool, the errors of every file are reported together. They are merged in the given
+	 * order, a conflict between files names the file of both declarations.
+	 *
+	 * @param configFiles
+	 * @param streaming   read the files one after another with the streaming parser instead, for very large files
+	 * @return ProvisioningPlan
+	 * @throws RabbitMQProvisioningException when a file can't be read, is not valid or the files contain conflicts
+	 */
+	public ProvisioningPlan plan(List<Path> configFiles, boolean streaming) throws RabbitMQProvisioningException {
+		ProvisioningPlanBuilder provisioningPlanBuilder = new ProvisioningPlanBuilder(applicationConfig);
+		PreflightAnalyzer preflightAnalyzer = new PreflightAnalyzer(applicationConfig);
+		if (streaming) {
+			for (Path configFile : configFiles) {
+				LOGGER.info("Streaming config file {}", configFile);
+				String sourcePrefix = configFile + ":";
+				try (InputStream configuration = new BufferedInputStream(Files.newInputStream(configFile))) {
+					new StreamingConfigReader(validator).read(configuration, (virtualHostName, binding, bindingPath) -> {
+						preflightAnalyzer.addBinding(virtualHostName, binding, sourcePrefix + bindingPath);
+						provisioningPlanBuilder.addBinding(virtualHostName, sourcePrefix + ProvisioningPlanBuilder.virtualHostPath(bindingPath), binding,
+								sourcePrefix + bindingPath);
+					}, (virtualHostName, policy, operatorPolicy, policyPath) -> provisioningPlanBuilder.addPolicy(virtualHostName,
+							sourcePrefix + ProvisioningPlanBuilder.virtualHostPath(policyPath), policy, operatorPolicy, sourcePrefix + policyPath));
+				} catch (IOException e) {
+					throw new RabbitMQProvisioningException(String.format("%s can't be read: %s", configFile, e.getMessage()));
+				} catch (RabbitMQProvisioningException e) {
+					throw new RabbitMQProvisioningException(sourcePrefix + " " + e.getMessage());
+				}
+			}
+		} else {
+			List<RabbitMQObjects> configurations = read(configFiles);
+			for (int fileIndex = 0; fileIndex < configFiles.size(); fileIndex++) {
+				preflightAnalyzer.add(configurations.get(fileIndex), configFiles.get(fileIndex).toString());
+				provisioningPlanBuilder.add(configurations.get(fileIndex), configFiles.get(fileIndex).toString());
+			}
+		}
+
+		preflightAnalyzer.verify();
+		ProvisioningPlan provisioningPlan = provisioningPlanBuilder.build();
+		LOGGER.info("Planned {} config file(s)", configFiles.size());
+		return provisioningPlan;
+	}
+
+	/**
+	 * Parse and validate the files in parallel
+	 *
+	 * @param configFiles
+	 * @return configuration of every file, in the same order
+	 * @throws RabbitMQProvisioningException listing the errors of every file
+	 */
+	private List<RabbitMQObjects> read(List<Path> configFiles) throws RabbitMQProvisioningException {
+		List<Callable<RabbitMQObjects>> readers = new ArrayList<>(configFiles.size());
+		for (Path configFile : configFiles) {
+			readers.add(() -> {
+				RabbitMQObjects rabbitMQObjects;
+				try {
+					rabbitMQObjects = OBJECT_MAPPER.readValue(configFile.toFile(), RabbitMQObjects.class);
+				} catch (IOException e) {
+					throw new RabbitMQProvisioningException(String.format("%s can't be read: %s", configFile, e.getMessage()));
+				}
+				validate(rabbitMQObjects, configFile.toString());
+				return rabbitMQObjects;
+			});
+		}
+
+		long readStart = System.nanoTime();
+		ForkJoinPool forkJoinPool = new ForkJoinPool(Math.max(1, Math.min(configFiles.size(), Runtime.getRuntime().availableProcessors())));
+		try {
+			List<RabbitMQObjects> configurations = new ArrayList<>(configFiles.size());
+			List<String> errors = new ArrayList<>();
+			List<Future<RabbitMQObjects>> results = forkJoinPool.invokeAll(readers);
+			for (int fileIndex = 0; fileIndex < results.size(); fileIndex++) {
+				try {
+					configurations.add(results.get(fileIndex).get());
+				} catch (ExecutionException e) {
+					errors.add(e.getCause() instanceof RabbitMQProvisioningException ? e.getCause().getMessage()
+							: String.format("%s: %s", configFiles.get(fileIndex), e.getCause()));
+				}
+			}
+			if (!errors.isEmpty()) {
+				throw new RabbitMQProvisioningException(String.format("%s of %s config file(s) are not valid: %s", errors.size(), configFiles.size(), errors));
+			}
+			LOGGER.info("Read {} config file(s) in {} ms", configFiles.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - readStart));
+			return configurations;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RabbitMQProvisioningException(e);
+		} finally {
+			forkJoinPool.shutdown();
+		}
+	}
+
+	/**
+	 * Validate the configuration and check every vhost contains bindings
+	 *
+	 * @param rabbitMQObjects
+	 * @param source          config file, prepended to the errors, may be null
+	 * @throws RabbitMQProvisioningException when the configuration is not valid
+	 */
+	private void validate(RabbitMQObjects rabbitMQObjects, String source) throws RabbitMQProvisioningException {
+		String sourcePrefix = source == null ? "" : source + ": ";
+		Set<ConstraintViolation<RabbitMQObjects>> violations = validator.validate(rabbitMQObjects);
+		if (CollectionUtils.isNotEmpty(violations)) {
+			LOGGER.error("{}Configuration is not valid: {}", sourcePrefix, violations);
+			throw new RabbitMQProvisioningException(sourcePrefix + violations.toString());
+		}
+
+		List<VirtualHost> virtualHosts = ListUtils.emptyIfNull(rabbitMQObjects.getVirtualHosts());
+		for (int virtualHostIndex = 0; virtualHostIndex < virtualHosts.size(); virtualHostIndex++) {
+			VirtualHost virtualHost = virtualHosts.get(virtualHostIndex);
+			if (CollectionUtils.isEmpty(virtualHost.getBindings()) && CollectionUtils.isEmpty(virtualHost.getBindingTemplates())) {
+				String message = String.format("%sConfiguration is not valid: virtualHosts[%s]: must contain at least one binding or binding template",
+						sourcePrefix, virtualHostIndex);
+				LOGGER.error(message);
+				throw new RabbitMQProvisioningException(message);
+			}
+		}
+	}
+
+	/**
+	 * Read, validate and plan a configuration with a streaming parser
+	 *
+	 * @param configuration JSON configuration, not closed by this method
+	 * @return ProvisioningPlan
+	 * @throws RabbitMQProvisioningException when the configuration can't be read, is not valid or contains conflicts
+	 */
+	public ProvisioningPlan plan(InputStream configuration) throws RabbitMQProvisioningException {
+		LOGGER.info("Streaming new RabbitMQ configuration");
+		ProvisioningPlanBuilder provisioningPlanBuilder = new ProvisioningPlanBuilder(applicationConfig);
+		PreflightAnalyzer preflightAnalyzer = new PreflightAnalyzer(applicationConfig);
+		new StreamingConfigReader(validator).read(configuration, (virtualHostName, binding, bindingPath) -> {
+			preflightAnalyzer.addBinding(virtualHostName, binding, bindingPath);
+			provisioningPlanBuilder.addBinding(virtualHostName, ProvisioningPlanBuilder.virtualHostPath(bindingPath), binding, bindingPath);
+		}, (virtualHostName, policy, operatorPolicy, policyPath) -> provisioningPlanBuilder.addPolicy(virtualHostName,
+				ProvisioningPlanBuilder.virtualHostPath(policyPath), policy, operatorPolicy, policyPath));
+		preflightAnalyzer.verify();
+		return provisioningPlanBuilder.build();
+	}
+
+}
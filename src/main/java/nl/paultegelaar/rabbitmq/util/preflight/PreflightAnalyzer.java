@@ -0,0 +1,264 @@
+package nl.paultegelaar.rabbitmq.util.preflight;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.config.Binding;
+import nl.paultegelaar.rabbitmq.config.BindingTemplate;
+import nl.paultegelaar.rabbitmq.config.Exchange;
+import nl.paultegelaar.rabbitmq.config.Queue;
+import nl.paultegelaar.rabbitmq.config.RabbitMQObjects;
+import nl.paultegelaar.rabbitmq.config.VirtualHost;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.template.BindingTemplateExpander;
+
+/**
+ * Finds declarations the broker would refuse before anything is sent. Every binding is checked against hash indexes of
+ * the queues, dead letter queues and exchanges declared so far, so a configuration is analyzed in a single linear pass.
+ * Reported as conflicts, with the JSON path of both declarations:
+ * <ul>
+ * <li>a queue declared again with a different durability, type or dead letter exchange</li>
+ * <li>a dead letter queue, queue name plus dead letter postfix, with the name of a configured queue</li>
+ * <li>an exchange declared again with a different type or durability</li>
+ * <li>a standard exchange like amq.topic used with a different exchange type</li>
+ * </ul>
+ * Other exchanges with the reserved prefix can't be created, they are reported as warnings since they must already
+ * exist on the broker. An analyzer is used for a single configuration.
+ *
+ */
+public class PreflightAnalyzer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(PreflightAnalyzer.class);
+	private static final Map<String, Exchange.ExchangeType> STANDARD_EXCHANGES = new HashMap<>();
+
+	static {
+		STANDARD_EXCHANGES.put("amq.direct", Exchange.ExchangeType.DIRECT);
+		STANDARD_EXCHANGES.put("amq.fanout", Exchange.ExchangeType.FANOUT);
+		STANDARD_EXCHANGES.put("amq.topic", Exchange.ExchangeType.TOPICS);
+		STANDARD_EXCHANGES.put("amq.headers", Exchange.ExchangeType.HEADERS);
+		STANDARD_EXCHANGES.put("amq.match", Exchange.ExchangeType.HEADERS);
+	}
+
+	private final String deadLetterPostfix;
+	private final String reservedExchangeNamePrefix;
+	// Keyed by vhost and name, see key()
+	private final Map<String, QueueDeclaration> queues = new HashMap<>();
+	private final Map<String, String> deadLetterQueues = new HashMap<>();
+	private final Map<String, ExchangeDeclaration> exchanges = new HashMap<>();
+	private final List<String> conflicts = new ArrayList<>();
+	private final List<String> warnings = new ArrayList<>();
+	private long bindingCount;
+
+	public PreflightAnalyzer(ApplicationConfig applicationConfig) {
+		this.deadLetterPostfix = applicationConfig.getDeadLetterPostfix();
+		this.reservedExchangeNamePrefix = applicationConfig.getReservedExchangeNamePrefix();
+	}
+
+	/**
+	 * Analyze all bindings and binding templates of a validated configuration
+	 *
+	 * @param rabbitMQObjects
+	 * @return this analyzer
+	 * @throws RabbitMQProvisioningException when a binding template is not valid
+	 */
+	public PreflightAnalyzer add(RabbitMQObjects rabbitMQObjects) throws RabbitMQProvisioningException {
+		return add(rabbitMQObjects, null);
+	}
+
+	/**
+	 * Analyze all bindings and binding templates of one of several config files, conflicts name the file
+	 *
+	 * @param rabbitMQObjects
+	 * @param source          config file, prepended to the JSON paths, may be null
+	 * @return this analyzer
+	 * @throws RabbitMQProvisioningException when a binding template is not valid
+	 */
+	public PreflightAnalyzer add(RabbitMQObjects rabbitMQObjects, String source) throws RabbitMQProvisioningException {
+		String sourcePrefix = source == null ? "" : source + ":";
+		List<VirtualHost> virtualHosts = ListUtils.emptyIfNull(rabbitMQObjects.getVirtualHosts());
+		for (int virtualHostIndex = 0; virtualHostIndex < virtualHosts.size(); virtualHostIndex++) {
+			VirtualHost virtualHost = virtualHosts.get(virtualHostIndex);
+			if (StringUtils.isBlank(virtualHost.getName())) {
+				continue;
+			}
+
+			// Plain concatenation, String.format would dominate the pass on large configurations
+			String bindingsPath = sourcePrefix + "virtualHosts[" + virtualHostIndex + "].bindings[";
+			List<Binding> bindings = ListUtils.emptyIfNull(virtualHost.getBindings());
+			for (int bindingIndex = 0; bindingIndex < bindings.size(); bindingIndex++) {
+				addBinding(virtualHost.getName(), bindings.get(bindingIndex), bindingsPath + bindingIndex + "]");
+			}
+
+			List<BindingTemplate> bindingTemplates = ListUtils.emptyIfNull(virtualHost.getBindingTemplates());
+			for (int templateIndex = 0; templateIndex < bindingTemplates.size(); templateIndex++) {
+				new BindingTemplateExpander(bindingTemplates.get(templateIndex), String.format("%svirtualHosts[%s].bindingTemplates[%s]", sourcePrefix,
+						virtualHostIndex, templateIndex)).expand(virtualHost.getName(), this::addBinding);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Analyze a single binding together with its queue, dead letter queue and exchange
+	 *
+	 * @param virtualHostName
+	 * @param binding
+	 * @param bindingPath     JSON path of the binding, used to report conflicts
+	 * @return true when the binding didn't add any conflicts
+	 */
+	public boolean addBinding(String virtualHostName, Binding binding, String bindingPath) {
+		Queue queue = binding.getQueue();
+		Exchange exchange = binding.getExchange();
+		if (queue == null || exchange == null || StringUtils.isAnyBlank(queue.getName(), exchange.getName())) {
+			return true;
+		}
+		bindingCount++;
+		int conflictCount = conflicts.size();
+		addExchange(virtualHostName, exchange, bindingPath.concat(".exchange"));
+		addQueue(virtualHostName, queue, exchange.getName(), bindingPath.concat(".queue"));
+		return conflicts.size() == conflictCount;
+	}
+
+	private void addQueue(String virtualHostName, Queue queue, String exchangeName, String queuePath) {
+		String queueKey = key(virtualHostName, queue.getName());
+		boolean createDLQ = BooleanUtils.isTrue(queue.getCreateDLQ());
+		QueueDeclaration declaration = new QueueDeclaration(queuePath, queue.getDurable(), queue.getType(), createDLQ ? exchangeName : null);
+		QueueDeclaration existing = queues.putIfAbsent(queueKey, declaration);
+		if (existing == null) {
+			String deadLetterQueuePath = deadLetterQueues.get(queueKey);
+			if (deadLetterQueuePath != null) {
+				conflicts.add(String.format("queue '%s' in vhost '%s' declared at %s has the name of the dead letter queue declared at %s", queue.getName(),
+						virtualHostName, queuePath, deadLetterQueuePath));
+			}
+		} else {
+			compare("queue", queue.getName(), virtualHostName, "durable", declaration.durable, existing.durable, queuePath, existing.path);
+			compare("queue", queue.getName(), virtualHostName, "type", declaration.type, existing.type, queuePath, existing.path);
+			compare("queue", queue.getName(), virtualHostName, "dead letter exchange", declaration.deadLetterExchange, existing.deadLetterExchange,
+					queuePath, existing.path);
+		}
+
+		if (createDLQ) {
+			String deadLetterQueueName = queue.getName().concat(deadLetterPostfix);
+			String deadLetterQueueKey = key(virtualHostName, deadLetterQueueName);
+			String deadLetterQueuePath = queuePath.concat(".createDLQ");
+			if (deadLetterQueues.putIfAbsent(deadLetterQueueKey, deadLetterQueuePath) == null) {
+				QueueDeclaration collidingQueue = queues.get(deadLetterQueueKey);
+				if (collidingQueue != null) {
+					conflicts.add(String.format("dead letter queue '%s' in vhost '%s' declared at %s has the name of the queue declared at %s",
+							deadLetterQueueName, virtualHostName, deadLetterQueuePath, collidingQueue.path));
+				}
+			}
+		}
+	}
+
+	private void addExchange(String virtualHostName, Exchange exchange, String exchangePath) {
+		String exchangeName = exchange.getName();
+		String exchangeKey = key(virtualHostName, exchangeName);
+		ExchangeDeclaration declaration = new ExchangeDeclaration(exchangePath, exchange.getExchangeType(), exchange.getDurable());
+		ExchangeDeclaration existing = exchanges.putIfAbsent(exchangeKey, declaration);
+		if (StringUtils.startsWithIgnoreCase(exchangeName, reservedExchangeNamePrefix)) {
+			// Reserved exchanges are never declared, they are checked once
+			if (existing != null) {
+				return;
+			}
+			Exchange.ExchangeType standardType = STANDARD_EXCHANGES.get(exchangeName.toLowerCase(Locale.ROOT));
+			if (standardType == null) {
+				warnings.add(String.format("exchange '%s' in vhost '%s' declared at %s has the reserved prefix '%s', it can't be created and must exist",
+						exchangeName, virtualHostName, exchangePath, reservedExchangeNamePrefix));
+			} else if (standardType != exchange.getExchangeType()) {
+				conflicts.add(String.format("exchange '%s' in vhost '%s' declared at %s with type %s is a standard exchange of type %s", exchangeName,
+						virtualHostName, exchangePath, exchange.getExchangeType(), standardType));
+			}
+			return;
+		}
+		if (existing != null) {
+			compare("exchange", exchangeName, virtualHostName, "type", declaration.type, existing.type, exchangePath, existing.path);
+			compare("exchange", exchangeName, virtualHostName, "durable", declaration.durable, existing.durable, exchangePath, existing.path);
+		}
+	}
+
+	private void compare(String objectType, String name, String virtualHostName, String property, Object value, Object existingValue, String path,
+			String existingPath) {
+		if (!Objects.equals(value, existingValue)) {
+			conflicts.add(String.format("%s '%s' in vhost '%s' declared at %s with %s %s conflicts with %s declared at %s", objectType, name,
+					virtualHostName, path, property, value, existingValue, existingPath));
+		}
+	}
+
+	private static String key(String virtualHostName, String name) {
+		return virtualHostName.concat("\u0000").concat(name);
+	}
+
+	/**
+	 * @return conflicts found so far
+	 */
+	public List<String> getConflicts() {
+		return Collections.unmodifiableList(conflicts);
+	}
+
+	/**
+	 * @return warnings found so far
+	 */
+	public List<String> getWarnings() {
+		return Collections.unmodifiableList(warnings);
+	}
+
+	/**
+	 * Report the outcome of the analysis
+	 *
+	 * @throws RabbitMQProvisioningException when conflicts were found
+	 */
+	public void verify() throws RabbitMQProvisioningException {
+		for (String warning : warnings) {
+			LOGGER.info("Pre-flight warning: {}", warning);
+		}
+		if (!conflicts.isEmpty()) {
+			LOGGER.error("Pre-flight check found {} conflict(s) in {} binding(s): {}", conflicts.size(), bindingCount, conflicts);
+			throw new RabbitMQProvisioningException(String.format("Configuration contains %s conflicting declaration(s): %s", conflicts.size(), conflicts));
+		}
+		LOGGER.info("Pre-flight check passed for {} binding(s), {} warning(s)", bindingCount, warnings.size());
+	}
+
+	private static final class QueueDeclaration {
+
+		private final String path;
+		private final Boolean durable;
+		private final Queue.Type type;
+		private final String deadLetterExchange;
+
+		private QueueDeclaration(String path, Boolean durable, Queue.Type type, String deadLetterExchange) {
+			this.path = path;
+			this.durable = durable;
+			this.type = type;
+			this.deadLetterExchange = deadLetterExchange;
+		}
+
+	}
+
+	private static final class ExchangeDeclaration {
+
+		private final String path;
+		private final Exchange.ExchangeType type;
+		private final Boolean durable;
+
+		private ExchangeDeclaration(String path, Exchange.ExchangeType type, Boolean durable) {
+			this.path = path;
+			this.type = type;
+			this.durable = durable;
+		}
+
+	}
+
+}
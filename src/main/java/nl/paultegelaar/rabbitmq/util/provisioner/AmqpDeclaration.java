@@ -0,0 +1,23 @@
+package nl.paultegelaar.rabbitmq.util.provisioner;
+
+import java.io.IOException;
+
+import com.rabbitmq.client.Channel;
+
+/**
+ * A single AMQP method declaring or checking an object. Declarations are idempotent, sending one twice is harmless.
+ *
+ */
+@FunctionalInterface
+interface AmqpDeclaration {
+
+	/**
+	 * Send the declaration
+	 *
+	 * @param channel
+	 * @param noWait don't wait for the broker, a refused declaration closes the channel
+	 * @throws IOException
+	 */
+	void declare(Channel channel, boolean noWait) throws IOException;
+
+}
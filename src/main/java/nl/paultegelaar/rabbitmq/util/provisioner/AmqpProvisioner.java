@@ -0,0 +1,276 @@
+package nl.paultegelaar.rabbitmq.util.provisioner;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.rabbitmq.client.Method;
+import com.rabbitmq.client.ShutdownSignalException;
+
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.metrics.Operation;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * Declares queues, exchanges and bindings with AMQP 0-9-1 methods. Every vhost gets its own connection with a few
+ * channels, declarations made at the same time are pipelined per channel and confirmed together, see
+ * {@link DeclarationChannel}. Vhosts are checked with the management API, AMQP can't tell a missing vhost apart from
+ * missing permissions. Policies don't exist in AMQP, they are sent to the management API as well.
+ *
+ * Latencies are recorded per declaration from the moment it is queued until the broker confirmed it, the AMQP reply
+ * code is recorded as status.
+ *
+ */
+public class AmqpProvisioner implements Provisioner {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AmqpProvisioner.class);
+	private static final int REPLY_SUCCESS = AMQP.REPLY_SUCCESS;
+	private static final String CONNECTION_NAME = "rabbitmq-queue-creator";
+
+	private final ApplicationConfig applicationConfig;
+	private final Provisioner managementAPIProvisioner;
+	private final ProvisioningMetrics provisioningMetrics;
+	private final ConnectionFactory connectionFactory;
+	private final Map<String, VirtualHostConnection> virtualHostConnections = new ConcurrentHashMap<>();
+
+	/**
+	 * Create provisioner, nothing is connected until the first declaration of a vhost
+	 *
+	 * @param applicationConfig
+	 * @param managementAPIProvisioner used for the vhost checks
+	 * @param provisioningMetrics
+	 * @throws RabbitMQProvisioningException when the AMQP URI is invalid
+	 */
+	public AmqpProvisioner(ApplicationConfig applicationConfig, Provisioner managementAPIProvisioner, ProvisioningMetrics provisioningMetrics)
+			throws RabbitMQProvisioningException {
+		this.applicationConfig = applicationConfig;
+		this.managementAPIProvisioner = managementAPIProvisioner;
+		this.provisioningMetrics = provisioningMetrics;
+
+		connectionFactory = new ConnectionFactory();
+		try {
+			URI amqpURI = new URI(applicationConfig.getAmqpURI());
+			connectionFactory.setUri(amqpURI);
+			// Credentials in the URI take precedence over the management API credentials
+			if (amqpURI.getUserInfo() == null) {
+				connectionFactory.setUsername(applicationConfig.getApiUsername());
+				connectionFactory.setPassword(new String(applicationConfig.getApiPassword()));
+			}
+		} catch (URISyntaxException | GeneralSecurityException | IllegalArgumentException e) {
+			throw new RabbitMQProvisioningException(String.format("Invalid AMQP URI: %s", e.getMessage()));
+		}
+		// A failed connection fails the declarations, there is nothing to recover
+		connectionFactory.setAutomaticRecoveryEnabled(false);
+		connectionFactory.setTopologyRecoveryEnabled(false);
+		connectionFactory.setConnectionTimeout(applicationConfig.getHttpConnectionTimeout());
+		connectionFactory.setChannelRpcTimeout(applicationConfig.getHttpSocketTimeout());
+	}
+
+	@Override
+	public void provision(PlannedObject plannedObject) throws RabbitMQProvisioningException {
+		ObjectType objectType = plannedObject.getObjectType();
+		if (objectType == ObjectType.VHOST || objectType == ObjectType.POLICY || objectType == ObjectType.OPERATOR_POLICY) {
+			managementAPIProvisioner.provision(plannedObject);
+			return;
+		}
+
+		LOGGER.info("Declaring {}", plannedObject);
+		Operation operation = Operation.of(plannedObject);
+		long startNanos = System.nanoTime();
+		try {
+			virtualHostConnections.computeIfAbsent(plannedObject.getVirtualHostName(), VirtualHostConnection::new).nextChannel()
+					.declare(toDeclaration(plannedObject));
+		} catch (IOException e) {
+			int replyCode = replyCode(e);
+			if (replyCode > 0) {
+				provisioningMetrics.recordResponse(operation, replyCode, System.nanoTime() - startNanos);
+			} else {
+				provisioningMetrics.recordIOError(operation, System.nanoTime() - startNanos);
+			}
+			LOGGER.error("Declaration of {} failed: {}", plannedObject, describe(e));
+			throw new RabbitMQProvisioningException(String.format("Declaration failed: %s", describe(e)));
+		}
+		provisioningMetrics.recordResponse(operation, REPLY_SUCCESS, System.nanoTime() - startNanos);
+	}
+
+	/**
+	 * Close the connection of every vhost
+	 */
+	@Override
+	public void close() throws IOException {
+		IOException closeException = null;
+		for (VirtualHostConnection virtualHostConnection : virtualHostConnections.values()) {
+			try {
+				virtualHostConnection.close();
+			} catch (IOException e) {
+				closeException = e;
+			}
+		}
+		virtualHostConnections.clear();
+		if (closeException != null) {
+			throw closeException;
+		}
+	}
+
+	/**
+	 * @param plannedObject
+	 * @return AMQP method creating or checking the object
+	 */
+	@SuppressWarnings("unchecked")
+	static AmqpDeclaration toDeclaration(PlannedObject plannedObject) {
+		String name = plannedObject.getName();
+		Map<String, Object> payload = plannedObject.getPayload();
+		boolean durable = Boolean.TRUE.equals(payload.get(RabbitMQPayloads.DURABLE_PROPERTY));
+		Map<String, Object> arguments = (Map<String, Object>) payload.get(RabbitMQPayloads.ARGUMENTS_PROPERTY);
+
+		switch (plannedObject.getObjectType()) {
+		case QUEUE:
+		case DEAD_LETTER_QUEUE:
+			return (channel, noWait) -> {
+				if (noWait) {
+					channel.queueDeclareNoWait(name, durable, false, false, arguments);
+				} else {
+					channel.queueDeclare(name, durable, false, false, arguments);
+				}
+			};
+		case EXCHANGE:
+			if (plannedObject.isExistenceCheck()) {
+				// Always synchronous
+				return (channel, noWait) -> channel.exchangeDeclarePassive(name);
+			}
+			String exchangeType = (String) payload.get(RabbitMQPayloads.TYPE_PROPERTY);
+			return (channel, noWait) -> {
+				if (noWait) {
+					channel.exchangeDeclareNoWait(name, exchangeType, durable, false, false, arguments);
+				} else {
+					channel.exchangeDeclare(name, exchangeType, durable, false, arguments);
+				}
+			};
+		case BINDING:
+			String queueName = plannedObject.getQueueName();
+			String exchangeName = plannedObject.getExchangeName();
+			String routingKey = (String) payload.get(RabbitMQPayloads.ROUTING_KEY_PROPERTY);
+			return (channel, noWait) -> {
+				if (noWait) {
+					channel.queueBindNoWait(queueName, exchangeName, routingKey, arguments);
+				} else {
+					channel.queueBind(queueName, exchangeName, routingKey, arguments);
+				}
+			};
+		default:
+			throw new IllegalArgumentException(String.format("Unsupported object type: %s", plannedObject.getObjectType()));
+		}
+	}
+
+	/**
+	 * @param e
+	 * @return reply code of the channel or connection closed by the broker, 0 when the broker didn't close it
+	 */
+	static int replyCode(Exception e) {
+		Method reason = closeReason(e);
+		if (reason instanceof AMQP.Channel.Close) {
+			return ((AMQP.Channel.Close) reason).getReplyCode();
+		}
+		if (reason instanceof AMQP.Connection.Close) {
+			return ((AMQP.Connection.Close) reason).getReplyCode();
+		}
+		return 0;
+	}
+
+	private static String describe(Exception e) {
+		Method reason = closeReason(e);
+		if (reason instanceof AMQP.Channel.Close) {
+			return ((AMQP.Channel.Close) reason).getReplyText();
+		}
+		if (reason instanceof AMQP.Connection.Close) {
+			return ((AMQP.Connection.Close) reason).getReplyText();
+		}
+		return e.getMessage();
+	}
+
+	private static Method closeReason(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ShutdownSignalException) {
+				return ((ShutdownSignalException) cause).getReason();
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Connection to a single vhost, connected on the first declaration and again after the connection was lost
+	 */
+	private final class VirtualHostConnection {
+
+		private final String virtualHostName;
+		private final List<DeclarationChannel> declarationChannels = new ArrayList<>();
+		private final AtomicInteger nextChannel = new AtomicInteger();
+		private Connection connection;
+
+		private VirtualHostConnection(String virtualHostName) {
+			this.virtualHostName = virtualHostName;
+			for (int i = 0; i < applicationConfig.getAmqpChannels(); i++) {
+				declarationChannels.add(new DeclarationChannel(this::openChannel, applicationConfig.getAmqpBatchSize()));
+			}
+		}
+
+		private DeclarationChannel nextChannel() {
+			return declarationChannels.get(Math.floorMod(nextChannel.getAndIncrement(), declarationChannels.size()));
+		}
+
+		private synchronized Channel openChannel() throws IOException {
+			if (connection == null || !connection.isOpen()) {
+				connect();
+			}
+			Channel channel;
+			try {
+				channel = connection.createChannel();
+			} catch (ShutdownSignalException e) {
+				// Closed by the broker while still reported open
+				connect();
+				channel = connection.createChannel();
+			}
+			if (channel == null) {
+				throw new IOException("No channel available");
+			}
+			return channel;
+		}
+
+		private void connect() throws IOException {
+			LOGGER.info("Connecting to virtualhost with name: {}", virtualHostName);
+			ConnectionFactory virtualHostConnectionFactory = connectionFactory.clone();
+			virtualHostConnectionFactory.setVirtualHost(virtualHostName);
+			try {
+				connection = virtualHostConnectionFactory.newConnection(CONNECTION_NAME);
+			} catch (TimeoutException e) {
+				throw new IOException(e.getMessage(), e);
+			}
+		}
+
+		private synchronized void close() throws IOException {
+			if (connection != null && connection.isOpen()) {
+				connection.close();
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,162 @@
+package nl.paultegelaar.rabbitmq.util.provisioner;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+
+/**
+ * A channel sending declarations in batches, like publisher confirms. Threads declaring at the same time queue up, one
+ * of them sends everything queued without waiting for the broker, followed by a single synchronous method. The broker
+ * handles the methods of a channel in order, so once that method returns every declaration in the batch succeeded.
+ *
+ * A refused declaration closes the channel and fails the batch, the declarations of a failed batch are then sent one
+ * at a time on a new channel to find out which one was refused. A broker may also close the whole connection, failing
+ * the batches of the other channels as well, those succeed when sent again.
+ *
+ */
+class DeclarationChannel {
+
+	/**
+	 * Opens a new channel, reconnecting when needed
+	 */
+	@FunctionalInterface
+	interface ChannelOpener {
+		Channel open() throws IOException;
+	}
+
+	private final ChannelOpener channelOpener;
+	private final int batchSize;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition batchCompleted = lock.newCondition();
+	private final Deque<PendingDeclaration> waiting = new ArrayDeque<>();
+	private boolean sending;
+	// Only used by the thread sending a batch
+	private Channel channel;
+
+	DeclarationChannel(ChannelOpener channelOpener, int batchSize) {
+		this.channelOpener = channelOpener;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Send the declaration with the next batch and wait for the broker
+	 *
+	 * @param declaration
+	 * @throws IOException when the declaration was refused or the broker can't be reached
+	 */
+	void declare(AmqpDeclaration declaration) throws IOException {
+		PendingDeclaration pendingDeclaration = new PendingDeclaration(declaration);
+		lock.lock();
+		try {
+			waiting.add(pendingDeclaration);
+			while (!pendingDeclaration.completed) {
+				if (sending) {
+					batchCompleted.awaitUninterruptibly();
+					continue;
+				}
+				sending = true;
+				List<PendingDeclaration> batch = new ArrayList<>();
+				while (!waiting.isEmpty() && batch.size() < batchSize) {
+					batch.add(waiting.poll());
+				}
+				lock.unlock();
+				try {
+					send(batch);
+				} finally {
+					lock.lock();
+					sending = false;
+					batchCompleted.signalAll();
+				}
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (pendingDeclaration.failure != null) {
+			throw pendingDeclaration.failure;
+		}
+	}
+
+	private void send(List<PendingDeclaration> batch) {
+		try {
+			Channel openChannel = openChannel();
+			for (PendingDeclaration pendingDeclaration : batch) {
+				pendingDeclaration.declaration.declare(openChannel, true);
+			}
+			// Synchronous round trip, fails when the broker closed the channel for any declaration before it
+			openChannel.basicQos(0);
+			batch.forEach(pendingDeclaration -> pendingDeclaration.complete(null));
+		} catch (IOException | ShutdownSignalException e) {
+			for (PendingDeclaration pendingDeclaration : batch) {
+				pendingDeclaration.complete(declareAlone(pendingDeclaration.declaration));
+			}
+		}
+	}
+
+	/**
+	 * Send a single declaration and wait for the broker. A connection closed by the broker may have been closed for a
+	 * declaration on another channel, the declaration is then sent once more on a new connection.
+	 *
+	 * @param declaration
+	 * @return failure, null when the declaration succeeded
+	 */
+	private IOException declareAlone(AmqpDeclaration declaration) {
+		IOException failure = null;
+		for (int attempt = 0; attempt < 2; attempt++) {
+			try {
+				declaration.declare(openChannel(), false);
+				return null;
+			} catch (IOException | ShutdownSignalException e) {
+				failure = asIOException(e);
+				if (!isConnectionClosed(e)) {
+					break;
+				}
+			}
+		}
+		return failure;
+	}
+
+	private Channel openChannel() throws IOException {
+		if (channel == null || !channel.isOpen()) {
+			channel = channelOpener.open();
+		}
+		return channel;
+	}
+
+	private static boolean isConnectionClosed(Throwable throwable) {
+		for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+			if (cause instanceof ShutdownSignalException) {
+				return ((ShutdownSignalException) cause).isHardError();
+			}
+		}
+		return false;
+	}
+
+	private static IOException asIOException(Exception e) {
+		return e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+	}
+
+	private static final class PendingDeclaration {
+
+		private final AmqpDeclaration declaration;
+		private boolean completed;
+		private IOException failure;
+
+		private PendingDeclaration(AmqpDeclaration declaration) {
+			this.declaration = declaration;
+		}
+
+		private void complete(IOException declarationFailure) {
+			this.failure = declarationFailure;
+			this.completed = true;
+		}
+
+	}
+
+}
@@ -0,0 +1,32 @@
+package nl.paultegelaar.rabbitmq.util.provisioner;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * Creates or checks a single planned object on the broker. Implementations are thread safe, the provisioning engine
+ * calls them from many threads at once.
+ *
+ */
+@FunctionalInterface
+public interface Provisioner extends Closeable {
+
+	/**
+	 * Create the object, or check that it exists for existence checks. Returns once the broker has confirmed it.
+	 *
+	 * @param plannedObject
+	 * @throws RabbitMQProvisioningException when the broker refused the object or can't be reached
+	 */
+	void provision(PlannedObject plannedObject) throws RabbitMQProvisioningException;
+
+	/**
+	 * Release connections, nothing to release by default
+	 */
+	@Override
+	default void close() throws IOException {
+	}
+
+}
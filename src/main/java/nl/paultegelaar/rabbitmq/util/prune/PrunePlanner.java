@@ -0,0 +1,130 @@
+package nl.paultegelaar.rabbitmq.util.prune;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.reconcile.LiveTopology;
+
+/**
+ * Finds the queues, exchanges and bindings of a virtual host which are present on the broker but not in the plan.
+ * Objects are returned in delete order, bindings first, followed by the queues and exchanges they refer to. A queue or
+ * exchange depends on the deletes of its own bindings only, so everything else is deleted in parallel.
+ *
+ * The default exchange, reserved objects and bindings to exchanges are never pruned, neither are virtual hosts.
+ *
+ */
+public class PrunePlanner {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+
+	private final String reservedNamePrefix;
+
+	/**
+	 * @param reservedNamePrefix queues and exchanges starting with this prefix are owned by the broker
+	 */
+	public PrunePlanner(String reservedNamePrefix) {
+		this.reservedNamePrefix = reservedNamePrefix;
+	}
+
+	/**
+	 * Compare a virtual host on the broker with the plan
+	 *
+	 * @param virtualHostName
+	 * @param plannedObjects  objects of the plan in this vhost
+	 * @param liveTopology    queues and exchanges on the broker
+	 * @param liveBindings    bindings of the vhost as listed by the management API, including their properties keys
+	 * @return objects to delete, in delete order
+	 * @throws IOException when the bindings can't be parsed
+	 */
+	public List<PrunedObject> plan(String virtualHostName, List<PlannedObject> plannedObjects, LiveTopology liveTopology, String liveBindings)
+			throws IOException {
+		Set<String> plannedQueues = new HashSet<>();
+		Set<String> plannedExchanges = new HashSet<>();
+		Set<List<Object>> plannedBindings = new HashSet<>();
+		for (PlannedObject plannedObject : plannedObjects) {
+			switch (plannedObject.getObjectType()) {
+			case QUEUE:
+			case DEAD_LETTER_QUEUE:
+				plannedQueues.add(plannedObject.getName());
+				break;
+			case EXCHANGE:
+				plannedExchanges.add(plannedObject.getName());
+				break;
+			case BINDING:
+				plannedBindings.add(bindingIdentity(plannedObject.getExchangeName(), plannedObject.getQueueName(),
+						plannedObject.getPayload().get(RabbitMQPayloads.ROUTING_KEY_PROPERTY), plannedObject.getPayload().get(RabbitMQPayloads.ARGUMENTS_PROPERTY)));
+				break;
+			default:
+				break;
+			}
+		}
+
+		List<PrunedObject> bindings = new ArrayList<>();
+		Map<String, List<ObjectKey>> bindingsByQueue = new HashMap<>();
+		Map<String, List<ObjectKey>> bindingsByExchange = new HashMap<>();
+		for (JsonNode binding : OBJECT_MAPPER.readTree(liveBindings)) {
+			String exchangeName = binding.path("source").asText();
+			String queueName = binding.path("destination").asText();
+			Object routingKey = binding.path(RabbitMQPayloads.ROUTING_KEY_PROPERTY).asText();
+			if (!"queue".equals(binding.path("destination_type").asText()) || isReserved(exchangeName) || isReserved(queueName)
+					|| plannedBindings.contains(bindingIdentity(exchangeName, queueName, routingKey, arguments(binding)))) {
+				continue;
+			}
+			String propertiesKey = binding.path("properties_key").asText();
+			ObjectKey bindingKey = new ObjectKey(virtualHostName, ObjectType.BINDING, String.format("%s -> %s [%s]", exchangeName, queueName, propertiesKey));
+			bindings.add(new PrunedObject(bindingKey, Collections.emptyList(), exchangeName, queueName, propertiesKey));
+			bindingsByQueue.computeIfAbsent(queueName, name -> new ArrayList<>()).add(bindingKey);
+			bindingsByExchange.computeIfAbsent(exchangeName, name -> new ArrayList<>()).add(bindingKey);
+		}
+
+		List<PrunedObject> prunedObjects = new ArrayList<>(bindings);
+		for (String queueName : liveTopology.getQueues().keySet()) {
+			if (!isReserved(queueName) && !plannedQueues.contains(queueName)) {
+				prunedObjects.add(new PrunedObject(new ObjectKey(virtualHostName, ObjectType.QUEUE, queueName),
+						bindingsByQueue.getOrDefault(queueName, Collections.emptyList()), null, null, null));
+			}
+		}
+		for (String exchangeName : liveTopology.getExchanges().keySet()) {
+			if (!isReserved(exchangeName) && !plannedExchanges.contains(exchangeName)) {
+				prunedObjects.add(new PrunedObject(new ObjectKey(virtualHostName, ObjectType.EXCHANGE, exchangeName),
+						bindingsByExchange.getOrDefault(exchangeName, Collections.emptyList()), null, null, null));
+			}
+		}
+		return prunedObjects;
+	}
+
+	private boolean isReserved(String name) {
+		return StringUtils.isEmpty(name) || StringUtils.startsWithIgnoreCase(name, reservedNamePrefix);
+	}
+
+	private static List<Object> bindingIdentity(String exchangeName, String queueName, Object routingKey, Object arguments) {
+		return List.of(exchangeName, queueName, routingKey == null ? "" : routingKey, arguments == null ? Collections.emptyMap() : arguments);
+	}
+
+	private static Map<String, Object> arguments(JsonNode node) {
+		JsonNode arguments = node.path(RabbitMQPayloads.ARGUMENTS_PROPERTY);
+		if (!arguments.isObject()) {
+			return new HashMap<>();
+		}
+		return OBJECT_MAPPER.convertValue(arguments, MAP_TYPE);
+	}
+
+}
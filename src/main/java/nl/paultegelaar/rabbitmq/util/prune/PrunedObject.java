@@ -0,0 +1,75 @@
+package nl.paultegelaar.rabbitmq.util.prune;
+
+import java.util.Collections;
+import java.util.List;
+
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+
+/**
+ * An object present on the broker but not in the configuration, containing everything needed to delete it.
+ *
+ */
+public class PrunedObject {
+
+	private final ObjectKey key;
+	private final List<ObjectKey> dependencies;
+	private final String exchangeName;
+	private final String queueName;
+	private final String propertiesKey;
+
+	/**
+	 * Create pruned object
+	 *
+	 * @param key
+	 * @param dependencies  objects which must be deleted before this one
+	 * @param exchangeName  source exchange, only for bindings
+	 * @param queueName     destination queue, only for bindings
+	 * @param propertiesKey identifies the binding in the management API, only for bindings
+	 */
+	public PrunedObject(ObjectKey key, List<ObjectKey> dependencies, String exchangeName, String queueName, String propertiesKey) {
+		this.key = key;
+		this.dependencies = Collections.unmodifiableList(dependencies);
+		this.exchangeName = exchangeName;
+		this.queueName = queueName;
+		this.propertiesKey = propertiesKey;
+	}
+
+	public ObjectKey getKey() {
+		return key;
+	}
+
+	public ObjectType getObjectType() {
+		return key.getObjectType();
+	}
+
+	public String getVirtualHostName() {
+		return key.getVirtualHostName();
+	}
+
+	public String getName() {
+		return key.getName();
+	}
+
+	public List<ObjectKey> getDependencies() {
+		return dependencies;
+	}
+
+	public String getExchangeName() {
+		return exchangeName;
+	}
+
+	public String getQueueName() {
+		return queueName;
+	}
+
+	public String getPropertiesKey() {
+		return propertiesKey;
+	}
+
+	@Override
+	public String toString() {
+		return key.toString();
+	}
+
+}
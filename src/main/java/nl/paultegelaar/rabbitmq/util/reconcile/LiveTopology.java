@@ -0,0 +1,153 @@
+package nl.paultegelaar.rabbitmq.util.reconcile;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * In-memory index of the queues, exchanges, bindings and policies present in a single virtual host on the broker.
+ *
+ */
+public class LiveTopology {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+	private static final String NAME_PROPERTY = "name";
+
+	private final Map<String, Map<String, Object>> queues = new HashMap<>();
+	private final Map<String, Map<String, Object>> exchanges = new HashMap<>();
+	private final Map<String, Map<String, Object>> bindings = new HashMap<>();
+	private final Map<String, Map<String, Object>> policies = new HashMap<>();
+
+	/**
+	 * Build index from a vhost definitions document as returned by the management API
+	 *
+	 * @param definitions
+	 * @return LiveTopology containing all queues, exchanges, bindings and policies of the document
+	 * @throws IOException when the document can't be parsed
+	 */
+	public static LiveTopology fromDefinitions(String definitions) throws IOException {
+		LiveTopology liveTopology = new LiveTopology();
+		JsonNode root = OBJECT_MAPPER.readTree(definitions);
+
+		for (JsonNode queue : root.path("queues")) {
+			liveTopology.addQueue(queue.path(NAME_PROPERTY).asText(), queue.path(RabbitMQPayloads.DURABLE_PROPERTY).asBoolean(),
+					arguments(queue));
+		}
+		for (JsonNode exchange : root.path("exchanges")) {
+			liveTopology.addExchange(exchange.path(NAME_PROPERTY).asText(), exchange.path(RabbitMQPayloads.TYPE_PROPERTY).asText(),
+					exchange.path(RabbitMQPayloads.DURABLE_PROPERTY).asBoolean());
+		}
+		for (JsonNode binding : root.path("bindings")) {
+			if ("queue".equals(binding.path("destination_type").asText())) {
+				liveTopology.addBinding(binding.path("source").asText(), binding.path("destination").asText(),
+						binding.path(RabbitMQPayloads.ROUTING_KEY_PROPERTY).asText(), arguments(binding));
+			}
+		}
+		for (JsonNode policy : root.path("policies")) {
+			liveTopology.addPolicy(policy.path(NAME_PROPERTY).asText(), policy.path(RabbitMQPayloads.PATTERN_PROPERTY).asText(),
+					policy.path(RabbitMQPayloads.APPLY_TO_PROPERTY).asText(), policy.path(RabbitMQPayloads.PRIORITY_PROPERTY).asInt(),
+					OBJECT_MAPPER.convertValue(policy.path(RabbitMQPayloads.DEFINITION_PROPERTY), MAP_TYPE));
+		}
+		return liveTopology;
+	}
+
+	public void addQueue(String name, boolean durable, Map<String, Object> arguments) {
+		Map<String, Object> queue = new HashMap<>();
+		queue.put(RabbitMQPayloads.DURABLE_PROPERTY, durable);
+		queue.put(RabbitMQPayloads.ARGUMENTS_PROPERTY, arguments);
+		queues.put(name, queue);
+	}
+
+	public void addExchange(String name, String type, boolean durable) {
+		Map<String, Object> exchange = new HashMap<>();
+		exchange.put(RabbitMQPayloads.TYPE_PROPERTY, type);
+		exchange.put(RabbitMQPayloads.DURABLE_PROPERTY, durable);
+		exchanges.put(name, exchange);
+	}
+
+	public void addBinding(String exchangeName, String queueName, String routingKey, Map<String, Object> arguments) {
+		Map<String, Object> binding = new HashMap<>();
+		binding.put(RabbitMQPayloads.ROUTING_KEY_PROPERTY, routingKey);
+		binding.put(RabbitMQPayloads.ARGUMENTS_PROPERTY, arguments);
+		bindings.put(bindingKey(exchangeName, queueName, routingKey), binding);
+	}
+
+	public void addPolicy(String name, String pattern, String applyTo, int priority, Map<String, Object> definition) {
+		policies.put(name, RabbitMQPayloads.policy(pattern, applyTo, priority, definition));
+	}
+
+	/**
+	 * Check if a planned object is present with exactly the planned settings
+	 *
+	 * @param plannedObject
+	 * @return true when nothing has to be sent for this object
+	 */
+	public boolean matches(PlannedObject plannedObject) {
+		Map<String, Object> liveObject = find(plannedObject);
+		// Reserved exchanges are left out of definitions, only an exchange in the index proves existence
+		if (plannedObject.getObjectType() == ObjectType.EXCHANGE && plannedObject.isExistenceCheck()) {
+			return liveObject != null;
+		}
+		return plannedObject.getPayload().equals(liveObject);
+	}
+
+	/**
+	 * Find the object on the broker matching a planned object, bindings are found by exchange, queue and routing key
+	 *
+	 * @param plannedObject
+	 * @return settings of the live object in the same form as the planned payload, null when it is not present or the
+	 *         object type is not indexed
+	 */
+	public Map<String, Object> find(PlannedObject plannedObject) {
+		switch (plannedObject.getObjectType()) {
+		case QUEUE:
+		case DEAD_LETTER_QUEUE:
+			return queues.get(plannedObject.getName());
+		case EXCHANGE:
+			return exchanges.get(plannedObject.getName());
+		case BINDING:
+			return bindings.get(bindingKey(plannedObject.getExchangeName(), plannedObject.getQueueName(),
+					(String) plannedObject.getPayload().get(RabbitMQPayloads.ROUTING_KEY_PROPERTY)));
+		case POLICY:
+			return policies.get(plannedObject.getName());
+		default:
+			return null;
+		}
+	}
+
+	public Map<String, Map<String, Object>> getQueues() {
+		return Collections.unmodifiableMap(queues);
+	}
+
+	public Map<String, Map<String, Object>> getExchanges() {
+		return Collections.unmodifiableMap(exchanges);
+	}
+
+	public int size() {
+		return queues.size() + exchanges.size() + bindings.size() + policies.size();
+	}
+
+	private static Map<String, Object> arguments(JsonNode node) {
+		JsonNode arguments = node.path(RabbitMQPayloads.ARGUMENTS_PROPERTY);
+		if (!arguments.isObject()) {
+			return new HashMap<>();
+		}
+		return OBJECT_MAPPER.convertValue(arguments, MAP_TYPE);
+	}
+
+	private static String bindingKey(String exchangeName, String queueName, String routingKey) {
+		return String.join("\u0000", exchangeName, queueName, routingKey);
+	}
+
+}
@@ -0,0 +1,41 @@
+package nl.paultegelaar.rabbitmq.util.reconcile;
+
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+
+/**
+ * Compares a plan with the live topology of the broker and keeps only the objects which have to be created or updated.
+ *
+ */
+public final class TopologyReconciler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TopologyReconciler.class);
+
+	private TopologyReconciler() {
+	}
+
+	/**
+	 * Reconcile plan with the live topologies
+	 *
+	 * @param provisioningPlan
+	 * @param liveTopologies   live topology per virtual host name, a downloaded topology proves the vhost exists
+	 * @return ProvisioningPlan containing the creates and updates which are actually needed
+	 */
+	public static ProvisioningPlan reconcile(ProvisioningPlan provisioningPlan, Map<String, LiveTopology> liveTopologies) {
+		ProvisioningPlan reconciledPlan = provisioningPlan.filter(plannedObject -> {
+			LiveTopology liveTopology = liveTopologies.get(plannedObject.getVirtualHostName());
+			if (liveTopology == null) {
+				return true;
+			}
+			return plannedObject.getObjectType() != ObjectType.VHOST && !liveTopology.matches(plannedObject);
+		});
+		LOGGER.info("Reconciled plan, {} of {} object(s) need to be sent", reconciledPlan.size(), provisioningPlan.size());
+		return reconciledPlan;
+	}
+
+}
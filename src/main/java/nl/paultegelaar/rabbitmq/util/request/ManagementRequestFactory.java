@@ -0,0 +1,439 @@
+package nl.paultegelaar.rabbitmq.util.request;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.http.Header;
+import org.apache.http.client.methods.HttpDelete;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.entity.ContentType;
+import org.apache.http.message.BasicHeader;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * Creates the requests sent to the management API. Everything which is the same for every request, the headers
+ * including the encoded credentials and the compiled paths, is prepared once. Bodies are serialized straight to bytes.
+ *
+ * Thread safe, a single factory is shared by all workers.
+ *
+ */
+public class ManagementRequestFactory {
+
+	private static final String CONTENT_TYPE_HEADER = "Content-Type";
+	private static final String AUTHORIZATION_HEADER = "Authorization";
+	private static final ObjectWriter OBJECT_WRITER = new ObjectMapper().writer();
+	// Only the columns compared by verify are returned, statistics are left out
+	private static final String QUEUE_COLUMNS = "name,durable,arguments";
+	private static final String EXCHANGE_COLUMNS = "name,type,durable";
+	private static final String BINDING_COLUMNS = "source,destination,destination_type,routing_key,arguments";
+
+	private final Header[] headers;
+	private final Header[] jsonHeaders;
+	private final String apiBaseURL;
+	private final PathTemplate exchangeTemplate;
+	private final PathTemplate queueTemplate;
+	private final PathTemplate deadLetterQueueTemplate;
+	private final PathTemplate bindingTemplate;
+	private final PathTemplate vhostTemplate;
+	private final PathTemplate definitionsTemplate;
+	private final PathTemplate virtualHostBindingsTemplate;
+	private final PathTemplate deleteBindingTemplate;
+	private final PathTemplate policyTemplate;
+	private final PathTemplate operatorPolicyTemplate;
+	private final PathTemplate virtualHostQueuesTemplate;
+	private final PathTemplate virtualHostExchangesTemplate;
+	private final PathTemplate virtualHostPoliciesTemplate;
+	// There are only a few vhosts, encode each of them once
+	private final Map<String, String> encodedVirtualHostNames = new ConcurrentHashMap<>();
+
+	public ManagementRequestFactory(ApplicationConfig applicationConfig) {
+		Header authorization = new BasicHeader(AUTHORIZATION_HEADER, buildBasicAuthCredentials(applicationConfig));
+		this.headers = new Header[] { authorization };
+		this.jsonHeaders = new Header[] { authorization, new BasicHeader(CONTENT_TYPE_HEADER, ContentType.APPLICATION_JSON.getMimeType()) };
+
+		this.apiBaseURL = applicationConfig.getApiBaseURL();
+		this.exchangeTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getExchangePath());
+		this.queueTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getQueuePath());
+		this.deadLetterQueueTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getDeadLetterQueuePath());
+		this.bindingTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getBindingPath());
+		this.vhostTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getVhostPath());
+		this.definitionsTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getDefinitionsPath());
+		this.virtualHostBindingsTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getVirtualHostBindingsPath());
+		// A binding is deleted by its properties key
+		this.deleteBindingTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getBindingPath().concat("/%s"));
+		this.policyTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getPolicyPath());
+		this.operatorPolicyTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getOperatorPolicyPath());
+		this.virtualHostQueuesTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getVirtualHostQueuesPath());
+		this.virtualHostExchangesTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getVirtualHostExchangesPath());
+		this.virtualHostPoliciesTemplate = PathTemplate.compile(apiBaseURL, applicationConfig.getVirtualHostPoliciesPath());
+	}
+
+	/**
+	 * Create or update a new exchange within the specified virtual host
+	 *
+	 * @param virtualhostName
+	 * @param exchangeName
+	 * @param payload containing type and durability
+	 * @return HttpPut request containing json body containing type and durability
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createUpsertExchangeRequest(String virtualhostName, String exchangeName, Map<String, Object> payload)
+			throws IOException, URISyntaxException {
+		return withBody(new HttpPut(exchangeTemplate.expand(encodeVirtualHostName(virtualhostName), exchangeName)), payload);
+	}
+
+	/**
+	 * Create GET request used to check if an exchange exists
+	 *
+	 * @param virtualhostName
+	 * @param exchangeName
+	 * @return HttpGet based on virtualhost and exchange name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createGetExchangeRequest(String virtualhostName, String exchangeName) throws URISyntaxException {
+		return withHeaders(new HttpGet(exchangeTemplate.expand(encodeVirtualHostName(virtualhostName), exchangeName)));
+	}
+
+	/**
+	 * Create a PUT request to create or update queue.
+	 *
+	 * @param virtualhost
+	 * @param queueName
+	 * @param payload containing durability, dead letter and queue type arguments
+	 * @return HttpPut containing the body, URL and headers needed to create a queue
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createQueueRequest(String virtualhost, String queueName, Map<String, Object> payload) throws IOException, URISyntaxException {
+		return withBody(new HttpPut(queueTemplate.expand(encodeVirtualHostName(virtualhost), encode(queueName))), payload);
+	}
+
+	/**
+	 * Create a PUT request to create or update dead letter queue.
+	 *
+	 * @param virtualhost
+	 * @param deadLetterQueueName name of the queue including the dead letter postfix
+	 * @param payload containing durability
+	 * @return HttpPut containing the body, URL and headers needed to create a dead
+	 *         letter queue
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createDeadLetterQueueRequest(String virtualhost, String deadLetterQueueName, Map<String, Object> payload) throws IOException, URISyntaxException {
+		return withBody(new HttpPut(deadLetterQueueTemplate.expand(encodeVirtualHostName(virtualhost), encode(deadLetterQueueName))), payload);
+	}
+
+	/**
+	 * Create a POST request to create a binding between an exchange and a queue
+	 *
+	 * @param virtualhostName
+	 * @param exchangeName
+	 * @param queueName
+	 * @param payload containing routing key and arguments
+	 * @return HttpPost containing the body, URL and headers needed to create a
+	 *         binding
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createBindingRequest(String virtualhostName, String exchangeName, String queueName, Map<String, Object> payload) throws IOException, URISyntaxException {
+		return withBody(new HttpPost(bindingTemplate.expand(encodeVirtualHostName(virtualhostName), encode(exchangeName), encode(queueName))), payload);
+	}
+
+	/**
+	 * Create GET request used to check if a vhost exists
+	 *
+	 * @param virtualhostName
+	 * @return HttpGet based on virtualhost name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createVhostRequest(String virtualhostName) throws URISyntaxException {
+		return withHeaders(new HttpGet(vhostTemplate.expand(encodeVirtualHostName(virtualhostName))));
+	}
+
+	/**
+	 * Create a POST request to upload a definitions document to a virtual host
+	 *
+	 * @param virtualhostName
+	 * @param definitions
+	 * @return HttpPost containing the definitions document
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createDefinitionsRequest(String virtualhostName, Map<String, Object> definitions) throws IOException, URISyntaxException {
+		return withBody(new HttpPost(definitionsTemplate.expand(encodeVirtualHostName(virtualhostName))), definitions);
+	}
+
+	/**
+	 * Create GET request to download the definitions of a virtual host
+	 *
+	 * @param virtualhostName
+	 * @return HttpGet based on virtualhost name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createGetDefinitionsRequest(String virtualhostName) throws URISyntaxException {
+		return withHeaders(new HttpGet(definitionsTemplate.expand(encodeVirtualHostName(virtualhostName))));
+	}
+
+	/**
+	 * Create or update a policy within the specified virtual host
+	 *
+	 * @param virtualhostName
+	 * @param policyName
+	 * @param payload containing pattern, apply-to, priority and definition
+	 * @return HttpPut request containing the policy
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createPolicyRequest(String virtualhostName, String policyName, Map<String, Object> payload) throws IOException, URISyntaxException {
+		return withBody(new HttpPut(policyTemplate.expand(encodeVirtualHostName(virtualhostName), encode(policyName))), payload);
+	}
+
+	/**
+	 * Create or update an operator policy within the specified virtual host
+	 *
+	 * @param virtualhostName
+	 * @param policyName
+	 * @param payload containing pattern, apply-to, priority and definition
+	 * @return HttpPut request containing the operator policy
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createOperatorPolicyRequest(String virtualhostName, String policyName, Map<String, Object> payload)
+			throws IOException, URISyntaxException {
+		return withBody(new HttpPut(operatorPolicyTemplate.expand(encodeVirtualHostName(virtualhostName), encode(policyName))), payload);
+	}
+
+	/**
+	 * Create GET request to list all bindings of a virtual host, including their properties keys
+	 *
+	 * @param virtualhostName
+	 * @return HttpGet based on virtualhost name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createGetBindingsRequest(String virtualhostName) throws URISyntaxException {
+		return withHeaders(new HttpGet(virtualHostBindingsTemplate.expand(encodeVirtualHostName(virtualhostName))));
+	}
+
+	/**
+	 * Create GET request listing a page of the queues of a virtual host, with only the columns compared by verify
+	 *
+	 * @param virtualhostName
+	 * @param page            first page is 1
+	 * @param pageSize
+	 * @return HttpGet based on virtualhost name and page
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createListQueuesRequest(String virtualhostName, int page, int pageSize) throws URISyntaxException {
+		return withHeaders(new HttpGet(withPage(virtualHostQueuesTemplate.expand(encodeVirtualHostName(virtualhostName)), page, pageSize, QUEUE_COLUMNS)));
+	}
+
+	/**
+	 * Create GET request listing a page of the exchanges of a virtual host, with only the columns compared by verify
+	 *
+	 * @param virtualhostName
+	 * @param page            first page is 1
+	 * @param pageSize
+	 * @return HttpGet based on virtualhost name and page
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createListExchangesRequest(String virtualhostName, int page, int pageSize) throws URISyntaxException {
+		return withHeaders(new HttpGet(withPage(virtualHostExchangesTemplate.expand(encodeVirtualHostName(virtualhostName)), page, pageSize,
+				EXCHANGE_COLUMNS)));
+	}
+
+	/**
+	 * Create GET request listing the bindings of a virtual host, with only the columns compared by verify. The bindings
+	 * list is not paginated by the management API.
+	 *
+	 * @param virtualhostName
+	 * @return HttpGet based on virtualhost name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createListBindingsRequest(String virtualhostName) throws URISyntaxException {
+		URI uri = virtualHostBindingsTemplate.expand(encodeVirtualHostName(virtualhostName));
+		return withHeaders(new HttpGet(new URI(uri.toString().concat("?columns=").concat(BINDING_COLUMNS))));
+	}
+
+	/**
+	 * Create GET request listing the policies of a virtual host
+	 *
+	 * @param virtualhostName
+	 * @return HttpGet based on virtualhost name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createListPoliciesRequest(String virtualhostName) throws URISyntaxException {
+		return withHeaders(new HttpGet(virtualHostPoliciesTemplate.expand(encodeVirtualHostName(virtualhostName))));
+	}
+
+	/**
+	 * Create a DELETE request to delete a queue
+	 *
+	 * @param virtualhostName
+	 * @param queueName
+	 * @param ifEmpty only delete the queue when it contains no messages
+	 * @return HttpDelete based on virtualhost and queue name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createDeleteQueueRequest(String virtualhostName, String queueName, boolean ifEmpty) throws URISyntaxException {
+		URI uri = queueTemplate.expand(encodeVirtualHostName(virtualhostName), encode(queueName));
+		return withHeaders(new HttpDelete(ifEmpty ? new URI(uri.toString().concat("?if-empty=true")) : uri));
+	}
+
+	/**
+	 * Create a DELETE request to delete an exchange
+	 *
+	 * @param virtualhostName
+	 * @param exchangeName
+	 * @return HttpDelete based on virtualhost and exchange name
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createDeleteExchangeRequest(String virtualhostName, String exchangeName) throws URISyntaxException {
+		return withHeaders(new HttpDelete(exchangeTemplate.expand(encodeVirtualHostName(virtualhostName), encode(exchangeName))));
+	}
+
+	/**
+	 * Create a DELETE request to delete a binding between an exchange and a queue
+	 *
+	 * @param virtualhostName
+	 * @param exchangeName
+	 * @param queueName
+	 * @param propertiesKey identifies the binding, as listed by the management API
+	 * @return HttpDelete based on virtualhost, exchange, queue and properties key
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createDeleteBindingRequest(String virtualhostName, String exchangeName, String queueName, String propertiesKey)
+			throws URISyntaxException {
+		return withHeaders(new HttpDelete(deleteBindingTemplate.expand(encodeVirtualHostName(virtualhostName), encode(exchangeName), encode(queueName),
+				encode(propertiesKey))));
+	}
+
+	/**
+	 * Create the request creating or checking a planned object
+	 *
+	 * @param plannedObject
+	 * @return HttpUriRequest matching the object type
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createRequest(PlannedObject plannedObject) throws IOException, URISyntaxException {
+		String virtualHostName = plannedObject.getVirtualHostName();
+		String name = plannedObject.getName();
+		switch (plannedObject.getObjectType()) {
+		case VHOST:
+			return createVhostRequest(virtualHostName);
+		case QUEUE:
+			return createQueueRequest(virtualHostName, name, plannedObject.getPayload());
+		case DEAD_LETTER_QUEUE:
+			return createDeadLetterQueueRequest(virtualHostName, name, plannedObject.getPayload());
+		case EXCHANGE:
+			// Reserved exchanges can't be created, they are only checked
+			return plannedObject.isExistenceCheck() ? createGetExchangeRequest(virtualHostName, name)
+					: createUpsertExchangeRequest(virtualHostName, name, plannedObject.getPayload());
+		case BINDING:
+			return createBindingRequest(virtualHostName, plannedObject.getExchangeName(), plannedObject.getQueueName(), plannedObject.getPayload());
+		case POLICY:
+			return createPolicyRequest(virtualHostName, name, plannedObject.getPayload());
+		case OPERATOR_POLICY:
+			return createOperatorPolicyRequest(virtualHostName, name, plannedObject.getPayload());
+		default:
+			throw new IllegalArgumentException(String.format("Unsupported object type: %s", plannedObject.getObjectType()));
+		}
+	}
+
+	/**
+	 * Create a request from a method, a path relative to the API base URL and an already serialized body, used to
+	 * replay recorded requests
+	 *
+	 * @param method GET, PUT, POST or DELETE
+	 * @param path   encoded path, e.g. /api/queues/%2F/orders
+	 * @param body   JSON body, null for requests without a body
+	 * @return HttpUriRequest
+	 * @throws URISyntaxException
+	 */
+	public HttpUriRequest createRequest(String method, String path, byte[] body) throws URISyntaxException {
+		URI uri = new URI(apiBaseURL.concat(path));
+		HttpRequestBase request;
+		switch (method) {
+		case HttpGet.METHOD_NAME:
+			request = new HttpGet(uri);
+			break;
+		case HttpPut.METHOD_NAME:
+			request = new HttpPut(uri);
+			break;
+		case HttpPost.METHOD_NAME:
+			request = new HttpPost(uri);
+			break;
+		case HttpDelete.METHOD_NAME:
+			request = new HttpDelete(uri);
+			break;
+		default:
+			throw new IllegalArgumentException(String.format("Unsupported method: %s", method));
+		}
+
+		if (body != null && request instanceof HttpEntityEnclosingRequestBase) {
+			request.setHeaders(jsonHeaders);
+			((HttpEntityEnclosingRequestBase) request).setEntity(new ByteArrayEntity(body));
+		} else {
+			request.setHeaders(headers);
+		}
+		return request;
+	}
+
+	private static URI withPage(URI uri, int page, int pageSize, String columns) throws URISyntaxException {
+		return new URI(String.format("%s?page=%s&page_size=%s&columns=%s&disable_stats=true", uri, page, pageSize, columns));
+	}
+
+	private HttpUriRequest withHeaders(HttpRequestBase request) {
+		request.setHeaders(headers);
+		return request;
+	}
+
+	private HttpUriRequest withBody(HttpEntityEnclosingRequestBase request, Map<String, Object> payload) throws IOException {
+		request.setHeaders(jsonHeaders);
+		request.setEntity(new ByteArrayEntity(OBJECT_WRITER.writeValueAsBytes(payload)));
+		return request;
+	}
+
+	private String encodeVirtualHostName(String virtualHostName) {
+		return encodedVirtualHostNames.computeIfAbsent(virtualHostName, ManagementRequestFactory::encode);
+	}
+
+	private static String encode(String value) {
+		return URLEncoder.encode(value, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Create basic auth credentials based on configs
+	 *
+	 * @param applicationConfig
+	 * @return String containing base64 encoded credentials including Basic prefix.
+	 */
+	private static String buildBasicAuthCredentials(ApplicationConfig applicationConfig) {
+
+		// Encode username and password
+		String credentials = Base64.getEncoder().encodeToString(
+				(applicationConfig.getApiUsername() + ":" + new String(applicationConfig.getApiPassword()))
+						.getBytes(StandardCharsets.UTF_8));
+		return "Basic ".concat(credentials);
+
+	}
+
+}
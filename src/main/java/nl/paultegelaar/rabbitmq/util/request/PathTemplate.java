@@ -0,0 +1,74 @@
+package nl.paultegelaar.rabbitmq.util.request;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A management API path compiled once, so building a URL is a single concatenation instead of parsing the format
+ * string on every request. Only %s placeholders are supported, which is what the configured paths use.
+ *
+ */
+public final class PathTemplate {
+
+	private static final String PLACEHOLDER = "%s";
+
+	private final String[] segments;
+	private final int literalLength;
+
+	private PathTemplate(String[] segments) {
+		this.segments = segments;
+		int length = 0;
+		for (String segment : segments) {
+			length += segment.length();
+		}
+		this.literalLength = length;
+	}
+
+	/**
+	 * Compile the base URL and path into a template
+	 *
+	 * @param baseURL
+	 * @param path containing %s placeholders
+	 * @return PathTemplate
+	 */
+	public static PathTemplate compile(String baseURL, String path) {
+		String template = baseURL.concat(path);
+		List<String> segments = new ArrayList<>();
+		int start = 0;
+		int placeholder;
+		while ((placeholder = template.indexOf(PLACEHOLDER, start)) >= 0) {
+			segments.add(template.substring(start, placeholder));
+			start = placeholder + PLACEHOLDER.length();
+		}
+		segments.add(template.substring(start));
+		return new PathTemplate(segments.toArray(new String[0]));
+	}
+
+	/**
+	 * Insert the values, they must already be encoded
+	 *
+	 * @param values one per placeholder
+	 * @return URI with values inserted
+	 * @throws URISyntaxException
+	 */
+	public URI expand(String... values) throws URISyntaxException {
+		if (values.length != segments.length - 1) {
+			throw new IllegalArgumentException(String.format("Expected %s value(s), received %s", segments.length - 1, values.length));
+		}
+
+		int length = literalLength;
+		for (String value : values) {
+			length += value.length();
+		}
+
+		StringBuilder url = new StringBuilder(length);
+		url.append(segments[0]);
+		for (int index = 0; index < values.length; index++) {
+			url.append(values[index]).append(segments[index + 1]);
+		}
+		return new URI(url.toString());
+	}
+
+}
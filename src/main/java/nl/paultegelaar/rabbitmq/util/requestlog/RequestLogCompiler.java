@@ -0,0 +1,120 @@
+package nl.paultegelaar.rabbitmq.util.requestlog;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.metrics.Operation;
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.request.ManagementRequestFactory;
+
+/**
+ * Compiles a {@link ProvisioningPlan} into a request log, newline delimited JSON with one {@link RequestLogEntry} per
+ * line. Entries are ordered by dependency level and within a level in plan order, so the same configuration always
+ * results in the same log and a change to the configuration shows up as a small diff.
+ *
+ * The log always contains the per object requests, also when the configuration is normally applied in definitions
+ * mode. Reconcile and the state file are not applied, they depend on the broker the log is replayed on.
+ *
+ */
+public class RequestLogCompiler {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestLogCompiler.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final ObjectWriter LINE_WRITER = OBJECT_MAPPER.writerFor(RequestLogEntry.class);
+
+	private final ManagementRequestFactory managementRequestFactory;
+
+	public RequestLogCompiler(ApplicationConfig applicationConfig) {
+		// Paths relative to the API base URL and no credentials, the log doesn't depend on the endpoint
+		ApplicationConfig relativeConfig = new ApplicationConfig(applicationConfig);
+		relativeConfig.setApiBaseURL("");
+		relativeConfig.setApiUsername("");
+		relativeConfig.setApiPassword(new char[0]);
+		this.managementRequestFactory = new ManagementRequestFactory(relativeConfig);
+	}
+
+	/**
+	 * Compile the plan into a file, an existing file is replaced
+	 *
+	 * @param provisioningPlan
+	 * @param requestLog
+	 * @return number of entries written
+	 * @throws RabbitMQProvisioningException when the file can't be written
+	 */
+	public int compile(ProvisioningPlan provisioningPlan, Path requestLog) throws RabbitMQProvisioningException {
+		try (Writer writer = Files.newBufferedWriter(requestLog, StandardCharsets.UTF_8)) {
+			int entryCount = compile(provisioningPlan, writer);
+			LOGGER.info("Compiled {} request(s) into {}", entryCount, requestLog);
+			return entryCount;
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+	}
+
+	/**
+	 * Compile the plan
+	 *
+	 * @param provisioningPlan
+	 * @param writer           receives the log, not closed by this method
+	 * @return number of entries written
+	 * @throws IOException
+	 */
+	public int compile(ProvisioningPlan provisioningPlan, Writer writer) throws IOException {
+		// The plan is ordered, the level of every dependency is known before it is needed
+		Map<ObjectKey, Integer> levels = new HashMap<>();
+		List<List<PlannedObject>> objectsByLevel = new ArrayList<>();
+		for (PlannedObject plannedObject : provisioningPlan.getObjects()) {
+			int level = 0;
+			for (ObjectKey dependency : plannedObject.getDependencies()) {
+				level = Math.max(level, levels.get(dependency) + 1);
+			}
+			levels.put(plannedObject.getKey(), level);
+			while (objectsByLevel.size() <= level) {
+				objectsByLevel.add(new ArrayList<>());
+			}
+			objectsByLevel.get(level).add(plannedObject);
+		}
+
+		int entryCount = 0;
+		for (int level = 0; level < objectsByLevel.size(); level++) {
+			for (PlannedObject plannedObject : objectsByLevel.get(level)) {
+				writer.write(LINE_WRITER.writeValueAsString(toEntry(level, plannedObject)));
+				writer.write('\n');
+				entryCount++;
+			}
+		}
+		return entryCount;
+	}
+
+	private RequestLogEntry toEntry(int level, PlannedObject plannedObject) throws IOException {
+		HttpUriRequest request;
+		try {
+			request = managementRequestFactory.createRequest(plannedObject);
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+		return new RequestLogEntry(level, Operation.of(plannedObject), request.getMethod(), request.getURI().toString(), plannedObject.getKey().toString(),
+				plannedObject.getSource(), request instanceof HttpEntityEnclosingRequest ? OBJECT_MAPPER.valueToTree(plannedObject.getPayload()) : null);
+	}
+
+}
@@ -0,0 +1,111 @@
+package nl.paultegelaar.rabbitmq.util.requestlog;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import nl.paultegelaar.rabbitmq.util.metrics.Operation;
+
+/**
+ * A single request in a request log, one JSON object per line. The path is relative to the API base URL and no
+ * credentials are stored, so a log can be reviewed once and replayed on any endpoint.
+ *
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonPropertyOrder({ "level", "operation", "method", "path", "object", "source", "body" })
+public class RequestLogEntry {
+
+	private int level;
+	private Operation operation;
+	private String method;
+	private String path;
+	private String object;
+	private String source;
+	private JsonNode body;
+
+	public RequestLogEntry() {
+	}
+
+	/**
+	 * Create entry
+	 *
+	 * @param level     dependency level, every entry only depends on entries with a lower level
+	 * @param operation used to record metrics
+	 * @param method
+	 * @param path      encoded path relative to the API base URL
+	 * @param object    description of the object, for reviewers
+	 * @param source    JSON path of the declaration in the configuration
+	 * @param body      JSON body, null for requests without a body
+	 */
+	public RequestLogEntry(int level, Operation operation, String method, String path, String object, String source, JsonNode body) {
+		this.level = level;
+		this.operation = operation;
+		this.method = method;
+		this.path = path;
+		this.object = object;
+		this.source = source;
+		this.body = body;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	public Operation getOperation() {
+		return operation;
+	}
+
+	public void setOperation(Operation operation) {
+		this.operation = operation;
+	}
+
+	public String getMethod() {
+		return method;
+	}
+
+	public void setMethod(String method) {
+		this.method = method;
+	}
+
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
+	public String getObject() {
+		return object;
+	}
+
+	public void setObject(String object) {
+		this.object = object;
+	}
+
+	public String getSource() {
+		return source;
+	}
+
+	public void setSource(String source) {
+		this.source = source;
+	}
+
+	public JsonNode getBody() {
+		return body;
+	}
+
+	public void setBody(JsonNode body) {
+		this.body = body;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s %s (%s)", method, path, object);
+	}
+
+}
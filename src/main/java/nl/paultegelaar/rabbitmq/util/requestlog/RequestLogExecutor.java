@@ -0,0 +1,18 @@
+package nl.paultegelaar.rabbitmq.util.requestlog;
+
+/**
+ * Sends a single request of a request log.
+ *
+ */
+@FunctionalInterface
+public interface RequestLogExecutor {
+
+	/**
+	 * Send the request, any exception marks the line as failed
+	 *
+	 * @param requestLogEntry
+	 * @throws Exception
+	 */
+	void execute(RequestLogEntry requestLogEntry) throws Exception;
+
+}
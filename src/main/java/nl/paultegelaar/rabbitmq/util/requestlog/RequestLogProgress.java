@@ -0,0 +1,146 @@
+package nl.paultegelaar.rabbitmq.util.requestlog;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Remembers which lines of a request log have been executed successfully, so an interrupted replay can resume. The
+ * file starts with the fingerprint of the log followed by one completed line number per line, a progress file of
+ * another log is discarded.
+ *
+ * Completed lines are buffered and written at the end of every level, lines completed after the last flush are
+ * executed again when resuming. Every request in a log can safely be sent twice.
+ *
+ */
+public class RequestLogProgress implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestLogProgress.class);
+	private static final String HEADER_PREFIX = "requestLog ";
+
+	private final Path progressFile;
+	private final BitSet completedLines;
+	private final FileChannel channel;
+	private final Writer writer;
+	private boolean closed;
+
+	private RequestLogProgress(Path progressFile, BitSet completedLines, FileChannel channel) {
+		this.progressFile = progressFile;
+		this.completedLines = completedLines;
+		this.channel = channel;
+		this.writer = Channels.newWriter(channel, StandardCharsets.UTF_8.newEncoder(), 8192);
+	}
+
+	/**
+	 * Open the progress of a log, created when it doesn't exist or belongs to another log
+	 *
+	 * @param progressFile
+	 * @param logFingerprint fingerprint of the request log
+	 * @return RequestLogProgress
+	 * @throws IOException
+	 */
+	public static RequestLogProgress open(Path progressFile, String logFingerprint) throws IOException {
+		String header = HEADER_PREFIX.concat(logFingerprint);
+		BitSet completedLines = new BitSet();
+		boolean resume = false;
+		if (Files.exists(progressFile)) {
+			try (BufferedReader reader = Files.newBufferedReader(progressFile, StandardCharsets.UTF_8)) {
+				resume = header.equals(reader.readLine());
+				String line;
+				while (resume && (line = reader.readLine()) != null) {
+					try {
+						completedLines.set(Integer.parseInt(line));
+					} catch (NumberFormatException e) {
+						// Partially written last line
+						break;
+					}
+				}
+			}
+			if (resume) {
+				LOGGER.info("Resuming from {}, {} request(s) already completed", progressFile, completedLines.cardinality());
+			} else {
+				LOGGER.info("Progress file {} belongs to another request log, replaying all requests", progressFile);
+				completedLines.clear();
+			}
+		}
+
+		FileChannel channel;
+		if (resume) {
+			channel = FileChannel.open(progressFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		} else {
+			channel = FileChannel.open(progressFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+		}
+		RequestLogProgress requestLogProgress = new RequestLogProgress(progressFile, completedLines, channel);
+		if (!resume) {
+			requestLogProgress.writer.write(header);
+			requestLogProgress.writer.write('\n');
+			requestLogProgress.flush();
+		}
+		return requestLogProgress;
+	}
+
+	/**
+	 * @param line zero based line number in the log
+	 * @return true when the line was completed by an earlier replay
+	 */
+	public synchronized boolean isCompleted(int line) {
+		return completedLines.get(line);
+	}
+
+	/**
+	 * Record a completed line, safe to call from multiple threads
+	 *
+	 * @param line zero based line number in the log
+	 * @throws IOException
+	 */
+	public synchronized void recordCompleted(int line) throws IOException {
+		completedLines.set(line);
+		writer.write(Integer.toString(line));
+		writer.write('\n');
+	}
+
+	/**
+	 * Write the completed lines to disk
+	 *
+	 * @throws IOException
+	 */
+	public synchronized void flush() throws IOException {
+		writer.flush();
+		channel.force(false);
+	}
+
+	/**
+	 * The whole log has been replayed, the progress file is removed so the next replay starts from the first line
+	 *
+	 * @throws IOException
+	 */
+	public void complete() throws IOException {
+		close();
+		Files.deleteIfExists(progressFile);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			flush();
+		} finally {
+			writer.close();
+		}
+	}
+
+}
@@ -0,0 +1,169 @@
+package nl.paultegelaar.rabbitmq.util.requestlog;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.engine.ProvisioningEngine;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+
+/**
+ * Replays a request log compiled by {@link RequestLogCompiler}. The log is read line by line, the requests of a level
+ * are sent in parallel while the rest of the level is still being read, bounded by the maximum number of requests in
+ * flight and pending objects. The next level starts once every request of the current level has succeeded, a failed
+ * request stops the replay after its level.
+ *
+ * Completed lines are recorded in a progress file, by default the log file name followed by .progress. A replay of the
+ * same log resumes after the completed lines, the progress file is removed once the whole log has been replayed.
+ *
+ */
+public class RequestLogReplayer {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestLogReplayer.class);
+	private static final ObjectReader LINE_READER = new ObjectMapper().readerFor(RequestLogEntry.class);
+	private static final String PROGRESS_FILE_POSTFIX = ".progress";
+
+	private final ApplicationConfig applicationConfig;
+	private final RequestLogExecutor requestLogExecutor;
+
+	public RequestLogReplayer(ApplicationConfig applicationConfig, RequestLogExecutor requestLogExecutor) {
+		this.applicationConfig = applicationConfig;
+		this.requestLogExecutor = requestLogExecutor;
+	}
+
+	/**
+	 * Replay the log, resuming after the lines completed by an earlier replay
+	 *
+	 * @param requestLog
+	 * @return number of requests sent
+	 * @throws RabbitMQProvisioningException when the log can't be read or a request failed
+	 */
+	public int replay(Path requestLog) throws RabbitMQProvisioningException {
+		Path progressFile = StringUtils.isBlank(applicationConfig.getReplayProgressFile())
+				? Paths.get(requestLog.toString().concat(PROGRESS_FILE_POSTFIX)) : Paths.get(applicationConfig.getReplayProgressFile());
+
+		int sentCount = 0;
+		int resumedCount = 0;
+		try (RequestLogProgress requestLogProgress = RequestLogProgress.open(progressFile, fingerprint(requestLog));
+				BufferedReader reader = Files.newBufferedReader(requestLog, StandardCharsets.UTF_8)) {
+			ProvisioningEngine<Integer> provisioningEngine = null;
+			try {
+				int currentLevel = -1;
+				int lineNumber = -1;
+				String line;
+				while ((line = reader.readLine()) != null) {
+					lineNumber++;
+					if (StringUtils.isBlank(line)) {
+						continue;
+					}
+					RequestLogEntry requestLogEntry = parse(line, lineNumber);
+					if (requestLogEntry.getLevel() < currentLevel) {
+						throw new RabbitMQProvisioningException(String.format("Request log is not ordered by level at line %s", lineNumber + 1));
+					}
+					if (requestLogEntry.getLevel() > currentLevel) {
+						completeLevel(provisioningEngine, requestLogProgress, currentLevel);
+						currentLevel = requestLogEntry.getLevel();
+						provisioningEngine = new ProvisioningEngine<>(applicationConfig.getWorkerThreads(), applicationConfig.isPreferVirtualThreads(),
+								applicationConfig.getMaxRequestsInFlight(), applicationConfig.getMaxPendingObjects());
+					}
+					if (requestLogProgress.isCompleted(lineNumber)) {
+						resumedCount++;
+						continue;
+					}
+
+					int completedLine = lineNumber;
+					provisioningEngine.submit(completedLine, String.format("line %s, %s", completedLine + 1, requestLogEntry), Collections.emptyList(), () -> {
+						requestLogExecutor.execute(requestLogEntry);
+						requestLogProgress.recordCompleted(completedLine);
+					});
+					sentCount++;
+				}
+				completeLevel(provisioningEngine, requestLogProgress, currentLevel);
+				provisioningEngine = null;
+			} finally {
+				if (provisioningEngine != null) {
+					provisioningEngine.close();
+				}
+			}
+			requestLogProgress.complete();
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+		LOGGER.info("Replayed {} request(s) from {}, {} request(s) completed by an earlier replay", sentCount, requestLog, resumedCount);
+		return sentCount;
+	}
+
+	/**
+	 * Wait for the requests of a level and record them on disk
+	 *
+	 * @param provisioningEngine engine of the level, null before the first level
+	 * @param requestLogProgress
+	 * @param level
+	 * @throws RabbitMQProvisioningException listing every failed line
+	 * @throws IOException                   when the progress can't be written
+	 */
+	private static void completeLevel(ProvisioningEngine<Integer> provisioningEngine, RequestLogProgress requestLogProgress, int level)
+			throws RabbitMQProvisioningException, IOException {
+		if (provisioningEngine == null) {
+			return;
+		}
+		try {
+			provisioningEngine.awaitCompletion();
+			LOGGER.info("Level {} completed", level);
+		} finally {
+			provisioningEngine.close();
+			requestLogProgress.flush();
+		}
+	}
+
+	private static RequestLogEntry parse(String line, int lineNumber) throws RabbitMQProvisioningException {
+		try {
+			RequestLogEntry requestLogEntry = LINE_READER.readValue(line);
+			if (StringUtils.isAnyBlank(requestLogEntry.getMethod(), requestLogEntry.getPath()) || requestLogEntry.getOperation() == null) {
+				throw new RabbitMQProvisioningException(String.format("Request log line %s misses method, path or operation", lineNumber + 1));
+			}
+			return requestLogEntry;
+		} catch (JsonProcessingException e) {
+			throw new RabbitMQProvisioningException(String.format("Request log line %s can't be parsed: %s", lineNumber + 1, e.getOriginalMessage()));
+		}
+	}
+
+	/**
+	 * @param requestLog
+	 * @return hex encoded SHA-256 hash of the log
+	 * @throws IOException
+	 */
+	static String fingerprint(Path requestLog) throws IOException {
+		try {
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			try (InputStream inputStream = new DigestInputStream(Files.newInputStream(requestLog), messageDigest)) {
+				byte[] buffer = new byte[65536];
+				while (inputStream.read(buffer) >= 0) {
+					// Only digested
+				}
+			}
+			return String.format("%064x", new BigInteger(1, messageDigest.digest()));
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
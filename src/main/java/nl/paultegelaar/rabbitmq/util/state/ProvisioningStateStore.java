@@ -0,0 +1,186 @@
+package nl.paultegelaar.rabbitmq.util.state;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import nl.paultegelaar.rabbitmq.util.plan.ObjectKey;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * Keeps a fingerprint of the payload last sent successfully for every provisioned object, persisted in a local state
+ * file. Objects with an unchanged fingerprint don't have to be sent again.
+ *
+ * The file is replaced with an atomic rename, a crashed run leaves the previous state intact.
+ *
+ */
+public class ProvisioningStateStore {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProvisioningStateStore.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper().configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true);
+	private static final String ENDPOINT_PROPERTY = "endpoint";
+	private static final String OBJECTS_PROPERTY = "objects";
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Path stateFile;
+	private final String endpoint;
+	private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+	/**
+	 * Load the state, a missing file or a file written for another endpoint results in an empty state
+	 *
+	 * @param stateFile
+	 * @param endpoint  management API the state belongs to
+	 * @return ProvisioningStateStore
+	 * @throws IOException when the file exists but can't be read
+	 */
+	public static ProvisioningStateStore load(Path stateFile, String endpoint) throws IOException {
+		ProvisioningStateStore provisioningStateStore = new ProvisioningStateStore(stateFile, endpoint);
+		if (!Files.exists(stateFile)) {
+			LOGGER.info("No state file found at {}, applying all objects", stateFile);
+			return provisioningStateStore;
+		}
+
+		JsonNode root = OBJECT_MAPPER.readTree(stateFile.toFile());
+		if (!endpoint.equals(root.path(ENDPOINT_PROPERTY).asText())) {
+			LOGGER.info("State file {} belongs to endpoint {}, applying all objects", stateFile, root.path(ENDPOINT_PROPERTY).asText());
+			return provisioningStateStore;
+		}
+		root.path(OBJECTS_PROPERTY).fields().forEachRemaining(entry -> provisioningStateStore.fingerprints.put(entry.getKey(), entry.getValue().asText()));
+		LOGGER.info("Loaded {} fingerprint(s) from state file {}", provisioningStateStore.fingerprints.size(), stateFile);
+		return provisioningStateStore;
+	}
+
+	private ProvisioningStateStore(Path stateFile, String endpoint) {
+		this.stateFile = stateFile;
+		this.endpoint = endpoint;
+	}
+
+	/**
+	 * @param plannedObject
+	 * @return true when the object was sent before with exactly the same payload
+	 */
+	public boolean isUnchanged(PlannedObject plannedObject) {
+		return fingerprint(plannedObject).equals(fingerprints.get(stateKey(plannedObject.getKey())));
+	}
+
+	/**
+	 * Record a successfully provisioned object, safe to call from multiple threads
+	 *
+	 * @param plannedObject
+	 */
+	public void recordSuccess(PlannedObject plannedObject) {
+		fingerprints.put(stateKey(plannedObject.getKey()), fingerprint(plannedObject));
+	}
+
+	/**
+	 * Forget objects which are no longer configured, so they are applied again when they return
+	 *
+	 * @param configuredKeys
+	 */
+	public void retainAll(Set<ObjectKey> configuredKeys) {
+		Set<String> configuredStateKeys = ConcurrentHashMap.newKeySet();
+		for (ObjectKey configuredKey : configuredKeys) {
+			configuredStateKeys.add(stateKey(configuredKey));
+		}
+		fingerprints.keySet().retainAll(configuredStateKeys);
+	}
+
+	/**
+	 * Write the state to a temporary file next to the state file and atomically rename it
+	 *
+	 * @throws IOException
+	 */
+	public void save() throws IOException {
+		Map<String, Object> root = new TreeMap<>();
+		root.put(ENDPOINT_PROPERTY, endpoint);
+		root.put(OBJECTS_PROPERTY, new TreeMap<>(fingerprints));
+
+		Path directory = stateFile.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path temporaryFile = Files.createTempFile(directory, stateFile.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE);
+					OutputStream outputStream = Channels.newOutputStream(channel)) {
+				outputStream.write(OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(root));
+				outputStream.flush();
+				channel.force(true);
+			}
+			try {
+				Files.move(temporaryFile, stateFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporaryFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} finally {
+			Files.deleteIfExists(temporaryFile);
+		}
+		LOGGER.info("Saved {} fingerprint(s) to state file {}", fingerprints.size(), stateFile);
+	}
+
+	/**
+	 * Content hash of everything that is sent for an object
+	 *
+	 * @param plannedObject
+	 * @return hex encoded SHA-256 hash
+	 */
+	public static String fingerprint(PlannedObject plannedObject) {
+		try {
+			Map<String, Object> content = new TreeMap<>();
+			content.put("existenceCheck", plannedObject.isExistenceCheck());
+			content.put("payload", plannedObject.getPayload());
+			content.put("exchange", plannedObject.getExchangeName());
+			content.put("queue", plannedObject.getQueueName());
+			MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+			messageDigest.update(stateKey(plannedObject.getKey()).getBytes(StandardCharsets.UTF_8));
+			return toHex(messageDigest.digest(OBJECT_MAPPER.writeValueAsBytes(content)));
+		} catch (NoSuchAlgorithmException | JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Unambiguous key, vhost and object names may contain any character
+	 *
+	 * @param objectKey
+	 * @return JSON array containing type, vhost and name
+	 */
+	private static String stateKey(ObjectKey objectKey) {
+		try {
+			return OBJECT_MAPPER.writeValueAsString(Arrays.asList(objectKey.getObjectType().name(), objectKey.getVirtualHostName(), objectKey.getName()));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int index = 0; index < bytes.length; index++) {
+			hex[index * 2] = HEX[(bytes[index] >> 4) & 0xF];
+			hex[index * 2 + 1] = HEX[bytes[index] & 0xF];
+		}
+		return new String(hex);
+	}
+
+}
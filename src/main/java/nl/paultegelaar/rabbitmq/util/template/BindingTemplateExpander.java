@@ -0,0 +1,223 @@
+package nl.paultegelaar.rabbitmq.util.template;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.config.Binding;
+import nl.paultegelaar.rabbitmq.config.BindingTemplate;
+import nl.paultegelaar.rabbitmq.config.Exchange;
+import nl.paultegelaar.rabbitmq.config.Queue;
+import nl.paultegelaar.rabbitmq.config.TemplateParameter;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.ingest.BindingHandler;
+
+/**
+ * Expands a {@link BindingTemplate} into concrete bindings, one for every combination of parameter values. Bindings are
+ * generated one at a time and handed to a {@link BindingHandler}, the expansion is never held in memory. The template
+ * is checked when the expander is created, so a broken template is reported before any binding is generated.
+ *
+ * Every expansion must result in a different binding. A parameter which isn't used in the queue name, exchange name
+ * or routing key is reported up front, bindings which are still generated twice, e.g. a${x}${y} for x=1, y=11 and
+ * x=11, y=1, are reported during expansion.
+ *
+ */
+public class BindingTemplateExpander {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(BindingTemplateExpander.class);
+
+	private final BindingTemplate bindingTemplate;
+	private final String templatePath;
+	private final List<TemplateParameter> parameters;
+	private final long expansionCount;
+	private final TemplateString bindingName;
+	private final TemplateString queueName;
+	private final TemplateString exchangeName;
+	private final TemplateString routingKey;
+
+	/**
+	 * Check and compile a template, the template must have passed bean validation
+	 *
+	 * @param bindingTemplate
+	 * @param templatePath    JSON path of the template, e.g. virtualHosts[0].bindingTemplates[1]
+	 * @throws RabbitMQProvisioningException when the template contains errors, all errors are reported at once
+	 */
+	public BindingTemplateExpander(BindingTemplate bindingTemplate, String templatePath) throws RabbitMQProvisioningException {
+		this.bindingTemplate = bindingTemplate;
+		this.templatePath = templatePath;
+		this.parameters = bindingTemplate.getParameters();
+
+		List<String> errors = new ArrayList<>();
+		Map<String, Integer> parameterIndex = new HashMap<>();
+		long count = 1;
+		for (int i = 0; i < parameters.size(); i++) {
+			TemplateParameter parameter = parameters.get(i);
+			String parameterPath = String.format("%s.parameters[%s]", templatePath, i);
+			if (parameterIndex.putIfAbsent(parameter.getName(), i) != null) {
+				errors.add(String.format("%s.name: parameter '%s' is defined more than once", parameterPath, parameter.getName()));
+			}
+			long size = checkParameter(parameter, parameterPath, errors);
+			if (size > 0) {
+				try {
+					count = Math.multiplyExact(count, size);
+				} catch (ArithmeticException e) {
+					errors.add(String.format("%s: template expands to too many bindings", templatePath));
+				}
+			}
+		}
+		this.expansionCount = count;
+
+		Binding binding = bindingTemplate.getBinding();
+		boolean[] usedParameters = new boolean[parameters.size()];
+		String bindingPath = templatePath.concat(".binding");
+		this.bindingName = TemplateString.compile(binding.getName(), bindingPath.concat(".name"), parameterIndex, new boolean[parameters.size()], errors);
+		this.queueName = TemplateString.compile(binding.getQueue().getName(), bindingPath.concat(".queue.name"), parameterIndex, usedParameters, errors);
+		this.exchangeName = TemplateString.compile(binding.getExchange().getName(), bindingPath.concat(".exchange.name"), parameterIndex, usedParameters,
+				errors);
+		this.routingKey = TemplateString.compile(binding.getRoutingKey(), bindingPath.concat(".routingKey"), parameterIndex, usedParameters, errors);
+		for (int i = 0; i < usedParameters.length; i++) {
+			if (!usedParameters[i]) {
+				errors.add(String.format("%s.parameters[%s]: parameter '%s' isn't used in the queue name, exchange name or routing key, "
+						+ "every value would generate the same bindings", templatePath, i, parameters.get(i).getName()));
+			}
+		}
+
+		if (!errors.isEmpty()) {
+			LOGGER.error("Binding template is not valid: {}", errors);
+			throw new RabbitMQProvisioningException(String.format("Binding template contains %s error(s): %s", errors.size(), errors));
+		}
+	}
+
+	private static long checkParameter(TemplateParameter parameter, String parameterPath, List<String> errors) {
+		boolean range = parameter.getFrom() != null || parameter.getTo() != null;
+		boolean values = CollectionUtils.isNotEmpty(parameter.getValues());
+		if (range == values) {
+			errors.add(String.format("%s: must define either from and to or values", parameterPath));
+			return 0;
+		}
+		if (range) {
+			if (parameter.getFrom() == null || parameter.getTo() == null || parameter.getFrom() > parameter.getTo()) {
+				errors.add(String.format("%s: must define from and to, from not larger than to", parameterPath));
+				return 0;
+			}
+			return (long) parameter.getTo() - parameter.getFrom() + 1;
+		}
+		Set<String> uniqueValues = new HashSet<>();
+		for (String value : parameter.getValues()) {
+			if (StringUtils.isEmpty(value)) {
+				errors.add(String.format("%s.values: must not contain empty values", parameterPath));
+			} else if (!uniqueValues.add(value)) {
+				errors.add(String.format("%s.values: value '%s' occurs more than once", parameterPath, value));
+			}
+		}
+		return parameter.getValues().size();
+	}
+
+	/**
+	 * @return number of bindings the template expands to
+	 */
+	public long getExpansionCount() {
+		return expansionCount;
+	}
+
+	/**
+	 * Generate every binding and hand it over as soon as it has been generated. The path of a generated binding is the
+	 * template path followed by the parameter values, e.g. virtualHosts[0].bindingTemplates[1]{tenant=7}.
+	 *
+	 * @param virtualHostName name of the vhost containing the template
+	 * @param bindingHandler
+	 * @return number of bindings handed over
+	 * @throws RabbitMQProvisioningException when the template generates the same binding more than once, the bindings
+	 *                                       generated before the duplicate have already been handed over
+	 */
+	public long expand(String virtualHostName, BindingHandler bindingHandler) throws RabbitMQProvisioningException {
+		LOGGER.info("Expanding binding template {} at {} into {} binding(s)", bindingTemplate.getName(), templatePath, expansionCount);
+		long[] indexes = new long[parameters.size()];
+		String[] values = new String[parameters.size()];
+		// Only the identity of every generated binding is kept, to detect duplicates
+		Set<String> generated = new HashSet<>();
+		long handedOver = 0;
+		for (long expansion = 0; expansion < expansionCount; expansion++) {
+			for (int i = 0; i < parameters.size(); i++) {
+				values[i] = valueOf(parameters.get(i), indexes[i]);
+			}
+
+			Binding binding = render(values);
+			String bindingPath = pathOf(values);
+			String routingKeyValue = StringUtils.defaultIfBlank(binding.getRoutingKey(), binding.getQueue().getName());
+			if (!generated.add(String.join("\u0000", binding.getExchange().getName(), binding.getQueue().getName(), routingKeyValue))) {
+				String message = String.format("%s: binding %s -> %s [%s] is generated more than once", bindingPath, binding.getExchange().getName(),
+						binding.getQueue().getName(), routingKeyValue);
+				LOGGER.error(message);
+				throw new RabbitMQProvisioningException(message);
+			}
+			bindingHandler.handle(virtualHostName, binding, bindingPath);
+			handedOver++;
+
+			// Advance like an odometer, the last parameter changes fastest
+			for (int i = parameters.size() - 1; i >= 0; i--) {
+				if (++indexes[i] < sizeOf(parameters.get(i))) {
+					break;
+				}
+				indexes[i] = 0;
+			}
+		}
+		return handedOver;
+	}
+
+	private static long sizeOf(TemplateParameter parameter) {
+		if (parameter.getFrom() != null) {
+			return (long) parameter.getTo() - parameter.getFrom() + 1;
+		}
+		return parameter.getValues().size();
+	}
+
+	private static String valueOf(TemplateParameter parameter, long index) {
+		if (parameter.getFrom() != null) {
+			return Long.toString(parameter.getFrom() + index);
+		}
+		return parameter.getValues().get((int) index);
+	}
+
+	private Binding render(String[] values) {
+		Binding template = bindingTemplate.getBinding();
+
+		Queue queue = new Queue();
+		queue.setName(queueName.render(values));
+		queue.setDurable(template.getQueue().getDurable());
+		queue.setCreateDLQ(template.getQueue().getCreateDLQ());
+		queue.setType(template.getQueue().getType());
+
+		Exchange exchange = new Exchange();
+		exchange.setName(exchangeName.render(values));
+		exchange.setExchangeType(template.getExchange().getExchangeType());
+		exchange.setDurable(template.getExchange().getDurable());
+
+		Binding binding = new Binding();
+		binding.setName(bindingName.render(values));
+		binding.setQueue(queue);
+		binding.setExchange(exchange);
+		binding.setRoutingKey(routingKey == null ? null : routingKey.render(values));
+		return binding;
+	}
+
+	private String pathOf(String[] values) {
+		StringBuilder path = new StringBuilder(templatePath).append('{');
+		for (int i = 0; i < values.length; i++) {
+			if (i > 0) {
+				path.append(", ");
+			}
+			path.append(parameters.get(i).getName()).append('=').append(values[i]);
+		}
+		return path.append('}').toString();
+	}
+
+}
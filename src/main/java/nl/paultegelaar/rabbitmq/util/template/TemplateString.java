@@ -0,0 +1,80 @@
+package nl.paultegelaar.rabbitmq.util.template;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A string containing ${parameter} placeholders, split into literals and parameter positions once so rendering an
+ * expansion is a plain concatenation.
+ *
+ */
+class TemplateString {
+
+	private static final String PLACEHOLDER_START = "${";
+	private static final char PLACEHOLDER_END = '}';
+
+	// literals.length == parameterIndexes.length + 1, rendered as literal, value, literal, value, ..., literal
+	private final String[] literals;
+	private final int[] parameterIndexes;
+
+	private TemplateString(String[] literals, int[] parameterIndexes) {
+		this.literals = literals;
+		this.parameterIndexes = parameterIndexes;
+	}
+
+	/**
+	 * Compile a template string
+	 *
+	 * @param text           text containing placeholders, may be null
+	 * @param path           JSON path of the text, used to report errors
+	 * @param parameterIndex index of every parameter by name
+	 * @param usedParameters set to true for every parameter referred to
+	 * @param errors         receives an error for every unknown or unterminated placeholder
+	 * @return TemplateString, or null when the text is null
+	 */
+	static TemplateString compile(String text, String path, Map<String, Integer> parameterIndex, boolean[] usedParameters, List<String> errors) {
+		if (text == null) {
+			return null;
+		}
+		List<String> literals = new ArrayList<>();
+		List<Integer> parameterIndexes = new ArrayList<>();
+		int position = 0;
+		int start;
+		while ((start = text.indexOf(PLACEHOLDER_START, position)) >= 0) {
+			int end = text.indexOf(PLACEHOLDER_END, start);
+			if (end < 0) {
+				errors.add(String.format("%s: unterminated placeholder in '%s'", path, text));
+				break;
+			}
+			String parameterName = text.substring(start + PLACEHOLDER_START.length(), end);
+			Integer index = parameterIndex.get(parameterName);
+			if (index == null) {
+				errors.add(String.format("%s: unknown parameter '%s'", path, parameterName));
+			} else {
+				usedParameters[index] = true;
+				literals.add(text.substring(position, start));
+				parameterIndexes.add(index);
+			}
+			position = end + 1;
+		}
+		literals.add(text.substring(position));
+		return new TemplateString(literals.toArray(new String[0]), parameterIndexes.stream().mapToInt(Integer::intValue).toArray());
+	}
+
+	/**
+	 * @param values current value of every parameter, by parameter index
+	 * @return the text with every placeholder replaced
+	 */
+	String render(String[] values) {
+		if (parameterIndexes.length == 0) {
+			return literals[0];
+		}
+		StringBuilder rendered = new StringBuilder(literals[0]);
+		for (int i = 0; i < parameterIndexes.length; i++) {
+			rendered.append(values[parameterIndexes[i]]).append(literals[i + 1]);
+		}
+		return rendered.toString();
+	}
+
+}
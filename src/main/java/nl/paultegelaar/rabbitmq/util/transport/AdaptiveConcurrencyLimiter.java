@@ -0,0 +1,110 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Limits the number of requests in flight using additive increase, multiplicative decrease. Every successful request
+ * answered within the latency threshold grows the limit by 1/limit, so roughly one request per round trip. A request
+ * rejected because the broker is overloaded, failing with an I/O error or slower than the threshold halves the limit.
+ *
+ * Requests which were already in flight when the limit was decreased don't decrease it again, a burst of errors caused
+ * by a single overload only counts once.
+ *
+ */
+public class AdaptiveConcurrencyLimiter {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+	private static final double DECREASE_RATIO = 0.5;
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final long latencyThresholdNanos;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition permitReleased = lock.newCondition();
+
+	private double limit;
+	private int inFlight;
+	private long lastDecreaseNanos;
+
+	/**
+	 * Create limiter starting at the maximum limit
+	 *
+	 * @param minLimit              the limit is never decreased below this value
+	 * @param maxLimit              the limit is never increased above this value
+	 * @param latencyThresholdMillis slower requests are treated as a sign of overload
+	 */
+	public AdaptiveConcurrencyLimiter(int minLimit, int maxLimit, long latencyThresholdMillis) {
+		if (minLimit < 1 || maxLimit < minLimit) {
+			throw new IllegalArgumentException(String.format("Invalid limits, min %s and max %s", minLimit, maxLimit));
+		}
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+		this.limit = maxLimit;
+		this.lastDecreaseNanos = System.nanoTime();
+	}
+
+	/**
+	 * Wait until a request may be sent
+	 *
+	 * @return start of the request, to be passed to {@link #release(long, boolean)}
+	 * @throws InterruptedException
+	 */
+	public long acquire() throws InterruptedException {
+		lock.lock();
+		try {
+			while (inFlight >= (int) limit) {
+				permitReleased.await();
+			}
+			inFlight++;
+			return System.nanoTime();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Release the permit of a completed request and adjust the limit
+	 *
+	 * @param startNanos returned by {@link #acquire()}
+	 * @param overloaded true when the request was rejected or failed because the broker is overloaded
+	 */
+	public void release(long startNanos, boolean overloaded) {
+		long nowNanos = System.nanoTime();
+		lock.lock();
+		try {
+			inFlight--;
+			if (overloaded || nowNanos - startNanos > latencyThresholdNanos) {
+				// Only requests sent after the last decrease tell something about the current limit
+				if (startNanos - lastDecreaseNanos > 0 && limit > minLimit) {
+					limit = Math.max(minLimit, Math.floor(limit * DECREASE_RATIO));
+					LOGGER.info("Management API overloaded, decreased requests in flight to {}", (int) limit);
+					lastDecreaseNanos = nowNanos;
+				}
+			} else if (limit < maxLimit) {
+				limit = Math.min(maxLimit, limit + 1 / limit);
+			}
+			permitReleased.signalAll();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * @return current number of requests allowed in flight
+	 */
+	public int getLimit() {
+		lock.lock();
+		try {
+			return (int) limit;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+}
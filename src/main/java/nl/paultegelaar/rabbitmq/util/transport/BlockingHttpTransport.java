@@ -0,0 +1,68 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Transport based on the classic blocking client, used for both the single connection and the pooled connections.
+ *
+ */
+public class BlockingHttpTransport implements HttpTransport {
+
+	private final CloseableHttpClient httpClient;
+	private final boolean singleConnection;
+
+	/**
+	 * Create transport
+	 *
+	 * @param httpClient
+	 * @param singleConnection when true requests are sent one at a time, the single connection can't be shared
+	 */
+	public BlockingHttpTransport(CloseableHttpClient httpClient, boolean singleConnection) {
+		this.httpClient = httpClient;
+		this.singleConnection = singleConnection;
+	}
+
+	@Override
+	public ManagementAPIResponse execute(HttpUriRequest request, boolean responseBodyRequired) throws IOException {
+		if (singleConnection) {
+			synchronized (this) {
+				return doExecute(request, responseBodyRequired);
+			}
+		}
+		return doExecute(request, responseBodyRequired);
+	}
+
+	private ManagementAPIResponse doExecute(HttpUriRequest request, boolean responseBodyRequired) throws IOException {
+		// Close response, so the connection is returned to the manager
+		try (CloseableHttpResponse response = httpClient.execute(request)) {
+			int statusCode = response.getStatusLine().getStatusCode();
+			Header retryAfter = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+			String retryAfterValue = retryAfter == null ? null : retryAfter.getValue();
+			HttpEntity entity = response.getEntity();
+			if (entity == null) {
+				return new ManagementAPIResponse(statusCode, null, retryAfterValue, 1);
+			}
+			if (responseBodyRequired || !ManagementAPIResponse.isSuccessful(statusCode)) {
+				return new ManagementAPIResponse(statusCode, EntityUtils.toString(entity, StandardCharsets.UTF_8), retryAfterValue, 1);
+			}
+			// Read to the end without decoding, the connection can only be reused once the body is consumed
+			EntityUtils.consume(entity);
+			return new ManagementAPIResponse(statusCode, null, retryAfterValue, 1);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpClient.close();
+	}
+
+}
@@ -0,0 +1,25 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+import org.apache.http.client.methods.HttpUriRequest;
+
+/**
+ * Sends requests to the management API. Implementations are thread safe.
+ *
+ */
+public interface HttpTransport extends Closeable {
+
+	/**
+	 * Execute the request and consume the complete response, the connection is released before returning. The body of
+	 * an unsuccessful response is always read, the body of a successful response only when required.
+	 *
+	 * @param request
+	 * @param responseBodyRequired read the body of a successful response, otherwise it is discarded
+	 * @return ManagementAPIResponse containing status code and body
+	 * @throws IOException
+	 */
+	ManagementAPIResponse execute(HttpUriRequest request, boolean responseBodyRequired) throws IOException;
+
+}
@@ -0,0 +1,168 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.net.ssl.SSLContext;
+
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.config.ConnectionConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.SchemePortResolver;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.impl.conn.BasicHttpClientConnectionManager;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.impl.nio.reactor.DefaultConnectingIOReactor;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.reactor.IOReactorException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+
+/**
+ * Creates the transport selected in the application config. An HTTPS management API uses the TLS settings of the
+ * config, see {@link TlsSupport}.
+ *
+ */
+public final class HttpTransportFactory {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(HttpTransportFactory.class);
+
+	private HttpTransportFactory() {
+	}
+
+	/**
+	 * Create transport based on the configured type
+	 *
+	 * @param applicationConfig
+	 * @param provisioningMetrics receives the TLS handshakes of new connections
+	 * @return HttpTransport
+	 * @throws RabbitMQProvisioningException when the transport can't be created
+	 */
+	public static HttpTransport create(ApplicationConfig applicationConfig, ProvisioningMetrics provisioningMetrics) throws RabbitMQProvisioningException {
+
+		// Create config with basic timeout for request, a broker which stops answering fails the request instead of hanging
+		RequestConfig requestConfig = RequestConfig.custom()
+				.setConnectionRequestTimeout(applicationConfig.getHttpRequestTimeout())
+				.setConnectTimeout(applicationConfig.getHttpConnectionTimeout())
+				.setSocketTimeout(applicationConfig.getHttpSocketTimeout()).build();
+		SSLContext sslContext = TlsSupport.createSSLContext(applicationConfig);
+
+		HttpTransport httpTransport;
+		switch (applicationConfig.getHttpTransportType()) {
+		case POOLED:
+			httpTransport = createPooledTransport(applicationConfig, requestConfig, sslContext, provisioningMetrics);
+			break;
+		case ASYNC:
+			httpTransport = createAsyncTransport(applicationConfig, requestConfig, sslContext, provisioningMetrics);
+			break;
+		case SINGLE_CONNECTION:
+		default:
+			httpTransport = createSingleConnectionTransport(applicationConfig, requestConfig, sslContext, provisioningMetrics);
+			break;
+		}
+		return withResilience(applicationConfig, httpTransport);
+	}
+
+	private static HttpTransport withResilience(ApplicationConfig applicationConfig, HttpTransport httpTransport) {
+		// The limiter can only move between min and max, when those are the same there is nothing to adapt
+		AdaptiveConcurrencyLimiter concurrencyLimiter = null;
+		if (applicationConfig.isAdaptiveConcurrency() && applicationConfig.getMaxRequestsInFlight() > applicationConfig.getMinRequestsInFlight()) {
+			LOGGER.info("Adapting requests in flight between {} and {}", applicationConfig.getMinRequestsInFlight(), applicationConfig.getMaxRequestsInFlight());
+			concurrencyLimiter = new AdaptiveConcurrencyLimiter(applicationConfig.getMinRequestsInFlight(), applicationConfig.getMaxRequestsInFlight(),
+					applicationConfig.getLatencyThresholdMillis());
+		}
+		if (concurrencyLimiter == null && applicationConfig.getMaxRetries() == 0) {
+			return httpTransport;
+		}
+		LOGGER.info("Retrying failed requests up to {} times", applicationConfig.getMaxRetries());
+		return new ResilientHttpTransport(httpTransport, concurrencyLimiter, applicationConfig.getMaxRetries(),
+				applicationConfig.getRetryInitialBackoffMillis(), applicationConfig.getRetryMaxBackoffMillis());
+	}
+
+	/**
+	 * Keep idle connections as long as the broker allows, but no longer than the configured keep-alive
+	 *
+	 * @param applicationConfig
+	 * @return ConnectionKeepAliveStrategy
+	 */
+	private static ConnectionKeepAliveStrategy createKeepAliveStrategy(ApplicationConfig applicationConfig) {
+		long maxKeepAliveMillis = TimeUnit.SECONDS.toMillis(applicationConfig.getKeepAliveSeconds());
+		return (response, context) -> {
+			long keepAliveMillis = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+			if (maxKeepAliveMillis > 0 && (keepAliveMillis <= 0 || keepAliveMillis > maxKeepAliveMillis)) {
+				return maxKeepAliveMillis;
+			}
+			return keepAliveMillis;
+		};
+	}
+
+	/**
+	 * @param applicationConfig
+	 * @return time to live of pooled connections, -1 when unlimited
+	 */
+	private static long getConnectionTimeToLiveSeconds(ApplicationConfig applicationConfig) {
+		return applicationConfig.getConnectionTimeToLiveSeconds() > 0 ? applicationConfig.getConnectionTimeToLiveSeconds() : -1;
+	}
+
+	private static HttpTransport createSingleConnectionTransport(ApplicationConfig applicationConfig, RequestConfig requestConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		LOGGER.info("Using single connection transport");
+
+		BasicHttpClientConnectionManager httpClientConnectionManager = new BasicHttpClientConnectionManager(
+				TlsSupport.socketFactoryRegistry(applicationConfig, sslContext, provisioningMetrics));
+		httpClientConnectionManager.setConnectionConfig(ConnectionConfig.custom().build());
+
+		return new BlockingHttpTransport(HttpClientBuilder.create().setDefaultRequestConfig(requestConfig)
+				.setConnectionManager(httpClientConnectionManager)
+				.setKeepAliveStrategy(createKeepAliveStrategy(applicationConfig)).build(), true);
+	}
+
+	private static HttpTransport createPooledTransport(ApplicationConfig applicationConfig, RequestConfig requestConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		LOGGER.info("Using pooled transport with {} connections per route and {} in total", 
+				applicationConfig.getMaxConnectionsPerRoute(), applicationConfig.getMaxConnectionsTotal());
+
+		PoolingHttpClientConnectionManager httpClientConnectionManager = new PoolingHttpClientConnectionManager(
+				TlsSupport.socketFactoryRegistry(applicationConfig, sslContext, provisioningMetrics), null, null, null,
+				getConnectionTimeToLiveSeconds(applicationConfig), TimeUnit.SECONDS);
+		httpClientConnectionManager.setDefaultConnectionConfig(ConnectionConfig.custom().build());
+		httpClientConnectionManager.setDefaultMaxPerRoute(applicationConfig.getMaxConnectionsPerRoute());
+		httpClientConnectionManager.setMaxTotal(applicationConfig.getMaxConnectionsTotal());
+
+		return new BlockingHttpTransport(HttpClientBuilder.create().setDefaultRequestConfig(requestConfig)
+				.setConnectionManager(httpClientConnectionManager)
+				.setKeepAliveStrategy(createKeepAliveStrategy(applicationConfig))
+				.evictExpiredConnections()
+				.evictIdleConnections(applicationConfig.getIdleConnectionTimeoutSeconds(), TimeUnit.SECONDS).build(), false);
+	}
+
+	private static HttpTransport createAsyncTransport(ApplicationConfig applicationConfig, RequestConfig requestConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) throws RabbitMQProvisioningException {
+		LOGGER.info("Using async transport with {} I/O threads, {} connections per route and {} in total", applicationConfig.getAsyncIoThreads(),
+				applicationConfig.getMaxConnectionsPerRoute(), applicationConfig.getMaxConnectionsTotal());
+
+		try {
+			IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+					.setIoThreadCount(applicationConfig.getAsyncIoThreads())
+					.setConnectTimeout(applicationConfig.getHttpConnectionTimeout()).build();
+			PoolingNHttpClientConnectionManager connectionManager = new PoolingNHttpClientConnectionManager(
+					new DefaultConnectingIOReactor(ioReactorConfig), null, TlsSupport.sessionStrategyRegistry(applicationConfig, sslContext, provisioningMetrics),
+					(SchemePortResolver) null, null, getConnectionTimeToLiveSeconds(applicationConfig), TimeUnit.SECONDS);
+			connectionManager.setDefaultMaxPerRoute(applicationConfig.getMaxConnectionsPerRoute());
+			connectionManager.setMaxTotal(applicationConfig.getMaxConnectionsTotal());
+
+			return new NioBlockingHttpTransport(HttpAsyncClients.custom().setDefaultRequestConfig(requestConfig)
+					.setConnectionManager(connectionManager)
+					.setKeepAliveStrategy(createKeepAliveStrategy(applicationConfig)).build(), connectionManager, applicationConfig.getIdleConnectionTimeoutSeconds());
+		} catch (IOReactorException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+	}
+
+}
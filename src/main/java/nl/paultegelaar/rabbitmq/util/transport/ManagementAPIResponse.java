@@ -0,0 +1,79 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+/**
+ * Status code and body of a management API response.
+ *
+ */
+public class ManagementAPIResponse {
+
+	private final int statusCode;
+	private final String body;
+	private final String retryAfter;
+	private final int attempts;
+
+	public ManagementAPIResponse(int statusCode, String body) {
+		this(statusCode, body, null, 1);
+	}
+
+	/**
+	 * @param statusCode
+	 * @param body
+	 * @param retryAfter value of the Retry-After header, null when absent
+	 * @param attempts   number of times the request was sent
+	 */
+	public ManagementAPIResponse(int statusCode, String body, String retryAfter, int attempts) {
+		this.statusCode = statusCode;
+		this.body = body;
+		this.retryAfter = retryAfter;
+		this.attempts = attempts;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return body or null when the response didn't contain one or it was discarded
+	 */
+	public String getBody() {
+		return body;
+	}
+
+	/**
+	 * @return value of the Retry-After header or null when absent
+	 */
+	public String getRetryAfter() {
+		return retryAfter;
+	}
+
+	/**
+	 * @return number of times the request was sent, more than one when it was retried
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+	/**
+	 * @param attempts
+	 * @return copy of this response with the given number of attempts
+	 */
+	public ManagementAPIResponse withAttempts(int attempts) {
+		return new ManagementAPIResponse(statusCode, body, retryAfter, attempts);
+	}
+
+	/**
+	 * @return true when the status code is in the 200 range
+	 */
+	public boolean isSuccessful() {
+		return isSuccessful(statusCode);
+	}
+
+	/**
+	 * @param statusCode
+	 * @return true when the status code is in the 200 range
+	 */
+	public static boolean isSuccessful(int statusCode) {
+		return statusCode > 199 && statusCode < 300;
+	}
+
+}
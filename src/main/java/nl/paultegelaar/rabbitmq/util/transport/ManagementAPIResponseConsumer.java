@@ -0,0 +1,94 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.entity.ContentType;
+import org.apache.http.nio.ContentDecoder;
+import org.apache.http.nio.IOControl;
+import org.apache.http.nio.protocol.AbstractAsyncResponseConsumer;
+import org.apache.http.nio.util.HeapByteBufferAllocator;
+import org.apache.http.nio.util.SimpleInputBuffer;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Consumes a response on the I/O thread. The body is only buffered when it is going to be used, otherwise the content
+ * is read into a reusable buffer per I/O thread and dropped.
+ *
+ */
+public class ManagementAPIResponseConsumer extends AbstractAsyncResponseConsumer<ManagementAPIResponse> {
+
+	private static final int DEFAULT_BUFFER_SIZE = 4096;
+	private static final ThreadLocal<ByteBuffer> DISCARD_BUFFER = ThreadLocal.withInitial(() -> ByteBuffer.allocate(DEFAULT_BUFFER_SIZE));
+
+	private final boolean responseBodyRequired;
+	private int statusCode;
+	private String retryAfter;
+	private boolean bodyKept;
+	private SimpleInputBuffer buffer;
+	private Charset charset = StandardCharsets.UTF_8;
+
+	/**
+	 * @param responseBodyRequired keep the body of a successful response
+	 */
+	public ManagementAPIResponseConsumer(boolean responseBodyRequired) {
+		this.responseBodyRequired = responseBodyRequired;
+	}
+
+	@Override
+	protected void onResponseReceived(HttpResponse response) {
+		statusCode = response.getStatusLine().getStatusCode();
+		Header retryAfterHeader = response.getFirstHeader(HttpHeaders.RETRY_AFTER);
+		retryAfter = retryAfterHeader == null ? null : retryAfterHeader.getValue();
+		bodyKept = responseBodyRequired || !ManagementAPIResponse.isSuccessful(statusCode);
+	}
+
+	@Override
+	protected void onEntityEnclosed(HttpEntity entity, ContentType contentType) {
+		if (!bodyKept) {
+			return;
+		}
+		long contentLength = entity.getContentLength();
+		buffer = new SimpleInputBuffer(contentLength > 0 && contentLength < Integer.MAX_VALUE ? (int) contentLength : DEFAULT_BUFFER_SIZE,
+				HeapByteBufferAllocator.INSTANCE);
+		if (contentType != null && contentType.getCharset() != null) {
+			charset = contentType.getCharset();
+		}
+	}
+
+	@Override
+	protected void onContentReceived(ContentDecoder decoder, IOControl ioControl) throws IOException {
+		if (buffer != null) {
+			buffer.consumeContent(decoder);
+			return;
+		}
+		ByteBuffer discardBuffer = DISCARD_BUFFER.get();
+		int read;
+		do {
+			discardBuffer.clear();
+			read = decoder.read(discardBuffer);
+		} while (read > 0);
+	}
+
+	@Override
+	protected ManagementAPIResponse buildResult(HttpContext context) throws IOException {
+		if (buffer == null) {
+			return new ManagementAPIResponse(statusCode, null, retryAfter, 1);
+		}
+		byte[] body = new byte[buffer.length()];
+		buffer.read(body);
+		return new ManagementAPIResponse(statusCode, new String(body, charset), retryAfter, 1);
+	}
+
+	@Override
+	protected void releaseResources() {
+		buffer = null;
+	}
+
+}
@@ -0,0 +1,72 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.conn.PoolingNHttpClientConnectionManager;
+import org.apache.http.nio.client.methods.HttpAsyncMethods;
+
+/**
+ * Blocking adapter over the non-blocking client. A few I/O threads drive all connections, but {@link #execute} waits
+ * for the response, so the calling worker thread is blocked for the duration of the request just like with the
+ * blocking transports. What it saves is connections and socket handling threads, not worker threads.
+ *
+ */
+public class NioBlockingHttpTransport implements HttpTransport {
+
+	private final CloseableHttpAsyncClient httpAsyncClient;
+	private final ScheduledExecutorService idleConnectionEvictor;
+
+	/**
+	 * Create and start transport
+	 *
+	 * @param httpAsyncClient             client using the given connection manager
+	 * @param connectionManager
+	 * @param idleConnectionTimeoutSeconds connections idle for longer are closed
+	 */
+	public NioBlockingHttpTransport(CloseableHttpAsyncClient httpAsyncClient, PoolingNHttpClientConnectionManager connectionManager, int idleConnectionTimeoutSeconds) {
+		this.httpAsyncClient = httpAsyncClient;
+		this.httpAsyncClient.start();
+
+		// The non-blocking client has no built in eviction, run it in the background
+		this.idleConnectionEvictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "rabbitmq-idle-connection-evictor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		this.idleConnectionEvictor.scheduleWithFixedDelay(() -> {
+			connectionManager.closeExpiredConnections();
+			connectionManager.closeIdleConnections(idleConnectionTimeoutSeconds, TimeUnit.SECONDS);
+		}, idleConnectionTimeoutSeconds, idleConnectionTimeoutSeconds, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Send the request on the I/O threads and wait for the response
+	 */
+	@Override
+	public ManagementAPIResponse execute(HttpUriRequest request, boolean responseBodyRequired) throws IOException {
+		try {
+			return httpAsyncClient.execute(HttpAsyncMethods.create(request), new ManagementAPIResponseConsumer(responseBodyRequired), null).get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Interrupted while waiting for response", e);
+		} catch (ExecutionException e) {
+			if (e.getCause() instanceof IOException) {
+				throw (IOException) e.getCause();
+			}
+			throw new IOException(e.getCause());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		idleConnectionEvictor.shutdownNow();
+		httpAsyncClient.close();
+	}
+
+}
@@ -0,0 +1,165 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.util.Date;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.conn.ConnectTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps a transport with retries and an {@link AdaptiveConcurrencyLimiter}, so a busy management API slows the run
+ * down instead of failing it.
+ *
+ * Requests are retried on an I/O error and on 429, 502, 503 and 504 with exponential backoff and full jitter, a
+ * Retry-After header sent by the broker is honoured. GET, PUT and DELETE are always retried. POST is only retried when
+ * it can't have been processed: the connection couldn't be established or the broker answered 429 or 503.
+ *
+ */
+public class ResilientHttpTransport implements HttpTransport {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ResilientHttpTransport.class);
+	private static final int MAX_BACKOFF_SHIFT = 30;
+
+	private final HttpTransport httpTransport;
+	private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+	private final int maxRetries;
+	private final long initialBackoffMillis;
+	private final long maxBackoffMillis;
+
+	/**
+	 * Create transport
+	 *
+	 * @param httpTransport        transport sending the requests
+	 * @param concurrencyLimiter   limiter or null to only retry
+	 * @param maxRetries           number of retries after the first attempt
+	 * @param initialBackoffMillis upper bound of the delay before the first retry, doubled for every next retry
+	 * @param maxBackoffMillis     upper bound of any delay, including one requested with Retry-After
+	 */
+	public ResilientHttpTransport(HttpTransport httpTransport, AdaptiveConcurrencyLimiter concurrencyLimiter, int maxRetries,
+			long initialBackoffMillis, long maxBackoffMillis) {
+		this.httpTransport = httpTransport;
+		this.concurrencyLimiter = concurrencyLimiter;
+		this.maxRetries = maxRetries;
+		this.initialBackoffMillis = initialBackoffMillis;
+		this.maxBackoffMillis = maxBackoffMillis;
+	}
+
+	@Override
+	public ManagementAPIResponse execute(HttpUriRequest request, boolean responseBodyRequired) throws IOException {
+		boolean idempotent = isIdempotent(request.getMethod());
+
+		for (int attempt = 1;; attempt++) {
+			long startNanos = acquire();
+			ManagementAPIResponse response;
+			try {
+				response = httpTransport.execute(request, responseBodyRequired);
+			} catch (IOException e) {
+				release(startNanos, true);
+				if (attempt > maxRetries || !(idempotent || isNotSent(e))) {
+					throw attempt > 1 ? new RetriesExhaustedException(attempt, e) : e;
+				}
+				backoff(request, attempt, e.toString(), null);
+				continue;
+			}
+
+			int statusCode = response.getStatusCode();
+			boolean overloaded = statusCode == HttpStatus.SC_TOO_MANY_REQUESTS || statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE;
+			release(startNanos, overloaded);
+			if (attempt > maxRetries || !isRetryable(statusCode) || !(idempotent || overloaded)) {
+				return response.withAttempts(attempt);
+			}
+			backoff(request, attempt, String.format("HTTP %s", statusCode), response.getRetryAfter());
+		}
+	}
+
+	private long acquire() throws IOException {
+		if (concurrencyLimiter == null) {
+			return 0L;
+		}
+		try {
+			return concurrencyLimiter.acquire();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to send request");
+		}
+	}
+
+	private void release(long startNanos, boolean overloaded) {
+		if (concurrencyLimiter != null) {
+			concurrencyLimiter.release(startNanos, overloaded);
+		}
+	}
+
+	private void backoff(HttpUriRequest request, int attempt, String reason, String retryAfter) throws IOException {
+		long delayMillis = Math.min(maxBackoffMillis, Math.max(jitteredBackoffMillis(attempt), parseRetryAfterMillis(retryAfter)));
+		LOGGER.info("Request to {} failed with {}, retry {} of {} in {} ms", request.getURI(), reason, attempt, maxRetries, delayMillis);
+		try {
+			Thread.sleep(delayMillis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to retry request");
+		}
+	}
+
+	/**
+	 * @param attempt failed attempt, starting at 1
+	 * @return random delay between zero and the exponential backoff of the attempt
+	 */
+	private long jitteredBackoffMillis(int attempt) {
+		long backoffMillis = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, MAX_BACKOFF_SHIFT));
+		return ThreadLocalRandom.current().nextLong(backoffMillis + 1);
+	}
+
+	/**
+	 * Parse a Retry-After header, containing either a number of seconds or an HTTP date
+	 *
+	 * @param retryAfter header value, may be null
+	 * @return requested delay in milliseconds, 0 when absent or invalid
+	 */
+	static long parseRetryAfterMillis(String retryAfter) {
+		if (StringUtils.isBlank(retryAfter)) {
+			return 0L;
+		}
+		String value = retryAfter.trim();
+		if (StringUtils.isNumeric(value)) {
+			try {
+				return Long.parseLong(value) * 1000L;
+			} catch (NumberFormatException e) {
+				return 0L;
+			}
+		}
+		Date date = DateUtils.parseDate(value);
+		return date == null ? 0L : Math.max(0L, date.getTime() - System.currentTimeMillis());
+	}
+
+	private static boolean isIdempotent(String method) {
+		return !"POST".equals(method) && !"PATCH".equals(method);
+	}
+
+	private static boolean isRetryable(int statusCode) {
+		return statusCode == HttpStatus.SC_TOO_MANY_REQUESTS || statusCode == HttpStatus.SC_BAD_GATEWAY
+				|| statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == HttpStatus.SC_GATEWAY_TIMEOUT;
+	}
+
+	/**
+	 * @param e
+	 * @return true when the request can't have reached the broker
+	 */
+	private static boolean isNotSent(IOException e) {
+		return e instanceof ConnectException || e instanceof ConnectTimeoutException;
+	}
+
+	@Override
+	public void close() throws IOException {
+		httpTransport.close();
+	}
+
+}
@@ -0,0 +1,27 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+
+/**
+ * Thrown when a request kept failing with an I/O error after all retries.
+ *
+ */
+public class RetriesExhaustedException extends IOException {
+
+	private static final long serialVersionUID = 1L;
+
+	private final int attempts;
+
+	public RetriesExhaustedException(int attempts, IOException cause) {
+		super(String.format("Giving up after %s attempts: %s", attempts, cause.getMessage()), cause);
+		this.attempts = attempts;
+	}
+
+	/**
+	 * @return number of times the request was sent
+	 */
+	public int getAttempts() {
+		return attempts;
+	}
+
+}
@@ -0,0 +1,181 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.util.Arrays;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.SSLSession;
+import javax.net.ssl.SSLSessionContext;
+import javax.net.ssl.SSLSocket;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.nio.conn.NoopIOSessionStrategy;
+import org.apache.http.nio.conn.SchemeIOSessionStrategy;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.nio.reactor.IOSession;
+import org.apache.http.nio.reactor.ssl.SSLIOSession;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.ssl.SSLContextBuilder;
+import org.apache.http.ssl.SSLContexts;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+
+/**
+ * TLS for an HTTPS management API. All connections of a transport share one SSL context, so a new connection resumes
+ * the cached session of an earlier one instead of negotiating a new session with a full handshake. Every handshake is
+ * recorded as full or resumed, a resumed session was created before its handshake started.
+ *
+ */
+final class TlsSupport {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TlsSupport.class);
+	private static final String HTTP_SCHEME = "http";
+	private static final String HTTPS_SCHEME = "https";
+	private static final String HANDSHAKE_START_ATTRIBUTE = "tls.handshake.start";
+
+	private TlsSupport() {
+	}
+
+	/**
+	 * Create the SSL context with the configured trust and key material and session cache
+	 *
+	 * @param applicationConfig
+	 * @return SSLContext, null when the management API isn't HTTPS
+	 * @throws RabbitMQProvisioningException when a keystore can't be loaded
+	 */
+	static SSLContext createSSLContext(ApplicationConfig applicationConfig) throws RabbitMQProvisioningException {
+		if (!StringUtils.startsWithIgnoreCase(applicationConfig.getApiBaseURL(), HTTPS_SCHEME + ":")) {
+			return null;
+		}
+		LOGGER.info("Using TLS protocols {}, caching {} session(s) for {} seconds", applicationConfig.getTlsProtocols(),
+				applicationConfig.getTlsSessionCacheSize(), applicationConfig.getTlsSessionTimeoutSeconds());
+
+		SSLContext sslContext;
+		try {
+			SSLContextBuilder sslContextBuilder = SSLContexts.custom();
+			if (StringUtils.isNotBlank(applicationConfig.getTlsTrustStore())) {
+				sslContextBuilder.loadTrustMaterial(loadKeyStore(applicationConfig.getTlsTrustStore(), applicationConfig.getTlsTrustStoreType(),
+						applicationConfig.getTlsTrustStorePassword()), null);
+			}
+			if (StringUtils.isNotBlank(applicationConfig.getTlsKeyStore())) {
+				sslContextBuilder.loadKeyMaterial(loadKeyStore(applicationConfig.getTlsKeyStore(), applicationConfig.getTlsKeyStoreType(),
+						applicationConfig.getTlsKeyStorePassword()), applicationConfig.getTlsKeyStorePassword());
+			}
+			sslContext = sslContextBuilder.build();
+		} catch (IOException | GeneralSecurityException e) {
+			throw new RabbitMQProvisioningException(String.format("Unable to create TLS context: %s", e.getMessage()));
+		}
+
+		SSLSessionContext clientSessionContext = sslContext.getClientSessionContext();
+		clientSessionContext.setSessionCacheSize(applicationConfig.getTlsSessionCacheSize());
+		clientSessionContext.setSessionTimeout(applicationConfig.getTlsSessionTimeoutSeconds());
+		return sslContext;
+	}
+
+	/**
+	 * @param applicationConfig
+	 * @param sslContext          see {@link #createSSLContext(ApplicationConfig)}
+	 * @param provisioningMetrics receives the handshakes
+	 * @return socket factories of the blocking transports
+	 */
+	static Registry<ConnectionSocketFactory> socketFactoryRegistry(ApplicationConfig applicationConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		return RegistryBuilder.<ConnectionSocketFactory>create().register(HTTP_SCHEME, PlainConnectionSocketFactory.getSocketFactory())
+				.register(HTTPS_SCHEME, sslContext == null ? SSLConnectionSocketFactory.getSocketFactory()
+						: createSocketFactory(applicationConfig, sslContext, provisioningMetrics)).build();
+	}
+
+	/**
+	 * @param applicationConfig
+	 * @param sslContext          see {@link #createSSLContext(ApplicationConfig)}
+	 * @param provisioningMetrics receives the handshakes
+	 * @return session strategies of the async transport
+	 */
+	static Registry<SchemeIOSessionStrategy> sessionStrategyRegistry(ApplicationConfig applicationConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		return RegistryBuilder.<SchemeIOSessionStrategy>create().register(HTTP_SCHEME, NoopIOSessionStrategy.INSTANCE)
+				.register(HTTPS_SCHEME, sslContext == null ? SSLIOSessionStrategy.getDefaultStrategy()
+						: createSessionStrategy(applicationConfig, sslContext, provisioningMetrics)).build();
+	}
+
+	private static SSLConnectionSocketFactory createSocketFactory(ApplicationConfig applicationConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		return new SSLConnectionSocketFactory(sslContext, split(applicationConfig.getTlsProtocols()), split(applicationConfig.getTlsCipherSuites()),
+				SSLConnectionSocketFactory.getDefaultHostnameVerifier()) {
+
+			@Override
+			public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+				long handshakeStartMillis = System.currentTimeMillis();
+				Socket layeredSocket = super.createLayeredSocket(socket, target, port, context);
+				recordHandshake(((SSLSocket) layeredSocket).getSession(), handshakeStartMillis, provisioningMetrics);
+				return layeredSocket;
+			}
+
+		};
+	}
+
+	private static SSLIOSessionStrategy createSessionStrategy(ApplicationConfig applicationConfig, SSLContext sslContext,
+			ProvisioningMetrics provisioningMetrics) {
+		return new SSLIOSessionStrategy(sslContext, split(applicationConfig.getTlsProtocols()), split(applicationConfig.getTlsCipherSuites()),
+				SSLIOSessionStrategy.getDefaultHostnameVerifier()) {
+
+			@Override
+			public SSLIOSession upgrade(HttpHost host, IOSession iosession) throws IOException {
+				// The handshake completes on an I/O thread, the session is verified when it did
+				iosession.setAttribute(HANDSHAKE_START_ATTRIBUTE, System.currentTimeMillis());
+				return super.upgrade(host, iosession);
+			}
+
+			@Override
+			protected void verifySession(HttpHost host, IOSession iosession, SSLSession sslsession) throws SSLException {
+				super.verifySession(host, iosession, sslsession);
+				Object handshakeStartMillis = iosession.removeAttribute(HANDSHAKE_START_ATTRIBUTE);
+				recordHandshake(sslsession, handshakeStartMillis instanceof Long ? (Long) handshakeStartMillis : Long.MIN_VALUE, provisioningMetrics);
+			}
+
+		};
+	}
+
+	private static void recordHandshake(SSLSession sslSession, long handshakeStartMillis, ProvisioningMetrics provisioningMetrics) {
+		boolean resumed = sslSession.getCreationTime() < handshakeStartMillis;
+		LOGGER.debug("TLS handshake using {} {}, session {}", sslSession.getProtocol(), sslSession.getCipherSuite(), resumed ? "resumed" : "created");
+		provisioningMetrics.recordTlsHandshake(resumed);
+	}
+
+	private static KeyStore loadKeyStore(String path, String type, char[] password) throws IOException, GeneralSecurityException {
+		KeyStore keyStore = KeyStore.getInstance(type);
+		try (InputStream inputStream = Files.newInputStream(Paths.get(path))) {
+			keyStore.load(inputStream, password);
+		}
+		return keyStore;
+	}
+
+	/**
+	 * @param values comma separated values
+	 * @return trimmed values, null when blank so the JVM defaults are used
+	 */
+	private static String[] split(String values) {
+		if (StringUtils.isBlank(values)) {
+			return null;
+		}
+		return Arrays.stream(values.split(",")).map(String::trim).filter(StringUtils::isNotEmpty).toArray(String[]::new);
+	}
+
+}
@@ -0,0 +1,44 @@
+package nl.paultegelaar.rabbitmq.util.validation;
+
+import org.hibernate.validator.messageinterpolation.ParameterMessageInterpolator;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+/**
+ * Single validator shared by the whole application. Bootstrapping a validator factory scans the classpath and loads
+ * a few hundred classes, which dominates the run time of small configurations, so it is done once and only when the
+ * first validation happens.
+ *
+ * Messages are interpolated without expression language, none of the constraints used need it and initializing it is
+ * the slowest part of the bootstrap.
+ *
+ */
+public final class SharedValidator {
+
+	private SharedValidator() {
+	}
+
+	/**
+	 * @return thread safe validator, created on first use
+	 */
+	public static Validator get() {
+		return Holder.VALIDATOR;
+	}
+
+	/**
+	 * Initialized by the JVM when first accessed, which makes the lazy creation thread safe without locking.
+	 *
+	 */
+	private static final class Holder {
+
+		private static final ValidatorFactory VALIDATOR_FACTORY = Validation.byDefaultProvider().configure()
+				.ignoreXmlConfiguration()
+				.messageInterpolator(new ParameterMessageInterpolator())
+				.buildValidatorFactory();
+		private static final Validator VALIDATOR = VALIDATOR_FACTORY.getValidator();
+
+	}
+
+}
@@ -0,0 +1,127 @@
+package nl.paultegelaar.rabbitmq.util.verify;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import nl.paultegelaar.rabbitmq.util.RabbitMQPayloads;
+import nl.paultegelaar.rabbitmq.util.reconcile.LiveTopology;
+
+/**
+ * Reads the list responses of the management API straight into a {@link LiveTopology}. A response is either a page,
+ * an object holding the items and the page count, or a plain array for lists without pagination. Only a single item is
+ * held as a tree at a time.
+ *
+ */
+public final class ListPageReader {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+	private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<Map<String, Object>>() {
+	};
+	private static final String NAME_PROPERTY = "name";
+
+	@FunctionalInterface
+	private interface ItemHandler {
+		void handle(JsonNode item);
+	}
+
+	private ListPageReader() {
+	}
+
+	/**
+	 * @param page
+	 * @param liveTopology
+	 * @return number of pages
+	 * @throws IOException when the page can't be parsed
+	 */
+	public static int readQueues(String page, LiveTopology liveTopology) throws IOException {
+		return read(page, queue -> liveTopology.addQueue(queue.path(NAME_PROPERTY).asText(), queue.path(RabbitMQPayloads.DURABLE_PROPERTY).asBoolean(),
+				arguments(queue)));
+	}
+
+	/**
+	 * @param page
+	 * @param liveTopology
+	 * @return number of pages
+	 * @throws IOException when the page can't be parsed
+	 */
+	public static int readExchanges(String page, LiveTopology liveTopology) throws IOException {
+		return read(page, exchange -> liveTopology.addExchange(exchange.path(NAME_PROPERTY).asText(),
+				exchange.path(RabbitMQPayloads.TYPE_PROPERTY).asText(), exchange.path(RabbitMQPayloads.DURABLE_PROPERTY).asBoolean()));
+	}
+
+	/**
+	 * @param page
+	 * @param liveTopology
+	 * @return number of pages
+	 * @throws IOException when the page can't be parsed
+	 */
+	public static int readBindings(String page, LiveTopology liveTopology) throws IOException {
+		return read(page, binding -> {
+			if ("queue".equals(binding.path("destination_type").asText())) {
+				liveTopology.addBinding(binding.path("source").asText(), binding.path("destination").asText(),
+						binding.path(RabbitMQPayloads.ROUTING_KEY_PROPERTY).asText(), arguments(binding));
+			}
+		});
+	}
+
+	/**
+	 * @param page
+	 * @param liveTopology
+	 * @return number of pages
+	 * @throws IOException when the page can't be parsed
+	 */
+	public static int readPolicies(String page, LiveTopology liveTopology) throws IOException {
+		return read(page, policy -> liveTopology.addPolicy(policy.path(NAME_PROPERTY).asText(), policy.path(RabbitMQPayloads.PATTERN_PROPERTY).asText(),
+				policy.path(RabbitMQPayloads.APPLY_TO_PROPERTY).asText(), policy.path(RabbitMQPayloads.PRIORITY_PROPERTY).asInt(),
+				OBJECT_MAPPER.convertValue(policy.path(RabbitMQPayloads.DEFINITION_PROPERTY), MAP_TYPE)));
+	}
+
+	private static int read(String page, ItemHandler itemHandler) throws IOException {
+		try (JsonParser parser = OBJECT_MAPPER.getFactory().createParser(page)) {
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_ARRAY) {
+				readItems(parser, itemHandler);
+				return 1;
+			}
+			if (token != JsonToken.START_OBJECT) {
+				throw new IOException("List response must be a JSON array or page object");
+			}
+
+			int pageCount = 1;
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String fieldName = parser.currentName();
+				JsonToken valueToken = parser.nextToken();
+				if ("items".equals(fieldName) && valueToken == JsonToken.START_ARRAY) {
+					readItems(parser, itemHandler);
+				} else if ("page_count".equals(fieldName)) {
+					pageCount = parser.getValueAsInt(1);
+				} else {
+					parser.skipChildren();
+				}
+			}
+			return pageCount;
+		}
+	}
+
+	private static void readItems(JsonParser parser, ItemHandler itemHandler) throws IOException {
+		while (parser.nextToken() == JsonToken.START_OBJECT) {
+			itemHandler.handle(parser.readValueAsTree());
+		}
+	}
+
+	private static Map<String, Object> arguments(JsonNode node) {
+		JsonNode arguments = node.path(RabbitMQPayloads.ARGUMENTS_PROPERTY);
+		if (!arguments.isObject()) {
+			return new HashMap<>();
+		}
+		return OBJECT_MAPPER.convertValue(arguments, MAP_TYPE);
+	}
+
+}
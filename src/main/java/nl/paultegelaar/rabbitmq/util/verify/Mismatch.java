@@ -0,0 +1,45 @@
+package nl.paultegelaar.rabbitmq.util.verify;
+
+import java.util.Map;
+
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+
+/**
+ * A configured object which is missing on the broker or present with other settings.
+ *
+ */
+public class Mismatch {
+
+	private final PlannedObject plannedObject;
+	private final Map<String, Object> liveObject;
+
+	/**
+	 * @param plannedObject
+	 * @param liveObject    settings found on the broker, null when the object is missing
+	 */
+	public Mismatch(PlannedObject plannedObject, Map<String, Object> liveObject) {
+		this.plannedObject = plannedObject;
+		this.liveObject = liveObject;
+	}
+
+	public PlannedObject getPlannedObject() {
+		return plannedObject;
+	}
+
+	public Map<String, Object> getLiveObject() {
+		return liveObject;
+	}
+
+	public boolean isMissing() {
+		return liveObject == null;
+	}
+
+	@Override
+	public String toString() {
+		if (isMissing()) {
+			return String.format("%s is missing", plannedObject);
+		}
+		return String.format("%s expected %s, found %s", plannedObject, plannedObject.getPayload(), liveObject);
+	}
+
+}
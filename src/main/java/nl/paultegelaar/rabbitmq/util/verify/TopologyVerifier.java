@@ -0,0 +1,47 @@
+package nl.paultegelaar.rabbitmq.util.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import nl.paultegelaar.rabbitmq.util.plan.ObjectType;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.reconcile.LiveTopology;
+
+/**
+ * Checks every object of a plan against the listed broker topology in a single pass. Vhosts are proven by the lists
+ * themselves, operator policies are not listed per vhost and are skipped.
+ *
+ */
+public final class TopologyVerifier {
+
+	private TopologyVerifier() {
+	}
+
+	/**
+	 * @param provisioningPlan
+	 * @param liveTopologies   per virtual host name
+	 * @return VerificationReport listing every missing or different object
+	 */
+	public static VerificationReport verify(ProvisioningPlan provisioningPlan, Map<String, LiveTopology> liveTopologies) {
+		List<Mismatch> mismatches = new ArrayList<>();
+		int verifiedCount = 0;
+		int skippedCount = 0;
+		for (PlannedObject plannedObject : provisioningPlan.getObjects()) {
+			if (plannedObject.getObjectType() == ObjectType.OPERATOR_POLICY) {
+				skippedCount++;
+				continue;
+			}
+			verifiedCount++;
+			LiveTopology liveTopology = liveTopologies.get(plannedObject.getVirtualHostName());
+			if (liveTopology == null) {
+				mismatches.add(new Mismatch(plannedObject, null));
+			} else if (plannedObject.getObjectType() != ObjectType.VHOST && !liveTopology.matches(plannedObject)) {
+				mismatches.add(new Mismatch(plannedObject, liveTopology.find(plannedObject)));
+			}
+		}
+		return new VerificationReport(verifiedCount, skippedCount, mismatches);
+	}
+
+}
@@ -0,0 +1,58 @@
+package nl.paultegelaar.rabbitmq.util.verify;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of checking every configured object against the broker.
+ *
+ */
+public class VerificationReport {
+
+	private final int verifiedCount;
+	private final int skippedCount;
+	private final List<Mismatch> mismatches;
+
+	/**
+	 * @param verifiedCount objects checked against the broker
+	 * @param skippedCount  objects which can't be listed, like operator policies
+	 * @param mismatches
+	 */
+	public VerificationReport(int verifiedCount, int skippedCount, List<Mismatch> mismatches) {
+		this.verifiedCount = verifiedCount;
+		this.skippedCount = skippedCount;
+		this.mismatches = Collections.unmodifiableList(mismatches);
+	}
+
+	public int getVerifiedCount() {
+		return verifiedCount;
+	}
+
+	public int getSkippedCount() {
+		return skippedCount;
+	}
+
+	public List<Mismatch> getMismatches() {
+		return mismatches;
+	}
+
+	/**
+	 * @return true when every verified object matches the broker
+	 */
+	public boolean isConsistent() {
+		return mismatches.isEmpty();
+	}
+
+	/**
+	 * @return one line per mismatch, preceded by the counts
+	 */
+	public String summary() {
+		StringBuilder summary = new StringBuilder(String.format("Verified %s object(s), %s mismatch(es), %s object(s) not verifiable", verifiedCount,
+				mismatches.size(), skippedCount));
+		for (Mismatch mismatch : mismatches) {
+			summary.append(System.lineSeparator()).append("  ").append(mismatch);
+		}
+		return summary.toString();
+	}
+
+}
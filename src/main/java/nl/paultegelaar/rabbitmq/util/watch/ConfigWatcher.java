@@ -0,0 +1,337 @@
+package nl.paultegelaar.rabbitmq.util.watch;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import nl.paultegelaar.rabbitmq.util.RabbitMQAdminClient;
+import nl.paultegelaar.rabbitmq.util.config.ApplicationConfig;
+import nl.paultegelaar.rabbitmq.util.exception.RabbitMQProvisioningException;
+import nl.paultegelaar.rabbitmq.util.plan.PlannedObject;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlan;
+import nl.paultegelaar.rabbitmq.util.plan.ProvisioningPlanner;
+
+/**
+ * Watches configuration files and applies every change with a client which stays connected. A changed file is read
+ * again and planned on its own, only the objects which are new or differ from the last successful apply of that file
+ * are sent. Changes are applied once a file hasn't changed for the debounce period, so an editor saving several times
+ * results in a single apply.
+ *
+ * Watched paths are either files or directories, for a directory every JSON file in it is watched. Removing a file
+ * doesn't remove its objects from the broker.
+ *
+ */
+public class ConfigWatcher implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(ConfigWatcher.class);
+	private static final String CONFIG_FILE_EXTENSION = ".json";
+
+	private final RabbitMQAdminClient rabbitMQAdminClient;
+	private final ProvisioningPlanner provisioningPlanner;
+	private final long debounceMillis;
+	private final WatchService watchService;
+	private final Set<Path> watchedFiles = new LinkedHashSet<>();
+	private final Set<Path> watchedDirectories = new LinkedHashSet<>();
+	// Plan of the last successful apply per file, changes are compared against it
+	private final Map<Path, ProvisioningPlan> appliedPlans = new HashMap<>();
+	// Last change per file which hasn't been applied yet
+	private final Map<Path, Long> pendingChanges = new LinkedHashMap<>();
+	private final WatchStatus watchStatus = new WatchStatus();
+
+	/**
+	 * Create watcher and register the paths
+	 *
+	 * @param applicationConfig
+	 * @param rabbitMQAdminClient client reused for every apply
+	 * @param paths               files or directories to watch
+	 * @throws RabbitMQProvisioningException when a path doesn't exist or can't be watched
+	 */
+	public ConfigWatcher(ApplicationConfig applicationConfig, RabbitMQAdminClient rabbitMQAdminClient, Collection<Path> paths)
+			throws RabbitMQProvisioningException {
+		this.rabbitMQAdminClient = rabbitMQAdminClient;
+		this.provisioningPlanner = new ProvisioningPlanner(applicationConfig);
+		this.debounceMillis = applicationConfig.getWatchDebounceMillis();
+
+		try {
+			this.watchService = FileSystems.getDefault().newWatchService();
+			Set<Path> registeredDirectories = new LinkedHashSet<>();
+			for (Path path : paths) {
+				Path absolutePath = path.toAbsolutePath().normalize();
+				if (Files.isDirectory(absolutePath)) {
+					watchedDirectories.add(absolutePath);
+					registeredDirectories.add(absolutePath);
+				} else if (Files.isRegularFile(absolutePath)) {
+					watchedFiles.add(absolutePath);
+					registeredDirectories.add(absolutePath.getParent());
+				} else {
+					throw new RabbitMQProvisioningException(String.format("Can't watch %s, it doesn't exist", path));
+				}
+			}
+			for (Path directory : registeredDirectories) {
+				directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+				LOGGER.info("Watching directory {}", directory);
+			}
+		} catch (IOException e) {
+			throw new RabbitMQProvisioningException(e);
+		}
+	}
+
+	/**
+	 * Apply all watched files and keep applying changes until the watcher is closed
+	 */
+	public void run() {
+		for (Path file : listWatchedFiles()) {
+			apply(file);
+		}
+		watchStatus.watching();
+
+		try {
+			while (true) {
+				long timeoutMillis = pendingChanges.isEmpty() ? Long.MAX_VALUE : Math.max(1L, nextDeadline() - System.currentTimeMillis());
+				WatchKey watchKey = timeoutMillis == Long.MAX_VALUE ? watchService.take()
+						: watchService.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+				if (watchKey != null) {
+					collectChanges(watchKey);
+				}
+				applyDebouncedChanges();
+			}
+		} catch (ClosedWatchServiceException e) {
+			LOGGER.info("Stopped watching");
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			LOGGER.info("Interrupted, stopped watching");
+		}
+	}
+
+	private void collectChanges(WatchKey watchKey) {
+		Path directory = (Path) watchKey.watchable();
+		long now = System.currentTimeMillis();
+		for (WatchEvent<?> event : watchKey.pollEvents()) {
+			if (event.kind() == OVERFLOW) {
+				// Events were lost, check everything again
+				listWatchedFiles().forEach(file -> pendingChanges.put(file, now));
+				continue;
+			}
+			Path file = directory.resolve((Path) event.context());
+			if (isWatched(file)) {
+				pendingChanges.put(file, now);
+				watchStatus.changed(file);
+			}
+		}
+		watchKey.reset();
+	}
+
+	private void applyDebouncedChanges() {
+		long now = System.currentTimeMillis();
+		Iterator<Map.Entry<Path, Long>> pendingChangeIterator = pendingChanges.entrySet().iterator();
+		List<Path> quietFiles = new ArrayList<>();
+		while (pendingChangeIterator.hasNext()) {
+			Map.Entry<Path, Long> pendingChange = pendingChangeIterator.next();
+			if (now - pendingChange.getValue() >= debounceMillis) {
+				quietFiles.add(pendingChange.getKey());
+				pendingChangeIterator.remove();
+			}
+		}
+		quietFiles.forEach(this::apply);
+	}
+
+	private long nextDeadline() {
+		return pendingChanges.values().stream().mapToLong(Long::longValue).min().orElse(System.currentTimeMillis()) + debounceMillis;
+	}
+
+	/**
+	 * Plan a single file and send everything which changed since its last successful apply
+	 *
+	 * @param file
+	 */
+	private void apply(Path file) {
+		if (!Files.exists(file)) {
+			LOGGER.info("Config file {} was removed, its objects are left in place", file);
+			appliedPlans.remove(file);
+			watchStatus.removed(file);
+			return;
+		}
+
+		ProvisioningPlan provisioningPlan;
+		try (InputStream configuration = new BufferedInputStream(Files.newInputStream(file))) {
+			provisioningPlan = provisioningPlanner.plan(configuration);
+		} catch (IOException | RabbitMQProvisioningException e) {
+			LOGGER.error("Unable to read config file {}: {}", file, e.getMessage());
+			watchStatus.failed(file, e.getMessage());
+			return;
+		}
+
+		ProvisioningPlan appliedPlan = appliedPlans.get(file);
+		ProvisioningPlan changedObjects = appliedPlan == null ? provisioningPlan : provisioningPlan.filter(plannedObject -> isChanged(plannedObject, appliedPlan));
+		if (changedObjects.isEmpty()) {
+			LOGGER.info("Config file {} contains no changes", file);
+			appliedPlans.put(file, provisioningPlan);
+			watchStatus.applied(file, provisioningPlan.size(), 0);
+			return;
+		}
+
+		LOGGER.info("Applying {} changed object(s) of config file {}", changedObjects.size(), file);
+		watchStatus.applying(file, changedObjects.size());
+		try {
+			rabbitMQAdminClient.processProvisioningPlan(changedObjects);
+			appliedPlans.put(file, provisioningPlan);
+			watchStatus.applied(file, provisioningPlan.size(), changedObjects.size());
+		} catch (RabbitMQProvisioningException e) {
+			// The last applied plan is kept, so the failed objects are sent again on the next change
+			LOGGER.error("Applying config file {} failed: {}", file, e.getMessage());
+			watchStatus.failed(file, e.getMessage());
+		}
+	}
+
+	private static boolean isChanged(PlannedObject plannedObject, ProvisioningPlan appliedPlan) {
+		PlannedObject appliedObject = appliedPlan.getObject(plannedObject.getKey());
+		return appliedObject == null || !appliedObject.getPayload().equals(plannedObject.getPayload());
+	}
+
+	private boolean isWatched(Path file) {
+		return watchedFiles.contains(file)
+				|| (watchedDirectories.contains(file.getParent()) && file.getFileName().toString().endsWith(CONFIG_FILE_EXTENSION));
+	}
+
+	/**
+	 * @return all watched files currently present, files of a directory in name order
+	 */
+	private Set<Path> listWatchedFiles() {
+		Set<Path> files = new LinkedHashSet<>(watchedFiles);
+		for (Path directory : watchedDirectories) {
+			Set<Path> directoryFiles = new TreeSet<>();
+			try (DirectoryStream<Path> directoryStream = Files.newDirectoryStream(directory, "*" + CONFIG_FILE_EXTENSION)) {
+				directoryStream.forEach(directoryFiles::add);
+			} catch (IOException e) {
+				LOGGER.error("Unable to list directory {}: {}", directory, e.getMessage());
+			}
+			files.addAll(directoryFiles);
+		}
+		return files;
+	}
+
+	/**
+	 * @return status of the watcher and every file, safe to call from other threads
+	 */
+	public Map<String, Object> getStatus() {
+		return watchStatus.snapshot(rabbitMQAdminClient.getProvisioningMetrics().getObjectCount());
+	}
+
+	/**
+	 * Stop watching, a running apply is finished first
+	 */
+	@Override
+	public void close() throws IOException {
+		watchService.close();
+	}
+
+	/**
+	 * State of the watcher, written by the watching thread and read by the status endpoint.
+	 *
+	 */
+	private static final class WatchStatus {
+
+		private final Instant startedAt = Instant.now();
+		private final Map<Path, Map<String, Object>> fileStatuses = new LinkedHashMap<>();
+		private String state = "STARTING";
+		private boolean started;
+		private Path currentFile;
+		private int currentObjectCount;
+		private long applyCount;
+
+		synchronized void watching() {
+			started = true;
+			state = "WATCHING";
+		}
+
+		synchronized void changed(Path file) {
+			fileStatus(file).put("lastChangeAt", Instant.now().toString());
+		}
+
+		synchronized void applying(Path file, int objectCount) {
+			state = "APPLYING";
+			currentFile = file;
+			currentObjectCount = objectCount;
+		}
+
+		synchronized void applied(Path file, int objectCount, int changedObjectCount) {
+			Map<String, Object> fileStatus = finish(file);
+			fileStatus.put("result", changedObjectCount == 0 ? "UNCHANGED" : "APPLIED");
+			fileStatus.put("objects", objectCount);
+			fileStatus.put("changedObjects", changedObjectCount);
+			fileStatus.remove("error");
+		}
+
+		synchronized void failed(Path file, String error) {
+			Map<String, Object> fileStatus = finish(file);
+			fileStatus.put("result", "FAILED");
+			fileStatus.put("error", error);
+		}
+
+		synchronized void removed(Path file) {
+			fileStatuses.remove(file);
+		}
+
+		private Map<String, Object> finish(Path file) {
+			state = started ? "WATCHING" : "STARTING";
+			currentFile = null;
+			applyCount++;
+			Map<String, Object> fileStatus = fileStatus(file);
+			fileStatus.put("lastAppliedAt", Instant.now().toString());
+			return fileStatus;
+		}
+
+		private Map<String, Object> fileStatus(Path file) {
+			return fileStatuses.computeIfAbsent(file, key -> new LinkedHashMap<>());
+		}
+
+		synchronized Map<String, Object> snapshot(long appliedObjectCount) {
+			Map<String, Object> snapshot = new LinkedHashMap<>();
+			snapshot.put("state", state);
+			snapshot.put("startedAt", startedAt.toString());
+			snapshot.put("applyCount", applyCount);
+			if (currentFile != null) {
+				Map<String, Object> progress = new LinkedHashMap<>();
+				progress.put("file", currentFile.toString());
+				progress.put("objects", currentObjectCount);
+				progress.put("appliedObjects", appliedObjectCount);
+				snapshot.put("progress", progress);
+			}
+			Map<String, Object> files = new LinkedHashMap<>();
+			fileStatuses.forEach((file, fileStatus) -> files.put(file.toString(), new LinkedHashMap<>(fileStatus)));
+			snapshot.put("files", files);
+			return snapshot;
+		}
+
+	}
+
+}
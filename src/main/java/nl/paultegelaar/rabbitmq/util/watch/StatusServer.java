@@ -0,0 +1,90 @@
+package nl.paultegelaar.rabbitmq.util.watch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import nl.paultegelaar.rabbitmq.util.metrics.MetricsExporter;
+import nl.paultegelaar.rabbitmq.util.metrics.ProvisioningMetrics;
+
+/**
+ * Small HTTP endpoint on the loopback interface exposing the state of a {@link ConfigWatcher}. GET /status returns
+ * the watcher status as JSON, GET /metrics the metrics of the last apply in Prometheus text format.
+ *
+ */
+public class StatusServer implements Closeable {
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(StatusServer.class);
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private final HttpServer httpServer;
+
+	/**
+	 * Start the endpoint
+	 *
+	 * @param port                port on the loopback interface
+	 * @param configWatcher
+	 * @param provisioningMetrics metrics of the client used by the watcher
+	 * @throws IOException when the port can't be bound
+	 */
+	public StatusServer(int port, ConfigWatcher configWatcher, ProvisioningMetrics provisioningMetrics) throws IOException {
+		httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		httpServer.createContext("/status", exchange -> respond(exchange, "application/json",
+				() -> OBJECT_MAPPER.writerWithDefaultPrettyPrinter().writeValueAsBytes(configWatcher.getStatus())));
+		httpServer.createContext("/metrics", exchange -> respond(exchange, "text/plain; version=0.0.4",
+				() -> MetricsExporter.toPrometheus(provisioningMetrics).getBytes(StandardCharsets.UTF_8)));
+		httpServer.start();
+		LOGGER.info("Status available at http://{}:{}/status", httpServer.getAddress().getHostString(), httpServer.getAddress().getPort());
+	}
+
+	private static void respond(HttpExchange exchange, String contentType, ResponseBody responseBody) throws IOException {
+		try {
+			if (!"GET".equals(exchange.getRequestMethod())) {
+				exchange.sendResponseHeaders(405, -1);
+				return;
+			}
+			byte[] body = responseBody.get();
+			exchange.getResponseHeaders().add("Content-Type", contentType);
+			exchange.sendResponseHeaders(200, body.length);
+			try (OutputStream outputStream = exchange.getResponseBody()) {
+				outputStream.write(body);
+			}
+		} finally {
+			exchange.close();
+		}
+	}
+
+	/**
+	 * @return port the endpoint is listening on
+	 */
+	public int getPort() {
+		return httpServer.getAddress().getPort();
+	}
+
+	@Override
+	public void close() {
+		httpServer.stop(0);
+	}
+
+	/**
+	 * Body of a response, created per request.
+	 *
+	 */
+	@FunctionalInterface
+	private interface ResponseBody {
+
+		byte[] get() throws IOException;
+
+	}
+
+}
@@ -0,0 +1,97 @@
+package nl.paultegelaar.rabbitmq.util.transport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class TestAdaptiveConcurrencyLimiter {
+
+	/**
+	 * Test if overload halves the limit once per round trip and success grows it back
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testDecreaseAndRecover() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 16, 1000);
+
+		// Two requests in flight when the broker starts rejecting, only the first decreases the limit
+		long first = limiter.acquire();
+		long second = limiter.acquire();
+		limiter.release(first, true);
+		limiter.release(second, true);
+		assertEquals(8, limiter.getLimit());
+
+		limiter.release(limiter.acquire(), true);
+		limiter.release(limiter.acquire(), true);
+		limiter.release(limiter.acquire(), true);
+		assertEquals(2, limiter.getLimit());
+
+		for (int i = 0; i < 200; i++) {
+			limiter.release(limiter.acquire(), false);
+		}
+		assertEquals(16, limiter.getLimit());
+	}
+
+	/**
+	 * Test if sustained overload keeps decreasing the limit while other requests are in flight
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testOverlappingOverloadKeepsDecreasing() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 16, 1000);
+
+		long first = limiter.acquire();
+		long second = limiter.acquire();
+		limiter.release(first, true);
+		assertEquals(8, limiter.getLimit());
+
+		// Sent after the decrease, still decreases although the second request was ignored in between
+		long third = limiter.acquire();
+		long fourth = limiter.acquire();
+		limiter.release(second, true);
+		limiter.release(third, true);
+		assertEquals(4, limiter.getLimit());
+
+		long fifth = limiter.acquire();
+		limiter.release(fourth, true);
+		limiter.release(fifth, true);
+		assertEquals(2, limiter.getLimit());
+	}
+
+	/**
+	 * Test if a request sent before the last decrease doesn't decrease the limit again
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testRequestBeforeDecreaseIgnored() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 16, 1000);
+
+		long first = limiter.acquire();
+		long second = limiter.acquire();
+		long third = limiter.acquire();
+		limiter.release(first, true);
+		assertEquals(8, limiter.getLimit());
+		limiter.release(second, true);
+		limiter.release(third, true);
+		assertEquals(8, limiter.getLimit());
+	}
+
+	/**
+	 * Test if a request slower than the threshold is treated as overload
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	void testLatencyDecreasesLimit() throws Exception {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 4, 10);
+
+		long start = limiter.acquire();
+		Thread.sleep(50);
+		limiter.release(start, false);
+		assertEquals(2, limiter.getLimit());
+	}
+
+}